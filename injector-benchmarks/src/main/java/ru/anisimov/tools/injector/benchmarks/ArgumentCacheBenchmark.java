@@ -0,0 +1,68 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * ARGUMENTS-scoped resolution cycling over a number of distinct argument
+ * values, with a cache that holds all of them or only half.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentCacheBenchmark {
+	@Param({ "16", "1024" })
+	public int keys;
+	
+	@Param({ "false", "true" })
+	public boolean evicting;
+	
+	private Container container;
+	private String[] values;
+	private int next;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY, String.class).
+				reusedWithin(ReuseScope.ARGUMENTS).boundedTo(evicting ? keys / 2 : keys);
+		container = builder.build();
+		values = new String[keys];
+		for (int i = 0; i < keys; i++) {
+			values[i] = "key" + i;
+		}
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		int i = next;
+		next = i + 1 == keys ? 0 : i + 1;
+		return container.resolve(Service.class, values[i]);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public Service resolveContended() throws ResolutionException {
+		return container.resolve(Service.class, values[(int) (System.nanoTime() & (keys - 1))]);
+	}
+}
@@ -0,0 +1,48 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentsBenchmark {
+	@Param({ "0", "1", "2", "3", "4" })
+	public int arity;
+	
+	private Container container;
+	private Object[] args;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		for (int i = 0; i <= 4; i++) {
+			builder.register(Service.class, Services.FACTORY, Services.stringArgs(i));
+		}
+		container = builder.build();
+		args = Services.stringValues(arity);
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		return container.resolve(Service.class, args);
+	}
+}
@@ -0,0 +1,107 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.Factory;
+import ru.anisimov.tools.injector.Factory2;
+import ru.anisimov.tools.injector.IntFactory;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Resolution of NONE-scoped services by argument array against the
+ * fixed-arity resolve methods. Run with {@code -prof gc} to see the
+ * allocations per call: the array and boxed arguments on the array paths,
+ * only the service itself on the typed ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArityFactoryBenchmark {
+	private Container container;
+	private String first = "first";
+	private String second = "second";
+	private int number = 1000;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Pair.class, new Factory<Pair>() {
+			@Override
+			public Pair newInstance(Object... args) {
+				return new Pair(args[0], args[1]);
+			}
+		}, String.class, String.class).named("array");
+		builder.registerTyped(Pair.class, new Factory2<Pair, String, String>() {
+			@Override
+			public Pair newInstance(String a, String b) {
+				return new Pair(a, b);
+			}
+		}, String.class, String.class);
+		builder.register(Number.class, new Factory<Number>() {
+			@Override
+			public Number newInstance(Object... args) {
+				return new Number((Integer) args[0]);
+			}
+		}, Integer.class);
+		builder.registerInt(Number.class, new IntFactory<Number>() {
+			@Override
+			public Number newInstance(int value) {
+				return new Number(value);
+			}
+		});
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public Pair array() throws ResolutionException {
+		return container.resolve("array", Pair.class, new Object[] { first, second });
+	}
+	
+	@Benchmark
+	public Pair typed() throws ResolutionException {
+		return container.resolveTyped(Pair.class, first, second);
+	}
+	
+	@Benchmark
+	public Number boxed() throws ResolutionException {
+		return container.resolve(Number.class, new Object[] { number });
+	}
+	
+	@Benchmark
+	public Number primitive() throws ResolutionException {
+		return container.resolveInt(Number.class, number);
+	}
+	
+	public static final class Pair {
+		final Object a;
+		final Object b;
+		
+		Pair(Object a, Object b) {
+			this.a = a;
+			this.b = b;
+		}
+	}
+	
+	public static final class Number {
+		final int value;
+		
+		Number(int value) {
+			this.value = value;
+		}
+	}
+}
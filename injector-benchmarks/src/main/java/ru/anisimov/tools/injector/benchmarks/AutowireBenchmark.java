@@ -0,0 +1,72 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ContainerAwareFactory;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/*
+ * NONE-scoped service with two singleton dependencies, created by a
+ * hand-written factory and by registerType.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutowireBenchmark {
+	private Container container;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Left.class).reusedWithin(ReuseScope.HIERARCHY);
+		builder.registerType(Right.class).reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Pair.class, new ContainerAwareFactory<Pair>() {
+			@Override
+			public Pair newInstance(Container container, Object... args) throws ResolutionException {
+				return new Pair(container.resolve(Left.class), container.resolve(Right.class));
+			}
+		}).named("handWritten");
+		builder.registerType(Pair.class).named("registered");
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public Pair handWritten() throws ResolutionException {
+		return container.resolve("handWritten", Pair.class);
+	}
+	
+	@Benchmark
+	public Pair registerType() throws ResolutionException {
+		return container.resolve("registered", Pair.class);
+	}
+	
+	public static class Left {}
+	
+	public static class Right {}
+	
+	public static class Pair {
+		final Left left;
+		final Right right;
+		
+		public Pair(Left left, Right right) {
+			this.left = left;
+			this.right = right;
+		}
+	}
+}
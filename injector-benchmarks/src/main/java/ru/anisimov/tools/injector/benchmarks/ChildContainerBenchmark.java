@@ -0,0 +1,65 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildContainerBenchmark {
+	@Param({ "1", "2", "4", "8", "16" })
+	public int depth;
+	
+	private Container leaf;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY).named("none");
+		builder.register(Service.class, Services.FACTORY).named("container").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Service.class, Services.FACTORY).named("hierarchy").reusedWithin(ReuseScope.HIERARCHY);
+		leaf = builder.build();
+		for (int i = 0; i < depth; i++) {
+			leaf = leaf.createChildContainer();
+		}
+	}
+	
+	@Benchmark
+	public Service resolveNone() throws ResolutionException {
+		return leaf.resolve("none", Service.class);
+	}
+	
+	@Benchmark
+	public Service resolveContainer() throws ResolutionException {
+		return leaf.resolve("container", Service.class);
+	}
+	
+	@Benchmark
+	public Service resolveHierarchy() throws ResolutionException {
+		return leaf.resolve("hierarchy", Service.class);
+	}
+	
+	@Benchmark
+	public Service createChildAndResolveContainer() throws ResolutionException {
+		return leaf.createChildContainer().resolve("container", Service.class);
+	}
+}
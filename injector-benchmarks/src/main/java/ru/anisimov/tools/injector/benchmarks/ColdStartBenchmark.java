@@ -0,0 +1,116 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ContainerAwareFactory;
+import ru.anisimov.tools.injector.Factory;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+import ru.anisimov.tools.injector.syntax.registration.RegistrationInterface;
+
+/**
+ * First resolution of a service with a number of HIERARCHY-scoped
+ * dependencies that each block for a millisecond, as if loading a file,
+ * resolved serially, with resolveAsync and after warming up the eager
+ * dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColdStartBenchmark {
+	@Param({ "4", "16" })
+	public int width;
+	
+	private ExecutorService executor;
+	private Container container;
+	
+	@Setup(Level.Trial)
+	public void startExecutor() {
+		executor = Executors.newFixedThreadPool(16);
+	}
+	
+	@TearDown(Level.Trial)
+	public void stopExecutor() {
+		executor.shutdown();
+	}
+	
+	@Setup(Level.Invocation)
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		for (int i = 0; i < width; i++) {
+			builder.register(Slow.class, Slow.FACTORY).named("slow" + i).reusedWithin(ReuseScope.HIERARCHY).eager();
+		}
+		RegistrationInterface root = builder.register(Root.class, new ContainerAwareFactory<Root>() {
+			@Override
+			public Root newInstance(Container container, Object... args) throws ResolutionException {
+				Slow[] parts = new Slow[width];
+				for (int i = 0; i < width; i++) {
+					parts[i] = container.resolve("slow" + i, Slow.class);
+				}
+				return new Root(parts);
+			}
+		});
+		for (int i = 0; i < width; i++) {
+			root.dependsOn("slow" + i, Slow.class);
+		}
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public Root resolve() throws ResolutionException {
+		return container.resolve(Root.class);
+	}
+	
+	@Benchmark
+	public Root resolveAsync() {
+		return container.resolveAsync(Root.class).join();
+	}
+	
+	@Benchmark
+	public Root warmUp() throws ResolutionException {
+		container.warmUp(executor);
+		return container.resolve(Root.class);
+	}
+	
+	static class Slow {
+		static final Factory<Slow> FACTORY = new Factory<Slow>() {
+			@Override
+			public Slow newInstance(Object... args) {
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new Slow();
+			}
+		};
+	}
+	
+	static class Root {
+		final Slow[] parts;
+		
+		Root(Slow[] parts) {
+			this.parts = parts;
+		}
+	}
+}
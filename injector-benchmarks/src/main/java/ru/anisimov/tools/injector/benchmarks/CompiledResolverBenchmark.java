@@ -0,0 +1,95 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.Factory;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.ServiceHandle;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Built against compiled containers resolving services of several factory
+ * classes, so the factory call of a built container sees many receivers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledResolverBenchmark {
+	@Param({ "false", "true" })
+	public boolean compiled;
+	
+	private Container container;
+	private ServiceHandle<Part> first;
+	private ServiceHandle<Part> second;
+	private ServiceHandle<Part> third;
+	private ServiceHandle<Part> fourth;
+	
+	@Setup
+	public void setUp() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				return new Part(1);
+			}
+		}).named("first");
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				return new Part(2);
+			}
+		}).named("second");
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				return new Part(3);
+			}
+		}).named("third");
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				return new Part(4);
+			}
+		}).named("fourth").reusedWithin(ReuseScope.HIERARCHY);
+		container = compiled ? builder.compile() : builder.build();
+		first = container.handle("first", Part.class);
+		second = container.handle("second", Part.class);
+		third = container.handle("third", Part.class);
+		fourth = container.handle("fourth", Part.class);
+	}
+	
+	@Benchmark
+	public int resolveByName() throws ResolutionException {
+		return container.resolve("first", Part.class).weight + container.resolve("second", Part.class).weight + 
+				container.resolve("third", Part.class).weight + container.resolve("fourth", Part.class).weight;
+	}
+	
+	@Benchmark
+	public int resolveHandles() throws ResolutionException {
+		return first.resolve().weight + second.resolve().weight + third.resolve().weight + fourth.resolve().weight;
+	}
+	
+	static class Part {
+		final int weight;
+		
+		Part(int weight) {
+			this.weight = weight;
+		}
+	}
+}
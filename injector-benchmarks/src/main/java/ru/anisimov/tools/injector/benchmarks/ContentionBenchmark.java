@@ -0,0 +1,68 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.ServiceHandle;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/*
+ * Throughput of a HIERARCHY singleton read by one and by many threads; with
+ * lock-free reads the score should grow with the thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+	private Container container;
+	private ServiceHandle<Service> handle;
+	
+	@Setup
+	public void setUp() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY).reusedWithin(ReuseScope.HIERARCHY);
+		container = builder.build();
+		handle = container.handle(Service.class);
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public Service resolveSingleThread() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Service resolveAllThreads() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Service resolveHandleAllThreads() throws ResolutionException {
+		return handle.resolve();
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Service resolveInChildAllThreads() throws ResolutionException {
+		return container.createChildContainer().resolve(Service.class);
+	}
+}
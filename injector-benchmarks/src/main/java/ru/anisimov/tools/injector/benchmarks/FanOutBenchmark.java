@@ -0,0 +1,65 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Resolving every named HIERARCHY-scoped implementation of a type, one name
+ * at a time against resolveAll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+	@Param({ "4", "32" })
+	public int handlers;
+	
+	private Container container;
+	private String[] names;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		names = new String[handlers];
+		for (int i = 0; i < handlers; i++) {
+			names[i] = "handler" + i;
+			builder.register(Service.class, Services.FACTORY).named(names[i]).reusedWithin(ReuseScope.HIERARCHY);
+		}
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public List<Service> resolveByName() throws ResolutionException {
+		List<Service> result = new ArrayList<>(names.length);
+		for (String name: names) {
+			result.add(container.resolve(name, Service.class));
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public List<Service> resolveAll() throws ResolutionException {
+		return container.resolveAll(Service.class);
+	}
+}
@@ -0,0 +1,62 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Cost of resolution counters, compared with the same container built
+ * without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+	@Param({ "NONE", "HIERARCHY" })
+	public ReuseScope scope;
+	
+	@Param({ "false", "true" })
+	public boolean metrics;
+	
+	private Container container;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY).reusedWithin(scope);
+		if (metrics) {
+			builder.enableMetrics();
+		}
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public Service resolveContended() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+}
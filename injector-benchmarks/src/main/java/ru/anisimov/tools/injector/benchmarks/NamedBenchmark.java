@@ -0,0 +1,56 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamedBenchmark {
+	private Container container;
+	private String name;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY);
+		for (int i = 0; i < 8; i++) {
+			builder.register(Service.class, Services.FACTORY).named("service" + i);
+		}
+		container = builder.build();
+		// not a compile-time constant, so the name is not compared by identity
+		name = new String("service7");
+	}
+	
+	@Benchmark
+	public Service resolveUnnamed() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+	
+	@Benchmark
+	public Service resolveNamed() throws ResolutionException {
+		return container.resolve("service7", Service.class);
+	}
+	
+	@Benchmark
+	public Service resolveNamedCopy() throws ResolutionException {
+		return container.resolve(name, Service.class);
+	}
+}
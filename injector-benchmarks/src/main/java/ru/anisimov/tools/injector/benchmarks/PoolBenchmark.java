@@ -0,0 +1,84 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.Factory;
+import ru.anisimov.tools.injector.Lease;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.Resetter;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * An expensive to build, mutable service: a new instance per resolution
+ * against one leased from a pool and reset on return.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PoolBenchmark {
+	private Container container;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Workspace.class, Workspace.FACTORY).named("new").reusedWithin(ReuseScope.NONE);
+		builder.register(Workspace.class, Workspace.FACTORY).named("pooled").pooledWithin(4, 8).
+				resetWith(Workspace.RESETTER);
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public int newInstance() throws ResolutionException {
+		return container.resolve("new", Workspace.class).fill(17);
+	}
+	
+	@Benchmark
+	public int leased() throws ResolutionException {
+		try (Lease<Workspace> lease = container.lease("pooled", Workspace.class)) {
+			return lease.get().fill(17);
+		}
+	}
+	
+	static class Workspace {
+		static final Factory<Workspace> FACTORY = new Factory<Workspace>() {
+			@Override
+			public Workspace newInstance(Object... args) {
+				return new Workspace();
+			}
+		};
+		
+		static final Resetter<Workspace> RESETTER = new Resetter<Workspace>() {
+			@Override
+			public void reset(Workspace instance) {
+				instance.used = 0;
+			}
+		};
+		
+		private final int[] buffer = new int[4096];
+		private int used;
+		
+		int fill(int value) {
+			for (int i = 0; i < 64; i++) {
+				buffer[used++] = value + i;
+			}
+			return buffer[used - 1];
+		}
+	}
+}
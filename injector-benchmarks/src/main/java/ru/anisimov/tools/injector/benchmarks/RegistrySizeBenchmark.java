@@ -0,0 +1,59 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrySizeBenchmark {
+	@Param({ "10", "100", "1000", "10000", "100000" })
+	public int size;
+	
+	private Container.Builder builder;
+	private Container container;
+	private String[] names;
+	private int next;
+	
+	@Setup
+	public void setUp() {
+		builder = Container.Builder.newInstance();
+		names = new String[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = "service" + i;
+			builder.register(Service.class, Services.FACTORY).named(names[i]);
+		}
+		container = builder.build();
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		int i = next;
+		next = i + 1 < names.length ? i + 1 : 0;
+		return container.resolve(names[i], Service.class);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Container build() {
+		return builder.build();
+	}
+}
@@ -0,0 +1,76 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Cost of Flight Recorder events: a container built without them, one built
+ * with them while no recording runs, and one under a recording that drops
+ * resolutions below the threshold or keeps all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionEventBenchmark {
+	@Param({ "NONE", "HIERARCHY" })
+	public ReuseScope scope;
+	
+	@Param({ "off", "idle", "threshold", "recording" })
+	public String events;
+	
+	private Container container;
+	private Recording recording;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY).reusedWithin(scope);
+		if (events.equals("threshold")) {
+			builder.recordEvents(1000);
+		} else if (!events.equals("off")) {
+			builder.recordEvents();
+		}
+		container = builder.build();
+		if (events.equals("threshold") || events.equals("recording")) {
+			recording = new Recording();
+			recording.enable("ru.anisimov.tools.injector.Resolution");
+			recording.setToDisk(false);
+			recording.setMaxSize(16 * 1024 * 1024);
+			recording.start();
+		}
+	}
+	
+	@TearDown
+	public void tearDown() {
+		if (recording != null) {
+			recording.close();
+		}
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+}
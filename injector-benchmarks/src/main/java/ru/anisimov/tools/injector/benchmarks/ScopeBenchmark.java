@@ -0,0 +1,53 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.ServiceHandle;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeBenchmark {
+	@Param({ "NONE", "CONTAINER", "HIERARCHY" })
+	public ReuseScope scope;
+	
+	private Container container;
+	private ServiceHandle<Service> handle;
+	
+	@Setup
+	public void setUp() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Service.class, Services.FACTORY).reusedWithin(scope);
+		container = builder.build();
+		handle = container.handle(Service.class);
+	}
+	
+	@Benchmark
+	public Service resolve() throws ResolutionException {
+		return container.resolve(Service.class);
+	}
+	
+	@Benchmark
+	public Service resolveHandle() throws ResolutionException {
+		return handle.resolve();
+	}
+}
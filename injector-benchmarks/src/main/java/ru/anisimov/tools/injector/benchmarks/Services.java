@@ -0,0 +1,40 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import ru.anisimov.tools.injector.Factory;
+
+final class Services {
+	private Services() {}
+	
+	static final Factory<Service> FACTORY = new Factory<Service>() {
+		@Override
+		public Service newInstance(Object... args) {
+			return new Service(args);
+		}
+	};
+	
+	static Class<?>[] stringArgs(int count) {
+		Class<?>[] types = new Class<?>[count];
+		for (int i = 0; i < count; i++) {
+			types[i] = String.class;
+		}
+		return types;
+	}
+	
+	static Object[] stringValues(int count) {
+		Object[] values = new Object[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = "arg" + i;
+		}
+		return values;
+	}
+	
+	static class Service {
+		final int arity;
+		
+		Service(Object[] args) {
+			this.arity = args.length;
+		}
+	}
+	
+	static class Missing {}
+}
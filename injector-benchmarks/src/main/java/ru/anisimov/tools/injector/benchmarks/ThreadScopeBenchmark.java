@@ -0,0 +1,97 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.ExecutionScope;
+import ru.anisimov.tools.injector.Factory;
+import ru.anisimov.tools.injector.ReuseScope;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * A non-thread-safe helper used from many threads: a synchronized
+ * HIERARCHY singleton against THREAD and EXECUTION-scoped instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ThreadScopeBenchmark {
+	private Container container;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Encoder.class, Encoder.FACTORY).named("shared").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Encoder.class, Encoder.FACTORY).named("thread").reusedWithin(ReuseScope.THREAD);
+		builder.register(Encoder.class, Encoder.FACTORY).named("execution").reusedWithin(ReuseScope.EXECUTION);
+		container = builder.build();
+	}
+	
+	@State(Scope.Thread)
+	public static class Task {
+		final ExecutionScope scope = new ExecutionScope();
+		long value;
+	}
+	
+	@Benchmark
+	public String synchronizedSingleton(Task task) throws ResolutionException {
+		Encoder encoder = container.resolve("shared", Encoder.class);
+		synchronized (encoder) {
+			return encoder.encode(task.value++);
+		}
+	}
+	
+	@Benchmark
+	public String threadScoped(Task task) throws ResolutionException {
+		return container.resolve("thread", Encoder.class).encode(task.value++);
+	}
+	
+	@Benchmark
+	public String executionScoped(final Task task) throws Exception {
+		return task.scope.call(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return container.resolve("execution", Encoder.class).encode(task.value++);
+			}
+		});
+	}
+	
+	/*
+	 * Reuses its buffer between calls, so it must not be shared unguarded.
+	 */
+	static class Encoder {
+		static final Factory<Encoder> FACTORY = new Factory<Encoder>() {
+			@Override
+			public Encoder newInstance(Object... args) {
+				return new Encoder();
+			}
+		};
+		
+		private final char[] buffer = new char[16];
+		
+		String encode(long value) {
+			for (int i = buffer.length - 1; i >= 0; i--) {
+				buffer[i] = Character.forDigit((int) (value & 0xF), 16);
+				value >>>= 4;
+			}
+			return new String(buffer);
+		}
+	}
+}
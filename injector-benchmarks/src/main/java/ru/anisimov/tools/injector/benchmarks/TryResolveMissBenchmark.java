@@ -0,0 +1,83 @@
+package ru.anisimov.tools.injector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.benchmarks.Services.Missing;
+import ru.anisimov.tools.injector.benchmarks.Services.Service;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TryResolveMissBenchmark {
+	@Param({ "0", "4" })
+	public int depth;
+	
+	private Container container;
+	private Container stackless;
+	
+	@Setup
+	public void setUp() {
+		Container.Builder builder = Container.Builder.newInstance();
+		for (int i = 0; i < 100; i++) {
+			builder.register(Service.class, Services.FACTORY).named("service" + i);
+		}
+		container = builder.build();
+		stackless = builder.stacklessMisses().build();
+		for (int i = 0; i < depth; i++) {
+			container = container.createChildContainer();
+			stackless = stackless.createChildContainer();
+		}
+	}
+	
+	@Benchmark
+	public Missing missType() throws ResolutionException {
+		return container.tryResolve(Missing.class);
+	}
+	
+	@Benchmark
+	public Service missName() throws ResolutionException {
+		return container.tryResolve("missing", Service.class);
+	}
+	
+	@Benchmark
+	public Service missArguments() throws ResolutionException {
+		return container.tryResolve("service0", Service.class, "arg");
+	}
+	
+	@Benchmark
+	public ResolutionException resolveMiss() {
+		try {
+			container.resolve("missing", Service.class);
+			return null;
+		} catch (ResolutionException e) {
+			return e;
+		}
+	}
+	
+	@Benchmark
+	public ResolutionException resolveMissStackless() {
+		try {
+			stackless.resolve("missing", Service.class);
+			return null;
+		} catch (ResolutionException e) {
+			return e;
+		}
+	}
+}
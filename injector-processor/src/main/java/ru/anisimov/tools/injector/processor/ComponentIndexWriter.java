@@ -0,0 +1,78 @@
+package ru.anisimov.tools.injector.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the binary component index that {@code Container.Builder.loadIndex}
+ * reads instead of running the generated module. The format is described by
+ * {@code ComponentIndex} in the injector; every string is written once to a
+ * table and referred to by its position.
+ */
+class ComponentIndexWriter {
+	static final String RESOURCE = "META-INF/injector/components";
+	static final int MAGIC = 0x494E4A58;
+	static final int VERSION = 1;
+	
+	private final Map<String, Integer> strings = new LinkedHashMap<>();
+	private final ByteArrayOutputStream components = new ByteArrayOutputStream();
+	private int count;
+	
+	/*
+	 * Class names are binary names, as taken by Class.forName; dependencies
+	 * are pairs of a class name and a name, which is null for none.
+	 */
+	void add(String serviceType, String factory, String name, String scope,
+			List<String> argTypes, List<String[]> dependencies) {
+		count++;
+		varint(string(serviceType));
+		varint(string(factory));
+		varint(name == null ? 0 : string(name) + 1);
+		varint(string(scope));
+		varint(argTypes.size());
+		for (String argType: argTypes) {
+			varint(string(argType));
+		}
+		varint(dependencies.size());
+		for (String[] dependency: dependencies) {
+			varint(string(dependency[0]));
+			varint(dependency[1] == null ? 0 : string(dependency[1]) + 1);
+		}
+	}
+	
+	byte[] toByteArray() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(strings.size());
+			for (String string: strings.keySet()) {
+				out.writeUTF(string);
+			}
+			out.writeInt(count);
+			components.writeTo(out);
+		}
+		return bytes.toByteArray();
+	}
+	
+	private int string(String value) {
+		Integer index = strings.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.put(value, index);
+		}
+		return index;
+	}
+	
+	private void varint(int value) {
+		while ((value & ~0x7f) != 0) {
+			components.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		components.write(value);
+	}
+}
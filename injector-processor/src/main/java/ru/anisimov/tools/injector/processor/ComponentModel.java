@@ -0,0 +1,385 @@
+package ru.anisimov.tools.injector.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Constructor of a component as seen by the processor, with everything needed
+ * to write its factory and its registration.
+ */
+class ComponentModel {
+	static final String COMPONENT = "ru.anisimov.tools.injector.annotations.Component";
+	static final String NAMED = "ru.anisimov.tools.injector.annotations.Named";
+	static final String ARGUMENT = "ru.anisimov.tools.injector.annotations.Argument";
+	static final String PROVIDER = "ru.anisimov.tools.injector.Provider";
+	static final String LAZY = "ru.anisimov.tools.injector.Lazy";
+	static final String LIST = "java.util.List";
+	static final String MAP = "java.util.Map";
+	
+	private final TypeElement type;
+	private final String packageName;
+	private final String factorySimpleName;
+	private final TypeElement serviceType;
+	private final String name;
+	private final String scope;
+	private final List<Parameter> parameters;
+	private final Elements elements;
+	
+	private ComponentModel(TypeElement type, String packageName, TypeElement serviceType, 
+			String name, String scope, List<Parameter> parameters, Elements elements) {
+		this.type = type;
+		this.packageName = packageName;
+		this.factorySimpleName = type.getQualifiedName().toString().
+				substring(packageName.isEmpty() ? 0 : packageName.length() + 1).
+				replace('.', '_') + "_Factory";
+		this.serviceType = serviceType;
+		this.name = name;
+		this.scope = scope;
+		this.parameters = parameters;
+		this.elements = elements;
+	}
+	
+	TypeElement getType() {
+		return type;
+	}
+	
+	String getFactoryName() {
+		return packageName.isEmpty() ? factorySimpleName : packageName + "." + factorySimpleName;
+	}
+	
+	boolean isAccessibleFrom(String otherPackage) {
+		return packageName.equals(otherPackage) || serviceType.getModifiers().contains(Modifier.PUBLIC);
+	}
+	
+	String factorySource() {
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		String service = serviceType.getQualifiedName().toString();
+		source.append("public final class ").append(factorySimpleName).
+				append(" implements ru.anisimov.tools.injector.ContainerAwareFactory<").
+				append(service).append("> {\n");
+		source.append("\t@Override\n");
+		if (hasParameterizedParameters()) {
+			source.append("\t@SuppressWarnings(\"unchecked\")\n");
+		}
+		source.append("\tpublic ").append(service).
+				append(" newInstance(ru.anisimov.tools.injector.Container container, Object... args)\n");
+		source.append("\t\t\tthrows ru.anisimov.tools.injector.exceptions.ResolutionException {\n");
+		source.append("\t\treturn new ").append(type.getQualifiedName()).append("(");
+		int argument = 0;
+		for (int i = 0; i < parameters.size(); i++) {
+			Parameter parameter = parameters.get(i);
+			source.append(i == 0 ? "\n\t\t\t\t" : ",\n\t\t\t\t");
+			if (parameter.isArgument()) {
+				source.append("(").append(parameter.castType).append(") args[").append(argument++).append("]");
+			} else {
+				source.append(parameter.resolveSource(elements));
+			}
+		}
+		source.append(");\n");
+		source.append("\t}\n");
+		source.append("}\n");
+		return source.toString();
+	}
+	
+	String registrationSource() {
+		StringBuilder source = new StringBuilder("builder.register(");
+		source.append(serviceType.getQualifiedName()).append(".class, new ").
+				append(getFactoryName()).append("()");
+		for (Parameter parameter: parameters) {
+			if (parameter.isArgument()) {
+				source.append(", ").append(parameter.classLiteral);
+			}
+		}
+		source.append(")");
+		if (!name.isEmpty()) {
+			source.append(".named(").append(elements.getConstantExpression(name)).append(")");
+		}
+		for (Parameter parameter: parameters) {
+			if (parameter.isDependency()) {
+				source.append(".dependsOn(").append(parameter.dependencySource(elements)).append(")");
+			}
+		}
+		source.append(".reusedWithin(ru.anisimov.tools.injector.ReuseScope.").append(scope).append(");");
+		return source.toString();
+	}
+	
+	/*
+	 * Adds the registration to the component index, with the same key,
+	 * scope and dependencies as registrationSource.
+	 */
+	void indexTo(ComponentIndexWriter index) {
+		List<String> argTypes = new ArrayList<>();
+		List<String[]> dependencies = new ArrayList<>();
+		for (Parameter parameter: parameters) {
+			if (parameter.isArgument()) {
+				argTypes.add(parameter.binaryName);
+			} else if (parameter.isDependency()) {
+				dependencies.add(new String[] { parameter.binaryName, parameter.name });
+			}
+		}
+		index.add(elements.getBinaryName(serviceType).toString(), getFactoryName(), 
+				name.isEmpty() ? null : name, scope, argTypes, dependencies);
+	}
+	
+	private boolean hasParameterizedParameters() {
+		for (Parameter parameter: parameters) {
+			if (parameter.parameterized) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	static class Parameter {
+		private final String classLiteral;
+		private final String binaryName;
+		private final String castType;
+		private final String name;
+		private final String method;
+		private final boolean parameterized;
+		
+		/*
+		 * The method is the Container method that supplies the value: resolve,
+		 * provider, lazy, resolveAll or resolveAllNamed, or null for a
+		 * resolve-time argument.
+		 */
+		Parameter(String classLiteral, String binaryName, String castType, String name, 
+				String method, boolean parameterized) {
+			this.classLiteral = classLiteral;
+			this.binaryName = binaryName;
+			this.castType = castType;
+			this.name = name;
+			this.method = method;
+			this.parameterized = parameterized;
+		}
+		
+		boolean isArgument() {
+			return method == null;
+		}
+		
+		/*
+		 * Providers and lazy references are not declared, so they may close a
+		 * cycle, and neither are multi-bindings, which may be empty.
+		 */
+		boolean isDependency() {
+			return "resolve".equals(method);
+		}
+		
+		String resolveSource(Elements elements) {
+			String source = "container." + method + "(" + dependencySource(elements) + ")";
+			if (parameterized && !isDependency()) {
+				// Provider<List> is not convertible to Provider<List<String>>
+				return "(" + castType + ") (Object) " + source;
+			}
+			return source;
+		}
+		
+		String dependencySource(Elements elements) {
+			if (name == null) {
+				return classLiteral;
+			}
+			return elements.getConstantExpression(name) + ", " + classLiteral;
+		}
+	}
+	
+	static class Reader {
+		private final ProcessingEnvironment env;
+		private final Elements elements;
+		private final Types types;
+		
+		Reader(ProcessingEnvironment env) {
+			this.env = env;
+			this.elements = env.getElementUtils();
+			this.types = env.getTypeUtils();
+		}
+		
+		ComponentModel read(ExecutableElement constructor) {
+			TypeElement type = (TypeElement) constructor.getEnclosingElement();
+			if (!check(type, constructor)) {
+				return null;
+			}
+			
+			TypeElement serviceType = type;
+			String name = "";
+			String scope = "NONE";
+			AnnotationMirror component = annotation(type, COMPONENT);
+			if (component != null) {
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value: 
+						elements.getElementValuesWithDefaults(component).entrySet()) {
+					String member = value.getKey().getSimpleName().toString();
+					Object content = value.getValue().getValue();
+					if (member.equals("service")) {
+						TypeElement service = (TypeElement) types.asElement((TypeMirror) content);
+						if (!service.getQualifiedName().contentEquals("java.lang.Void")) {
+							serviceType = service;
+						}
+					} else if (member.equals("name")) {
+						name = (String) content;
+					} else if (member.equals("scope")) {
+						scope = ((VariableElement) content).getSimpleName().toString();
+					}
+				}
+			}
+			if (!types.isAssignable(types.erasure(type.asType()), types.erasure(serviceType.asType()))) {
+				error(type, type + " is not a " + serviceType);
+				return null;
+			}
+			
+			List<Parameter> parameters = new ArrayList<>();
+			for (VariableElement parameter: constructor.getParameters()) {
+				parameters.add(parameter(parameter));
+			}
+			return new ComponentModel(type, elements.getPackageOf(type).getQualifiedName().toString(), 
+					serviceType, name, scope, parameters, elements);
+		}
+		
+		private Parameter parameter(VariableElement parameter) {
+			TypeMirror type = parameter.asType();
+			boolean parameterized = type.getKind() == TypeKind.DECLARED && 
+					!((DeclaredType) type).getTypeArguments().isEmpty();
+			if (annotation(parameter, ARGUMENT) != null) {
+				TypeMirror boxed = type.getKind().isPrimitive() ? 
+						types.boxedClass((PrimitiveType) type).asType() : types.erasure(type);
+				String castType = type.getKind().isPrimitive() ? boxed.toString() : type.toString();
+				return new Parameter(boxed + ".class", binaryName(boxed), castType, null, null, parameterized);
+			}
+			String name = null;
+			AnnotationMirror named = annotation(parameter, NAMED);
+			if (named != null) {
+				for (AnnotationValue value: named.getElementValues().values()) {
+					name = (String) value.getValue();
+				}
+			}
+			String erasure = types.erasure(type).toString();
+			if (erasure.equals(PROVIDER) || erasure.equals(LAZY)) {
+				List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+				if (arguments.isEmpty() || arguments.get(0).getKind() != TypeKind.DECLARED) {
+					error(parameter, "Parameter " + parameter + " needs a concrete type argument");
+				} else {
+					TypeMirror argument = arguments.get(0);
+					boolean parameterizedArgument = !((DeclaredType) argument).getTypeArguments().isEmpty();
+					return new Parameter(types.erasure(argument) + ".class", binaryName(argument), type.toString(), 
+							name, erasure.equals(PROVIDER) ? "provider" : "lazy", parameterizedArgument);
+				}
+			}
+			if (erasure.equals(LIST) || erasure.equals(MAP)) {
+				List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+				int element = erasure.equals(MAP) ? 1 : 0;
+				if (arguments.size() <= element || arguments.get(element).getKind() != TypeKind.DECLARED) {
+					error(parameter, "Parameter " + parameter + " needs a concrete type argument");
+				} else if (erasure.equals(MAP) && !types.erasure(arguments.get(0)).toString().equals("java.lang.String")) {
+					error(parameter, "Parameter " + parameter + " needs String keys");
+				} else {
+					TypeMirror argument = arguments.get(element);
+					boolean parameterizedArgument = !((DeclaredType) argument).getTypeArguments().isEmpty();
+					return new Parameter(types.erasure(argument) + ".class", binaryName(argument), type.toString(), 
+							null, erasure.equals(LIST) ? "resolveAll" : "resolveAllNamed", parameterizedArgument);
+				}
+			}
+			return new Parameter(erasure + ".class", binaryName(type), type.toString(), name, "resolve", parameterized);
+		}
+		
+		/*
+		 * The name Class.forName takes for the erasure of the type, or the
+		 * keyword of a primitive type.
+		 */
+		private String binaryName(TypeMirror type) {
+			switch (type.getKind()) {
+			case DECLARED:
+				return elements.getBinaryName((TypeElement) types.asElement(type)).toString();
+			case ARRAY:
+				return descriptor(type).replace('/', '.');
+			default:
+				return types.erasure(type).toString();
+			}
+		}
+		
+		private String descriptor(TypeMirror type) {
+			switch (type.getKind()) {
+			case BOOLEAN: return "Z";
+			case BYTE: return "B";
+			case CHAR: return "C";
+			case SHORT: return "S";
+			case INT: return "I";
+			case LONG: return "J";
+			case FLOAT: return "F";
+			case DOUBLE: return "D";
+			case ARRAY: return "[" + descriptor(((ArrayType) type).getComponentType());
+			default: return "L" + binaryName(type) + ";";
+			}
+		}
+		
+		private boolean check(TypeElement type, ExecutableElement constructor) {
+			if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+				error(type, "Component " + type + " is abstract");
+				return false;
+			}
+			if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+				error(type, "Component " + type + " is an inner class and needs to be static");
+				return false;
+			}
+			if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+				error(type, "Component " + type + " is not a top-level or member class");
+				return false;
+			}
+			for (Element enclosing = type; enclosing.getKind() != ElementKind.PACKAGE; 
+					enclosing = enclosing.getEnclosingElement()) {
+				if (InjectorProcessor.isPrivate(enclosing)) {
+					error(type, "Component " + type + " is private");
+					return false;
+				}
+			}
+			if (InjectorProcessor.isPrivate(constructor)) {
+				error(constructor, "Constructor of " + type + " is private");
+				return false;
+			}
+			int injected = 0;
+			for (Element member: type.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.CONSTRUCTOR && annotation(member, InjectorProcessor.INJECT) != null) {
+					injected++;
+				}
+			}
+			if (injected > 1) {
+				error(constructor, "Component " + type + " has more than one @Inject constructor");
+				return false;
+			}
+			return true;
+		}
+		
+		private AnnotationMirror annotation(Element element, String name) {
+			for (AnnotationMirror mirror: element.getAnnotationMirrors()) {
+				if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+					return mirror;
+				}
+			}
+			return null;
+		}
+		
+		private void error(Element element, String message) {
+			env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+		}
+	}
+}
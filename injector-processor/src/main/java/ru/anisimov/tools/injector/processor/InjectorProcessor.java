@@ -0,0 +1,177 @@
+package ru.anisimov.tools.injector.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@code ContainerAwareFactory} for every class with an
+ * {@code @Inject} constructor and one {@code RegistrationModule} that
+ * registers all of them.
+ * <p>
+ * Factories are named after the class ({@code Outer_Inner_Factory} for nested
+ * classes) and placed in its package. They call the constructor directly,
+ * resolve dependencies with {@code Container.resolve} and cast resolve-time
+ * arguments to the parameter types, so no reflection happens at runtime.
+ * <p>
+ * The module is named by the {@code injector.module} option and defaults to
+ * {@code InjectorModule} in the common package of the components. The same
+ * registrations are written to a binary index,
+ * {@code META-INF/injector/components}, which
+ * {@code Container.Builder.loadIndex} reads without running any generated
+ * code or loading the factories before they are used.
+ */
+@SupportedAnnotationTypes(InjectorProcessor.INJECT)
+@SupportedOptions(InjectorProcessor.MODULE_OPTION)
+public class InjectorProcessor extends AbstractProcessor {
+	static final String INJECT = "ru.anisimov.tools.injector.annotations.Inject";
+	static final String MODULE_OPTION = "injector.module";
+	static final String DEFAULT_MODULE = "InjectorModule";
+	
+	private final List<ComponentModel> components = new ArrayList<>();
+	private boolean moduleWritten;
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement inject = processingEnv.getElementUtils().getTypeElement(INJECT);
+		Set<? extends Element> elements = inject != null ? 
+				roundEnv.getElementsAnnotatedWith(inject) : Collections.<Element>emptySet();
+		ComponentModel.Reader reader = new ComponentModel.Reader(processingEnv);
+		for (Element element: elements) {
+			if (element.getKind() != ElementKind.CONSTRUCTOR) {
+				continue;
+			}
+			ComponentModel component = reader.read((ExecutableElement) element);
+			if (component != null) {
+				components.add(component);
+				writeFactory(component);
+			}
+		}
+		// the module is written in the round after the last factories, so it
+		// is still compiled together with them
+		if (elements.isEmpty() && !components.isEmpty() && !moduleWritten && !roundEnv.processingOver()) {
+			moduleWritten = true;
+			writeModule();
+		}
+		return false;
+	}
+	
+	private void writeFactory(ComponentModel component) {
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					component.getFactoryName(), component.getType());
+			try (Writer writer = file.openWriter()) {
+				writer.write(component.factorySource());
+			}
+		} catch (IOException e) {
+			error(component.getType(), "Cannot write factory: " + e.getMessage());
+		}
+	}
+	
+	private void writeModule() {
+		String moduleName = processingEnv.getOptions().get(MODULE_OPTION);
+		if (moduleName == null) {
+			String packageName = commonPackage();
+			if (packageName.isEmpty()) {
+				error(null, "Components share no package, set the " + MODULE_OPTION + " option");
+				return;
+			}
+			moduleName = packageName + "." + DEFAULT_MODULE;
+		}
+		int dot = moduleName.lastIndexOf('.');
+		String packageName = dot >= 0 ? moduleName.substring(0, dot) : "";
+		String simpleName = moduleName.substring(dot + 1);
+		
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("public final class ").append(simpleName).
+				append(" implements ru.anisimov.tools.injector.RegistrationModule {\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic void configure(ru.anisimov.tools.injector.Container.Builder builder) {\n");
+		List<Element> origins = new ArrayList<>();
+		ComponentIndexWriter index = new ComponentIndexWriter();
+		for (ComponentModel component: components) {
+			if (!component.isAccessibleFrom(packageName)) {
+				error(component.getType(), "Service type of " + component.getType() + 
+						" is not public and cannot be registered from " + moduleName);
+				continue;
+			}
+			source.append("\t\t").append(component.registrationSource()).append("\n");
+			component.indexTo(index);
+			origins.add(component.getType());
+		}
+		source.append("\t}\n");
+		source.append("}\n");
+		
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					moduleName, origins.toArray(new Element[origins.size()]));
+			try (Writer writer = file.openWriter()) {
+				writer.write(source.toString());
+			}
+		} catch (IOException e) {
+			error(null, "Cannot write module: " + e.getMessage());
+		}
+		
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", 
+					ComponentIndexWriter.RESOURCE, origins.toArray(new Element[origins.size()]));
+			try (OutputStream out = file.openOutputStream()) {
+				out.write(index.toByteArray());
+			}
+		} catch (IOException e) {
+			error(null, "Cannot write component index: " + e.getMessage());
+		}
+	}
+	
+	private String commonPackage() {
+		String result = null;
+		for (ComponentModel component: components) {
+			PackageElement element = processingEnv.getElementUtils().getPackageOf(component.getType());
+			String name = element.getQualifiedName().toString();
+			if (result == null) {
+				result = name;
+			}
+			while (!result.isEmpty() && !(name.equals(result) || name.startsWith(result + "."))) {
+				int dot = result.lastIndexOf('.');
+				result = dot >= 0 ? result.substring(0, dot) : "";
+			}
+		}
+		return result != null ? result : "";
+	}
+	
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+	
+	static boolean isPrivate(Element element) {
+		return element.getModifiers().contains(Modifier.PRIVATE);
+	}
+}
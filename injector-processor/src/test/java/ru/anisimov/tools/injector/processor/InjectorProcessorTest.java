@@ -0,0 +1,244 @@
+package ru.anisimov.tools.injector.processor;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.Container;
+import ru.anisimov.tools.injector.RegistrationModule;
+
+@RunWith(JUnit4.class)
+public class InjectorProcessorTest {
+	private static final String REPOSITORY = 
+			"package app;\n" +
+			"import ru.anisimov.tools.injector.ReuseScope;\n" +
+			"import ru.anisimov.tools.injector.annotations.*;\n" +
+			"@Component(scope = ReuseScope.HIERARCHY)\n" +
+			"public class Repository {\n" +
+			"	@Inject public Repository() {}\n" +
+			"}\n";
+	
+	private static final String HANDLER = 
+			"package app.handlers;\n" +
+			"public interface Handler {\n" +
+			"	String describe();\n" +
+			"	Object getRepository();\n" +
+			"	Object getLazyRepository() throws Exception;\n" +
+			"}\n";
+	
+	private static final String DEFAULT_HANDLER = 
+			"package app.handlers;\n" +
+			"import app.Repository;\n" +
+			"import ru.anisimov.tools.injector.annotations.*;\n" +
+			"@Component(service = Handler.class, name = \"default\")\n" +
+			"public class DefaultHandler implements Handler {\n" +
+			"	private final Repository repository;\n" +
+			"	private final ru.anisimov.tools.injector.Lazy<Repository> lazyRepository;\n" +
+			"	private final String id;\n" +
+			"	private final int count;\n" +
+			"	public DefaultHandler() { this(null, null, null, 0); }\n" +
+			"	@Inject DefaultHandler(Repository repository, ru.anisimov.tools.injector.Lazy<Repository> lazyRepository, \n" +
+			"			@Argument String id, @Argument int count) {\n" +
+			"		this.repository = repository;\n" +
+			"		this.lazyRepository = lazyRepository;\n" +
+			"		this.id = id;\n" +
+			"		this.count = count;\n" +
+			"	}\n" +
+			"	public String describe() { return id + \":\" + count; }\n" +
+			"	public Object getRepository() { return repository; }\n" +
+			"	public Object getLazyRepository() throws Exception { return lazyRepository.get(); }\n" +
+			"}\n";
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void generatedModuleRegistersFactories() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = compile(null, 
+				source("app/Repository.java", REPOSITORY),
+				source("app/handlers/Handler.java", HANDLER),
+				source("app/handlers/DefaultHandler.java", DEFAULT_HANDLER));
+		assertTrue(diagnostics.getDiagnostics().toString(), errors(diagnostics).isEmpty());
+		
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { output().toURI().toURL() }, 
+				Container.class.getClassLoader())) {
+			assertNotNull(loader.loadClass("app.Repository_Factory"));
+			assertNotNull(loader.loadClass("app.handlers.DefaultHandler_Factory"));
+			
+			RegistrationModule module = (RegistrationModule) loader.loadClass("app.InjectorModule").newInstance();
+			Container container = Container.Builder.newInstance().install(module).build();
+			
+			Class<?> handlerType = loader.loadClass("app.handlers.Handler");
+			Object handler = container.resolve("default", handlerType, "first", 2);
+			Method describe = handlerType.getMethod("describe");
+			Method repository = handlerType.getMethod("getRepository");
+			
+			assertEquals("first:2", describe.invoke(handler));
+			assertSame(container.resolve(loader.loadClass("app.Repository")), repository.invoke(handler));
+			assertSame(repository.invoke(handler), handlerType.getMethod("getLazyRepository").invoke(handler));
+		}
+	}
+	
+	@Test
+	public void indexRegistersFactoriesWithoutLoadingThem() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = compile(null, 
+				source("app/Repository.java", REPOSITORY),
+				source("app/handlers/Handler.java", HANDLER),
+				source("app/handlers/DefaultHandler.java", DEFAULT_HANDLER));
+		assertTrue(diagnostics.getDiagnostics().toString(), errors(diagnostics).isEmpty());
+		assertTrue(new File(output(), "META-INF/injector/components").isFile());
+		
+		final List<String> loaded = new ArrayList<>();
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { output().toURI().toURL() }, 
+				Container.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				loaded.add(name);
+				return super.findClass(name);
+			}
+		}) {
+			Container container = Container.Builder.newInstance().loadIndex(loader).build();
+			assertFalse(loaded.toString(), loaded.contains("app.Repository_Factory"));
+			assertFalse(loaded.toString(), loaded.contains("app.handlers.DefaultHandler_Factory"));
+			assertFalse(loaded.toString(), loaded.contains("app.InjectorModule"));
+			
+			Class<?> handlerType = loader.loadClass("app.handlers.Handler");
+			Object handler = container.resolve("default", handlerType, "first", 2);
+			
+			assertEquals("first:2", handlerType.getMethod("describe").invoke(handler));
+			assertSame(container.resolve(loader.loadClass("app.Repository")), 
+					handlerType.getMethod("getRepository").invoke(handler));
+			assertTrue(loaded.contains("app.Repository_Factory"));
+			assertTrue(loaded.contains("app.handlers.DefaultHandler_Factory"));
+		}
+	}
+	
+	@Test
+	public void multiBindingsAreInjected() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = compile(null, 
+				source("app/Codec.java", "package app;\npublic interface Codec {}\n"),
+				source("app/Json.java", codec("Json", "json")),
+				source("app/Xml.java", codec("Xml", "xml")),
+				source("app/Codecs.java", 
+						"package app;\n" +
+						"import java.util.*;\n" +
+						"import ru.anisimov.tools.injector.annotations.*;\n" +
+						"@Component\n" +
+						"public class Codecs {\n" +
+						"	public final List<Codec> list;\n" +
+						"	public final Map<String, Codec> map;\n" +
+						"	@Inject public Codecs(List<Codec> list, Map<String, Codec> map) {\n" +
+						"		this.list = list;\n" +
+						"		this.map = map;\n" +
+						"	}\n" +
+						"}\n"));
+		assertTrue(diagnostics.getDiagnostics().toString(), errors(diagnostics).isEmpty());
+		
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { output().toURI().toURL() }, 
+				Container.class.getClassLoader())) {
+			RegistrationModule module = (RegistrationModule) loader.loadClass("app.InjectorModule").newInstance();
+			Container container = Container.Builder.newInstance().install(module).build();
+			
+			Class<?> codecs = loader.loadClass("app.Codecs");
+			Object instance = container.resolve(codecs);
+			
+			assertEquals(2, ((List<?>) codecs.getField("list").get(instance)).size());
+			assertEquals(Arrays.asList("json", "xml"), 
+					new ArrayList<>(((Map<?, ?>) codecs.getField("map").get(instance)).keySet()));
+		}
+	}
+	
+	private static String codec(String type, String name) {
+		return "package app;\n" +
+				"import ru.anisimov.tools.injector.annotations.*;\n" +
+				"@Component(service = Codec.class, name = \"" + name + "\")\n" +
+				"public class " + type + " implements Codec {\n" +
+				"	@Inject public " + type + "() {}\n" +
+				"}\n";
+	}
+	
+	@Test
+	public void moduleNameCanBeConfigured() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = compile(
+				"-A" + InjectorProcessor.MODULE_OPTION + "=custom.Wiring", 
+				source("app/Repository.java", REPOSITORY));
+		assertTrue(diagnostics.getDiagnostics().toString(), errors(diagnostics).isEmpty());
+		assertTrue(new File(output(), "custom/Wiring.class").isFile());
+	}
+	
+	@Test
+	public void privateConstructorIsReported() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = compile(null, source("app/Broken.java", 
+				"package app;\n" +
+				"public class Broken {\n" +
+				"	@ru.anisimov.tools.injector.annotations.Inject private Broken() {}\n" +
+				"}\n"));
+		
+		List<Diagnostic<? extends JavaFileObject>> errors = errors(diagnostics);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).getMessage(null).contains("private"));
+	}
+	
+	private DiagnosticCollector<JavaFileObject> compile(String option, File... sources) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+			String classPath = new File(Container.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+			List<String> options = new ArrayList<>(Arrays.asList("-d", output().getPath(), "-classpath", classPath));
+			if (option != null) {
+				options.add(option);
+			}
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null, 
+					files.getJavaFileObjects(sources));
+			task.setProcessors(Arrays.asList(new InjectorProcessor()));
+			task.call();
+		}
+		return diagnostics;
+	}
+	
+	private File source(String path, String content) throws IOException {
+		File file = new File(folder.getRoot(), "src/" + path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+	
+	private File output() {
+		File output = new File(folder.getRoot(), "classes");
+		output.mkdirs();
+		return output;
+	}
+	
+	private static List<Diagnostic<? extends JavaFileObject>> errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+		List<Diagnostic<? extends JavaFileObject>> result = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				result.add(diagnostic);
+			}
+		}
+		return result;
+	}
+}
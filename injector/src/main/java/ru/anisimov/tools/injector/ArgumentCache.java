@@ -0,0 +1,268 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Instances of an ARGUMENTS-scoped entry keyed by the argument values.
+ * <p>
+ * Hits are a map read and do not lock. Nodes are also queued in insertion
+ * order; when the map grows over the limit, one thread sweeps the queue and
+ * gives recently hit nodes a second chance, which approximates LRU without
+ * reordering on reads. Each node creates its instance under its own lock,
+ * so factories of different keys run concurrently.
+ * <p>
+ * Expired nodes, and nodes whose factory failed, leave the map at once but
+ * stay queued until a sweep passes them; once as many have died as the cache
+ * holds, one thread unlinks them all, so the queue stays within twice the
+ * limit without scanning it on the resolve path.
+ * <p>
+ * Evicted and expired instances are dropped, not disposed, since callers may
+ * still use them.
+ */
+final class ArgumentCache {
+	static final int DEFAULT_MAXIMUM_SIZE = 1024;
+	private static final Object RETRY = new Object();
+	
+	private final int maximumSize;
+	private final long timeToLive;
+	private final ConcurrentMap<Object, Node> nodes = new ConcurrentHashMap<>();
+	private final Queue<Node> order = new ConcurrentLinkedQueue<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final AtomicInteger dead = new AtomicInteger();
+	
+	/*
+	 * A time to live of zero keeps instances until they are evicted.
+	 */
+	ArgumentCache(int maximumSize, long timeToLiveNanos) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLiveNanos;
+	}
+	
+	Object getOrCreate(ServiceEntry entry, Container container, Object[] args, 
+			ResolutionObserver observer) throws ResolutionException {
+		Object key = keyOf(args);
+		for (;;) {
+			Node node = nodes.get(key);
+			if (node == null) {
+				Node created = new Node(key);
+				node = nodes.putIfAbsent(key, created);
+				if (node == null) {
+					node = created;
+					order.add(node);
+					if (nodes.size() > maximumSize) {
+						evict();
+					}
+				}
+			}
+			Object result = node.value;
+			if (result != null && timeToLive != 0 && System.nanoTime() - node.created > timeToLive) {
+				if (nodes.remove(key, node)) {
+					expirations.increment();
+					died();
+				}
+				continue;
+			}
+			if (result != null) {
+				if (!node.referenced) {
+					node.referenced = true;
+				}
+				hit(observer);
+				return result;
+			}
+			result = node.create(entry, container, args, observer);
+			if (result != RETRY) {
+				return result;
+			}
+		}
+	}
+	
+	/*
+	 * A new, empty cache with the same limits.
+	 */
+	ArgumentCache emptyCopy() {
+		return new ArgumentCache(maximumSize, timeToLive);
+	}
+	
+	int size() {
+		return nodes.size();
+	}
+	
+	CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), 
+				expirations.sum(), nodes.size());
+	}
+	
+	/*
+	 * Empties the cache and returns the instances it held.
+	 */
+	List<Object> clear() {
+		List<Object> result = new ArrayList<>();
+		for (Node node: nodes.values()) {
+			Object value = node.value;
+			if (value != null) {
+				result.add(value);
+			}
+		}
+		nodes.clear();
+		order.clear();
+		dead.set(0);
+		return result;
+	}
+	
+	private void hit(ResolutionObserver observer) {
+		hits.increment();
+		if (observer != null) {
+			observer.cacheHit();
+		}
+	}
+	
+	/*
+	 * Second chance sweep: a node hit since the last sweep is requeued once,
+	 * so the loop ends after at most two passes over the queue. New nodes
+	 * start referenced, so the one being inserted is not evicted first.
+	 */
+	private void evict() {
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			while (nodes.size() > maximumSize) {
+				Node node = order.poll();
+				if (node == null) {
+					return;
+				}
+				if (nodes.get(node.key) != node) {
+					continue;
+				}
+				if (node.referenced) {
+					node.referenced = false;
+					order.add(node);
+				} else if (nodes.remove(node.key, node)) {
+					evictions.increment();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+	
+	private void died() {
+		if (dead.incrementAndGet() > maximumSize) {
+			purge();
+		}
+	}
+	
+	/*
+	 * Unlinks the queued nodes that are no longer in the map; the count is
+	 * reset first, so nodes dying meanwhile are counted again at worst.
+	 */
+	private void purge() {
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			dead.set(0);
+			order.removeIf(node -> nodes.get(node.key) != node);
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+	
+	private static Object keyOf(Object[] args) {
+		if (args.length == 1 && args[0] != null && !args[0].getClass().isArray()) {
+			return args[0];
+		}
+		return new ArgumentsKey(args.clone());
+	}
+	
+	private final class Node {
+		private final Object key;
+		private volatile Object value;
+		private volatile boolean referenced = true;
+		private long created;
+		private Thread constructingThread;
+		private boolean removed;
+		
+		Node(Object key) {
+			this.key = key;
+		}
+		
+		synchronized Object create(ServiceEntry entry, Container container, Object[] args, 
+				ResolutionObserver observer) throws ResolutionException {
+			Object result = value;
+			if (result != null) {
+				hit(observer);
+				return result;
+			}
+			if (removed) {
+				return RETRY;
+			}
+			if (constructingThread == Thread.currentThread()) {
+				throw new ResolutionException("Circular dependency");
+			}
+			if (container.isClosed()) {
+				throw new ResolutionException("Container is closed");
+			}
+			constructingThread = Thread.currentThread();
+			try {
+				long start = System.nanoTime();
+				result = entry.getFactory().newInstance(container, args);
+				created = System.nanoTime();
+				entry.created(container);
+				if (observer != null) {
+					observer.factoryInvoked(created - start);
+				}
+				misses.increment();
+				value = result;
+			} catch (ResolutionException | RuntimeException | Error e) {
+				removed = true;
+				if (nodes.remove(key, this)) {
+					died();
+				}
+				throw e;
+			} finally {
+				constructingThread = null;
+			}
+			return result;
+		}
+	}
+	
+	private static final class ArgumentsKey {
+		private final Object[] args;
+		private final int hash;
+		
+		ArgumentsKey(Object[] args) {
+			this.args = args;
+			this.hash = Arrays.deepHashCode(args);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ArgumentsKey && Arrays.deepEquals(args, ((ArgumentsKey) obj).args);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package ru.anisimov.tools.injector;
+
+import java.lang.invoke.MethodType;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Matches resolve arguments that are not an exact fit for any registration:
+ * subclasses of the registered argument types, boxed values for primitive
+ * types and nulls for reference types. When several registrations accept the
+ * arguments the one with the most specific argument types wins.
+ * <p>
+ * Results, including misses, are memoized per service type, name and tuple of
+ * argument classes in a copy-on-write open-addressing table, so a repeated
+ * call shape costs one probe without allocation, like an exact lookup.
+ */
+final class ArgumentMatcher {
+	private static final int MAX_SHAPES = 4096;
+	
+	private final Registry registry;
+	private volatile Shape[] shapes = new Shape[16];
+	private int count;
+	
+	ArgumentMatcher(Registry registry) {
+		this.registry = registry;
+	}
+	
+	/*
+	 * The hash is the one the registry probed its table with, so a memoized
+	 * miss costs no second pass over the arguments.
+	 */
+	ServiceEntry match(Class<?> type, String name, Object[] args, int hash) throws ResolutionException {
+		Shape[] table = shapes;
+		int mask = table.length - 1;
+		for (int i = hash & mask; ; i = (i + 1) & mask) {
+			Shape shape = table[i];
+			if (shape == null) {
+				break;
+			}
+			if (shape.hash == hash && shape.type == type && shape.matches(args) && 
+					Registry.sameName(shape.name, name)) {
+				return shape.result();
+			}
+		}
+		Class<?>[] classes = new Class<?>[args.length];
+		for (int i = 0; i < args.length; i++) {
+			classes[i] = args[i] != null ? args[i].getClass() : null;
+		}
+		Shape shape = select(type, name, classes, hash);
+		remember(shape);
+		return shape.result();
+	}
+	
+	/*
+	 * Not memoized, for callers that look a service up once by argument types.
+	 */
+	ServiceEntry match(Class<?> type, String name, Class<?>[] argTypes) throws ResolutionException {
+		return select(type, name, argTypes, 0).result();
+	}
+	
+	private Shape select(Class<?> type, String name, Class<?>[] classes, int hash) {
+		ServiceEntry[] group = registry.group(type);
+		ServiceEntry best = null;
+		for (ServiceEntry candidate: group) {
+			if (accepts(candidate, name, classes) && (best == null || moreSpecific(candidate, best))) {
+				best = candidate;
+			}
+		}
+		if (best != null) {
+			for (ServiceEntry candidate: group) {
+				if (candidate != best && accepts(candidate, name, classes) && !moreSpecific(best, candidate)) {
+					return new Shape(type, name, classes, hash, null, "Arguments match both " + 
+							best.getKey() + " and " + candidate.getKey());
+				}
+			}
+		}
+		return new Shape(type, name, classes, hash, best, null);
+	}
+	
+	private synchronized void remember(Shape shape) {
+		if (count >= MAX_SHAPES) {
+			return;
+		}
+		Shape[] table = shapes;
+		if ((count + 1) * 2 > table.length) {
+			Shape[] resized = new Shape[table.length * 2];
+			for (Shape existing: table) {
+				if (existing != null) {
+					insert(resized, existing);
+				}
+			}
+			table = resized;
+		} else {
+			table = table.clone();
+		}
+		insert(table, shape);
+		count++;
+		shapes = table;
+	}
+	
+	private static void insert(Shape[] table, Shape shape) {
+		int mask = table.length - 1;
+		int i = shape.hash & mask;
+		while (table[i] != null) {
+			i = (i + 1) & mask;
+		}
+		table[i] = shape;
+	}
+	
+	/*
+	 * Whether the entry takes the arguments by the rules of a match, whatever
+	 * its name; exact fits are accepted too.
+	 */
+	static boolean accepts(ServiceEntry entry, Object[] args) {
+		Class<?>[] types = entry.getSignature().getTypes();
+		if (types.length != args.length) {
+			return false;
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (!accepts(types[i], args[i] != null ? args[i].getClass() : null)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean accepts(ServiceEntry entry, String name, Class<?>[] classes) {
+		Class<?>[] types = entry.getSignature().getTypes();
+		if (types.length != classes.length || !Registry.sameName(entry.getKey().getName(), name)) {
+			return false;
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (!accepts(types[i], classes[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean accepts(Class<?> type, Class<?> argClass) {
+		return argClass == null ? !type.isPrimitive() : wrap(type).isAssignableFrom(argClass);
+	}
+	
+	private static boolean moreSpecific(ServiceEntry entry, ServiceEntry other) {
+		Class<?>[] types = entry.getSignature().getTypes();
+		Class<?>[] otherTypes = other.getSignature().getTypes();
+		for (int i = 0; i < types.length; i++) {
+			if (!wrap(otherTypes[i]).isAssignableFrom(wrap(types[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static Class<?> wrap(Class<?> type) {
+		return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+	}
+	
+	private static class Shape {
+		private final Class<?> type;
+		private final String name;
+		private final Class<?>[] classes;
+		private final int hash;
+		private final ServiceEntry entry;
+		private final String ambiguity;
+		
+		Shape(Class<?> type, String name, Class<?>[] classes, int hash, 
+				ServiceEntry entry, String ambiguity) {
+			this.type = type;
+			this.name = name;
+			this.classes = classes;
+			this.hash = hash;
+			this.entry = entry;
+			this.ambiguity = ambiguity;
+		}
+		
+		boolean matches(Object[] args) {
+			if (args.length != classes.length) {
+				return false;
+			}
+			for (int i = 0; i < args.length; i++) {
+				Object arg = args[i];
+				if ((arg != null ? arg.getClass() : null) != classes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		ServiceEntry result() throws ResolutionException {
+			if (ambiguity != null) {
+				throw new ResolutionException(ambiguity);
+			}
+			return entry;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Adapts a fixed-arity factory, such as {@link Factory2} or
+ * {@link IntFactory}, to the container. Resolution with an argument array
+ * goes through {@link #newInstance(Container, Object...)}, which unpacks the
+ * array; {@link Container#resolveTyped(Class)} and the other fixed-arity
+ * resolve methods call the {@code create} method of the arity they were
+ * given instead, so the arguments are neither copied nor boxed.
+ * <p>
+ * A registry lookup matches the number of arguments, so an adapter is only
+ * called with the arity of its factory, or with a primitive value for a
+ * {@link Factory1} registered with a primitive argument type.
+ */
+abstract class ArityFactory<T> implements ContainerAwareFactory<T> {
+	T create() {
+		throw new IllegalStateException("Wrong number of arguments");
+	}
+	
+	T create(Object a) {
+		throw new IllegalStateException("Wrong number of arguments");
+	}
+	
+	T create(Object a, Object b) {
+		throw new IllegalStateException("Wrong number of arguments");
+	}
+	
+	T create(Object a, Object b, Object c) {
+		throw new IllegalStateException("Wrong number of arguments");
+	}
+	
+	T create(Object a, Object b, Object c, Object d) {
+		throw new IllegalStateException("Wrong number of arguments");
+	}
+	
+	T createInt(int value) {
+		return create(value);
+	}
+	
+	T createLong(long value) {
+		return create(value);
+	}
+	
+	T createBoolean(boolean value) {
+		return create(value);
+	}
+	
+	static <T> ArityFactory<T> of(final Factory0<T> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T create() {
+				return factory.newInstance();
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance();
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T, A> ArityFactory<T> of(final Factory1<T, A> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T create(Object a) {
+				return factory.newInstance((A) a);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((A) args[0]);
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T, A, B> ArityFactory<T> of(final Factory2<T, A, B> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T create(Object a, Object b) {
+				return factory.newInstance((A) a, (B) b);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((A) args[0], (B) args[1]);
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T, A, B, C> ArityFactory<T> of(final Factory3<T, A, B, C> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T create(Object a, Object b, Object c) {
+				return factory.newInstance((A) a, (B) b, (C) c);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((A) args[0], (B) args[1], (C) args[2]);
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T, A, B, C, D> ArityFactory<T> of(final Factory4<T, A, B, C, D> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T create(Object a, Object b, Object c, Object d) {
+				return factory.newInstance((A) a, (B) b, (C) c, (D) d);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((A) args[0], (B) args[1], (C) args[2], (D) args[3]);
+			}
+		};
+	}
+	
+	static <T> ArityFactory<T> ofInt(final IntFactory<T> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T createInt(int value) {
+				return factory.newInstance(value);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((Integer) args[0]);
+			}
+		};
+	}
+	
+	static <T> ArityFactory<T> ofLong(final LongFactory<T> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T createLong(long value) {
+				return factory.newInstance(value);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((Long) args[0]);
+			}
+		};
+	}
+	
+	static <T> ArityFactory<T> ofBoolean(final BooleanFactory<T> factory) {
+		return new ArityFactory<T>() {
+			@Override
+			T createBoolean(boolean value) {
+				return factory.newInstance(value);
+			}
+			
+			@Override
+			public T newInstance(Container container, Object... args) {
+				return factory.newInstance((Boolean) args[0]);
+			}
+		};
+	}
+}
@@ -0,0 +1,13 @@
+package ru.anisimov.tools.injector;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Factory that builds its instance asynchronously, e.g. with non-blocking
+ * I/O or on the given executor, which is the one the container was built
+ * with. Synchronous resolution waits for the future.
+ */
+public interface AsyncFactory<T> {
+	CompletableFuture<T> newInstanceAsync(Container container, Executor executor, Object... args);
+}
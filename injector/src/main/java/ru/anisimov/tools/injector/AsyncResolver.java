@@ -0,0 +1,143 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Asynchronous resolution of an entry.
+ * <p>
+ * Before a factory runs, the declared dependencies it will resolve are
+ * built in parallel: CONTAINER and HIERARCHY-scoped ones are resolved
+ * asynchronously themselves, NONE-scoped ones only have their own
+ * dependencies prepared, since the factory creates them anew anyway.
+ * The factory then runs on the executor and finds the reused dependencies
+ * already built. Requesters of a CONTAINER or HIERARCHY instance that is
+ * being built share one future, which is dropped once the instance is
+ * stored in its entry.
+ * <p>
+ * THREAD and EXECUTION-scoped entries are bound to the calling thread, so
+ * they are resolved synchronously.
+ */
+final class AsyncResolver {
+	private static final Object[] NO_ARGS = new Object[0];
+	
+	private AsyncResolver() {}
+	
+	static CompletableFuture<Object> resolve(Container container, ServiceEntry entry, Object[] args) {
+		if (container.isClosed()) {
+			return failed(new ResolutionException("Container is closed"));
+		}
+		switch (entry.getScope()) {
+		case HIERARCHY:
+			return shared(container.getRoot(), entry, args);
+		case CONTAINER:
+			return shared(entry.getContainer(), entry, args);
+		case NONE:
+		case ARGUMENTS:
+			return prepare(container, entry).thenCompose(ignored -> create(container, entry, args));
+		default:
+			try {
+				return CompletableFuture.completedFuture(container.resolveEntry(entry, args));
+			} catch (ResolutionException | RuntimeException e) {
+				return failed(e);
+			}
+		}
+	}
+	
+	private static CompletableFuture<Object> shared(Container owner, ServiceEntry entry, Object[] args) {
+		Object instance = entry.getInstance();
+		if (instance != null) {
+			return CompletableFuture.completedFuture(instance);
+		}
+		CompletableFuture<Object> pending = entry.getPending();
+		if (pending != null) {
+			return pending;
+		}
+		CompletableFuture<Object> created = new CompletableFuture<>();
+		if (!entry.startPending(created)) {
+			return shared(owner, entry, args);
+		}
+		prepare(owner, entry).thenCompose(ignored -> create(owner, entry, args)).whenComplete((result, failure) -> {
+			entry.clearPending(created);
+			if (failure != null) {
+				created.completeExceptionally(failure);
+			} else {
+				created.complete(result);
+			}
+		});
+		return created;
+	}
+	
+	private static CompletableFuture<Void> prepare(Container container, ServiceEntry entry) {
+		Registry registry = container.getRegistry();
+		int[] dependencies = registry.graph().dependenciesOf(entry.getIndex());
+		if (dependencies.length == 0) {
+			return CompletableFuture.completedFuture(null);
+		}
+		List<CompletableFuture<?>> futures = new ArrayList<>(dependencies.length);
+		try {
+			for (int dependency: dependencies) {
+				ServiceEntry bound = container.bindEntry(registry.entries()[dependency]);
+				switch (bound.getScope()) {
+				case HIERARCHY:
+				case CONTAINER:
+					futures.add(resolve(container, bound, NO_ARGS));
+					break;
+				case NONE:
+					futures.add(prepare(container, bound));
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (ResolutionException e) {
+			return failed(e);
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+	
+	/*
+	 * Runs the factory once the dependencies are ready. Asynchronous factories
+	 * of NONE, CONTAINER and HIERARCHY entries are called directly, the rest
+	 * is resolved synchronously on the executor.
+	 */
+	private static CompletableFuture<Object> create(Container container, ServiceEntry entry, Object[] args) {
+		Executor executor = container.getRegistry().executor();
+		AsyncFactory<?> factory = Registration.asyncFactoryOf(entry.getFactory());
+		if (factory != null && entry.getScope() != ReuseScope.ARGUMENTS) {
+			return supply(executor, () -> factory.newInstanceAsync(container, executor, args)).
+					thenCompose(future -> future).
+					thenApply(instance -> entry.getScope() == ReuseScope.NONE ? 
+							instance : entry.publish(container, instance));
+		}
+		return supply(executor, () -> container.resolveEntry(entry, args));
+	}
+	
+	static <T> CompletableFuture<T> supply(Executor executor, Callable<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(task.call());
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+	
+	private static <T> CompletableFuture<T> failed(Throwable failure) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		result.completeExceptionally(failure);
+		return result;
+	}
+}
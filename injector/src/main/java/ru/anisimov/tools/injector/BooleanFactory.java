@@ -0,0 +1,9 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with a single boolean argument, which
+ * {@link Container#resolveBoolean(Class, boolean)} passes without boxing.
+ */
+public interface BooleanFactory<T> {
+	T newInstance(boolean value);
+}
@@ -0,0 +1,56 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Counters of the instance cache of an ARGUMENTS-scoped registration, see
+ * {@link Container#cacheStats(String, Class, Class...)}.
+ */
+public final class CacheStats {
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long expirations;
+	private final int size;
+	
+	CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.size = size;
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Resolutions that created an instance.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Instances dropped to stay within the size limit.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+	
+	/**
+	 * Instances dropped because they outlived the time to live.
+	 */
+	public long getExpirations() {
+		return expirations;
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	@Override
+	public String toString() {
+		return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + 
+				", expirations=" + expirations + ", size=" + size;
+	}
+}
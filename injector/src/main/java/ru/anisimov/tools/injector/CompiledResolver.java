@@ -0,0 +1,51 @@
+package ru.anisimov.tools.injector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Resolution specialized for the entries of one registry, generated by
+ * {@link Container.Builder#compile()}.
+ * <p>
+ * Generating it needs hidden classes, so the generator lives in the Java 17
+ * layer of the multi-release jar and is looked up reflectively. On older
+ * runtimes there is no generator and registries resolve uncompiled.
+ */
+abstract class CompiledResolver {
+	static final int MAXIMUM_ENTRIES = 8192;
+	
+	private static final MethodHandle COMPILER = compiler();
+	
+	abstract Object resolve(Container container, ServiceEntry entry, Object[] args) throws ResolutionException;
+	
+	/*
+	 * Returns null for an empty registry, which has nothing to specialize,
+	 * and when the runtime cannot generate resolvers.
+	 */
+	static CompiledResolver compile(ServiceEntry[] entries) {
+		if (COMPILER == null) {
+			return null;
+		}
+		try {
+			return (CompiledResolver) COMPILER.invokeExact(entries);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Failed to compile the resolver", e);
+		}
+	}
+	
+	private static MethodHandle compiler() {
+		try {
+			Class<?> compiler = Class.forName(CompiledResolver.class.getPackage().getName() + ".ResolverCompiler");
+			return MethodHandles.lookup().findStatic(compiler, "compile",
+					MethodType.methodType(CompiledResolver.class, ServiceEntry[].class));
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package ru.anisimov.tools.injector;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Registrations read from the binary index that the annotation processor
+ * writes next to its module, see {@link Container.Builder#loadIndex(ClassLoader)}.
+ * <p>
+ * The index is a table of strings followed by the components, which refer to
+ * class names, names and scopes by their position in the table. Positions
+ * and counts within components are unsigned integers of 7 bits per byte:
+ * <pre>
+ * index:      int magic, byte version, int string count, modified UTF-8
+ *             strings, int component count, components
+ * component:  service type, factory class, name + 1 or 0, scope name,
+ *             argument count, argument types,
+ *             dependency count, dependencies as type and name + 1 or 0
+ * </pre>
+ * Reading is a single pass. The service, argument and dependency types make
+ * up the keys, so they are loaded, but not initialized; every string is
+ * turned into a class at most once. Factories are only bound by class name
+ * and loaded on their first use.
+ */
+final class ComponentIndex {
+	static final String RESOURCE = "META-INF/injector/components";
+	private static final int MAGIC = 0x494E4A58;
+	private static final int VERSION = 1;
+	private static final ServiceKey[] NO_KEYS = new ServiceKey[0];
+	
+	private final ServiceKey[] keys;
+	private final ContainerAwareFactory<?>[] factories;
+	private final ReuseScope[] scopes;
+	private final ServiceKey[][] dependencies;
+	
+	private ComponentIndex(int size) {
+		this.keys = new ServiceKey[size];
+		this.factories = new ContainerAwareFactory<?>[size];
+		this.scopes = new ReuseScope[size];
+		this.dependencies = new ServiceKey[size][];
+	}
+	
+	/*
+	 * Reads every index the class loader finds, one per jar or directory.
+	 */
+	static List<ComponentIndex> load(ClassLoader loader) {
+		List<ComponentIndex> result = new ArrayList<>();
+		List<String> problems = new ArrayList<>();
+		try {
+			Enumeration<URL> resources = loader.getResources(RESOURCE);
+			while (resources.hasMoreElements()) {
+				URL resource = resources.nextElement();
+				try (InputStream in = resource.openStream()) {
+					result.add(read(in, loader, resource, problems));
+				} catch (IOException e) {
+					problems.add("Cannot read " + resource + ": " + e);
+				}
+			}
+		} catch (IOException e) {
+			problems.add("Cannot find " + RESOURCE + ": " + e);
+		}
+		if (!problems.isEmpty()) {
+			throw new RegistrationException(problems);
+		}
+		return result;
+	}
+	
+	private static ComponentIndex read(InputStream stream, ClassLoader loader, URL resource,
+			List<String> problems) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+			throw new IOException("Not a component index of version " + VERSION);
+		}
+		String[] strings = new String[in.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = in.readUTF();
+		}
+		Class<?>[] classes = new Class<?>[strings.length];
+		ComponentIndex index = new ComponentIndex(in.readInt());
+		for (int i = 0; i < index.keys.length; i++) {
+			Class<?> serviceType = type(strings, classes, varint(in), loader, resource, problems);
+			String factory = strings[varint(in)];
+			String name = string(strings, varint(in));
+			String scope = strings[varint(in)];
+			Class<?>[] argTypes = new Class<?>[varint(in)];
+			for (int j = 0; j < argTypes.length; j++) {
+				argTypes[j] = type(strings, classes, varint(in), loader, resource, problems);
+			}
+			ServiceKey[] dependencies = NO_KEYS;
+			int dependencyCount = varint(in);
+			if (dependencyCount > 0) {
+				dependencies = new ServiceKey[dependencyCount];
+				for (int j = 0; j < dependencies.length; j++) {
+					dependencies[j] = new ServiceKey(type(strings, classes, varint(in), loader, resource, problems));
+					dependencies[j].setName(string(strings, varint(in)));
+				}
+			}
+			index.keys[i] = new ServiceKey(serviceType, argTypes);
+			index.keys[i].setName(name);
+			index.factories[i] = new IndexedFactory(factory, loader);
+			index.scopes[i] = ReuseScope.valueOf(scope);
+			index.dependencies[i] = dependencies;
+		}
+		return index;
+	}
+	
+	int size() {
+		return keys.length;
+	}
+	
+	/*
+	 * Adds new entries of the indexed components, each with the state of a
+	 * registration of its scope with default bounds.
+	 */
+	void addEntries(List<ServiceEntry> entries) {
+		for (int i = 0; i < keys.length; i++) {
+			ReuseScope scope = scopes[i];
+			entries.add(ServiceEntry.Builder.newInstance(factories[i]).
+					reuseScope(scope).
+					key(keys[i]).
+					cache(scope == ReuseScope.ARGUMENTS ?
+							new ArgumentCache(ArgumentCache.DEFAULT_MAXIMUM_SIZE, 0) : null).
+					threadInstances(scope == ReuseScope.THREAD ? new ThreadLocal<Object>() : null).
+					pool(scope == ReuseScope.POOLED, 0, InstancePool.DEFAULT_MAXIMUM_SIZE, 0, null).
+					dependencies(Arrays.asList(dependencies[i])).build());
+		}
+	}
+	
+	private static Class<?> type(String[] strings, Class<?>[] classes, int index, ClassLoader loader,
+			URL resource, List<String> problems) {
+		if (classes[index] == null) {
+			try {
+				classes[index] = classForName(strings[index], loader);
+			} catch (ClassNotFoundException e) {
+				problems.add("Missing class " + strings[index] + ", listed in " + resource);
+				classes[index] = Object.class;
+			}
+		}
+		return classes[index];
+	}
+	
+	private static Class<?> classForName(String name, ClassLoader loader) throws ClassNotFoundException {
+		switch (name) {
+		case "boolean": return boolean.class;
+		case "byte": return byte.class;
+		case "char": return char.class;
+		case "short": return short.class;
+		case "int": return int.class;
+		case "long": return long.class;
+		case "float": return float.class;
+		case "double": return double.class;
+		default: return Class.forName(name, false, loader);
+		}
+	}
+	
+	private static String string(String[] strings, int indexPlusOne) {
+		return indexPlusOne == 0 ? null : strings[indexPlusOne - 1];
+	}
+	
+	private static int varint(DataInputStream in) throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed component index");
+	}
+	
+	/**
+	 * Factory of an indexed component, loaded by class name when it is first
+	 * called. Generated factories are public and have a public constructor.
+	 */
+	private static final class IndexedFactory implements ContainerAwareFactory<Object> {
+		private final String className;
+		private final ClassLoader loader;
+		private volatile ContainerAwareFactory<?> factory;
+		
+		IndexedFactory(String className, ClassLoader loader) {
+			this.className = className;
+			this.loader = loader;
+		}
+		
+		@Override
+		public Object newInstance(Container container, Object... args) throws ResolutionException {
+			ContainerAwareFactory<?> result = factory;
+			return (result != null ? result : load()).newInstance(container, args);
+		}
+		
+		private synchronized ContainerAwareFactory<?> load() throws ResolutionException {
+			if (factory == null) {
+				try {
+					factory = (ContainerAwareFactory<?>) Class.forName(className, true, loader).
+							getConstructor().newInstance();
+				} catch (ReflectiveOperationException | ClassCastException e) {
+					throw new ResolutionException("Cannot load factory " + className, e);
+				}
+			}
+			return factory;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package ru.anisimov.tools.injector;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.annotations.Argument;
+import ru.anisimov.tools.injector.annotations.Inject;
+import ru.anisimov.tools.injector.annotations.Named;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Factory behind {@link Container.Builder#registerType(Class, Class)}.
+ * <p>
+ * The constructor is unreflected once into a spreading {@link MethodHandle},
+ * so an instance costs one exact handle invocation instead of
+ * {@link Constructor#newInstance}. Dependencies are looked up in the registry
+ * on first use and the entries are kept until the factory is invoked for a
+ * container with a different registry.
+ * <p>
+ * Parameters of type {@link Provider} or {@link Lazy} get a provider or lazy
+ * reference for their type argument. They are not declared as dependencies,
+ * so they may close a cycle. Parameters of type {@code List<T>} or
+ * {@code Map<String, T>} get every registration of {@code T} that takes no
+ * arguments, as {@link Container#resolveAll(Class, Object...)} and
+ * {@link Container#resolveAllNamed(Class, Object...)} return them; they are
+ * not declared either, since the group may be empty.
+ */
+final class ConstructorFactory<T> implements ContainerAwareFactory<T> {
+	private static final Object[] NO_ARGS = new Object[0];
+	
+	private final Class<?> implementation;
+	private final MethodHandle constructor;
+	private final Dependency[] dependencies;
+	private final Class<?>[] argTypes;
+	private volatile Bindings bindings;
+	
+	private ConstructorFactory(Class<?> implementation, MethodHandle constructor, 
+			Dependency[] dependencies, Class<?>[] argTypes) {
+		this.implementation = implementation;
+		this.constructor = constructor;
+		this.dependencies = dependencies;
+		this.argTypes = argTypes;
+	}
+	
+	static <T> ConstructorFactory<T> of(Class<? extends T> implementation) {
+		Constructor<?> constructor = select(implementation);
+		Class<?>[] parameterTypes = constructor.getParameterTypes();
+		Type[] genericTypes = constructor.getGenericParameterTypes();
+		Annotation[][] annotations = constructor.getParameterAnnotations();
+		Dependency[] dependencies = new Dependency[parameterTypes.length];
+		List<Class<?>> argTypes = new ArrayList<>();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			String name = null;
+			boolean argument = false;
+			for (Annotation annotation: annotations[i]) {
+				if (annotation instanceof Named) {
+					name = ((Named) annotation).value();
+				} else if (annotation instanceof Argument) {
+					argument = true;
+				}
+			}
+			if (argument) {
+				argTypes.add(box(parameterTypes[i]));
+			} else if (parameterTypes[i] == Provider.class || parameterTypes[i] == Lazy.class) {
+				dependencies[i] = new Dependency(typeArgument(implementation, genericTypes[i], 0), name, 
+						parameterTypes[i] == Provider.class ? Kind.PROVIDER : Kind.LAZY);
+			} else if (parameterTypes[i] == List.class) {
+				dependencies[i] = new Dependency(typeArgument(implementation, genericTypes[i], 0), null, Kind.LIST);
+			} else if (parameterTypes[i] == Map.class) {
+				if (typeArgument(implementation, genericTypes[i], 0) != String.class) {
+					throw new IllegalArgumentException("Constructor of " + implementation.getName() + 
+							" needs String keys for " + genericTypes[i]);
+				}
+				dependencies[i] = new Dependency(typeArgument(implementation, genericTypes[i], 1), null, Kind.MAP);
+			} else {
+				dependencies[i] = new Dependency(parameterTypes[i], name, Kind.INSTANCE);
+			}
+		}
+		
+		MethodHandle handle;
+		try {
+			constructor.setAccessible(true);
+			handle = MethodHandles.lookup().unreflectConstructor(constructor);
+		} catch (IllegalAccessException | SecurityException e) {
+			throw new IllegalArgumentException("Cannot access constructor of " + implementation.getName(), e);
+		}
+		handle = handle.asSpreader(Object[].class, parameterTypes.length).
+				asType(MethodType.methodType(Object.class, Object[].class));
+		return new ConstructorFactory<>(implementation, handle, dependencies, 
+				argTypes.toArray(new Class<?>[argTypes.size()]));
+	}
+	
+	Class<?>[] getArgTypes() {
+		return argTypes.clone();
+	}
+	
+	List<ServiceKey> getDependencies() {
+		List<ServiceKey> result = new ArrayList<>();
+		for (Dependency dependency: dependencies) {
+			if (dependency != null && dependency.kind == Kind.INSTANCE) {
+				ServiceKey key = new ServiceKey(dependency.type);
+				key.setName(dependency.name);
+				result.add(key);
+			}
+		}
+		return result;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public T newInstance(Container container, Object... args) throws ResolutionException {
+		Registry registry = container.getRegistry();
+		Bindings bindings = bindings(registry);
+		Object[] values = new Object[dependencies.length];
+		int arg = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (dependencies[i] == null) {
+				values[i] = args[arg++];
+			} else if (bindings.groups[i] != null) {
+				values[i] = resolveGroup(container, registry, dependencies[i], bindings.groups[i]);
+			} else {
+				values[i] = resolve(container, registry, dependencies[i], bindings.entries[i]);
+			}
+		}
+		try {
+			return (T) constructor.invokeExact(values);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new ResolutionException("Constructor of " + implementation.getName() + " failed", e);
+		}
+	}
+	
+	private static Object resolve(Container container, Registry registry, Dependency dependency, 
+			ServiceEntry entry) throws ResolutionException {
+		ServiceEntry bound = container.bindEntry(entry);
+		switch (dependency.kind) {
+		case PROVIDER:
+			return new ServiceHandle<>(container, registry, bound);
+		case LAZY:
+			return new LazyReference<>(new ServiceHandle<>(container, registry, bound));
+		default:
+			return container.resolveEntry(registry, bound, NO_ARGS);
+		}
+	}
+	
+	/*
+	 * Multi-bindings keep the order of the group; entries that take arguments
+	 * were left out when the group was bound. Like single dependencies, they
+	 * resolve against the registry the group was bound from.
+	 */
+	private static Object resolveGroup(Container container, Registry registry, Dependency dependency, 
+			ServiceEntry[] group) throws ResolutionException {
+		if (dependency.kind == Kind.LIST) {
+			List<Object> result = new ArrayList<>(group.length);
+			for (ServiceEntry entry: group) {
+				result.add(container.resolveEntry(registry, container.bindEntry(entry), NO_ARGS));
+			}
+			return result;
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (ServiceEntry entry: group) {
+			result.put(entry.getKey().getName(), container.resolveEntry(registry, container.bindEntry(entry), NO_ARGS));
+		}
+		return result;
+	}
+	
+	private Bindings bindings(Registry registry) throws ResolutionException {
+		Bindings current = bindings;
+		if (current != null && current.registry == registry) {
+			return current;
+		}
+		ServiceEntry[] entries = new ServiceEntry[dependencies.length];
+		ServiceEntry[][] groups = new ServiceEntry[dependencies.length][];
+		for (int i = 0; i < entries.length; i++) {
+			Dependency dependency = dependencies[i];
+			if (dependency != null && (dependency.kind == Kind.LIST || dependency.kind == Kind.MAP)) {
+				groups[i] = group(registry, dependency);
+			} else if (dependency != null) {
+				entries[i] = registry.lookup(dependency.type, dependency.name, Signature.EMPTY);
+				if (entries[i] == null) {
+					throw new ResolutionException("Parameter " + i + " of " + implementation.getName() + 
+							" needs " + dependency.type.getName() + 
+							(dependency.name != null ? " named " + dependency.name : "") + 
+							", which is not registered");
+				}
+			}
+		}
+		current = new Bindings(registry, entries, groups);
+		bindings = current;
+		return current;
+	}
+	
+	private static ServiceEntry[] group(Registry registry, Dependency dependency) {
+		List<ServiceEntry> result = new ArrayList<>();
+		for (ServiceEntry entry: registry.group(dependency.type)) {
+			if (entry.getSignature() == Signature.EMPTY && 
+					(dependency.kind == Kind.LIST || entry.getKey().getName() != null)) {
+				result.add(entry);
+			}
+		}
+		return result.toArray(new ServiceEntry[result.size()]);
+	}
+	
+	private static Constructor<?> select(Class<?> implementation) {
+		if (implementation.isInterface() || Modifier.isAbstract(implementation.getModifiers())) {
+			throw new IllegalArgumentException(implementation.getName() + " cannot be instantiated");
+		}
+		if (implementation.isMemberClass() && !Modifier.isStatic(implementation.getModifiers())) {
+			throw new IllegalArgumentException(implementation.getName() + " is an inner class and needs to be static");
+		}
+		Constructor<?> result = null;
+		for (Constructor<?> constructor: implementation.getDeclaredConstructors()) {
+			if (constructor.isAnnotationPresent(Inject.class)) {
+				if (result != null) {
+					throw new IllegalArgumentException(implementation.getName() + 
+							" has more than one @Inject constructor");
+				}
+				result = constructor;
+			}
+		}
+		if (result != null) {
+			return result;
+		}
+		Constructor<?>[] constructors = implementation.getConstructors();
+		if (constructors.length != 1) {
+			throw new IllegalArgumentException(implementation.getName() + 
+					" needs an @Inject constructor or exactly one public constructor");
+		}
+		return constructors[0];
+	}
+	
+	private static Class<?> typeArgument(Class<?> implementation, Type type, int index) {
+		if (type instanceof ParameterizedType) {
+			Type argument = ((ParameterizedType) type).getActualTypeArguments()[index];
+			if (argument instanceof ParameterizedType) {
+				argument = ((ParameterizedType) argument).getRawType();
+			}
+			if (argument instanceof Class) {
+				return (Class<?>) argument;
+			}
+		}
+		throw new IllegalArgumentException("Constructor of " + implementation.getName() + 
+				" needs a concrete type argument for " + type);
+	}
+	
+	private static Class<?> box(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		return MethodType.methodType(type).wrap().returnType();
+	}
+	
+	private static class Dependency {
+		private final Class<?> type;
+		private final String name;
+		private final Kind kind;
+		
+		Dependency(Class<?> type, String name, Kind kind) {
+			this.type = type;
+			this.name = name;
+			this.kind = kind;
+		}
+	}
+	
+	private enum Kind {
+		INSTANCE, PROVIDER, LAZY, LIST, MAP
+	}
+	
+	private static class Bindings {
+		private final Registry registry;
+		private final ServiceEntry[] entries;
+		private final ServiceEntry[][] groups;
+		
+		Bindings(Registry registry, ServiceEntry[] entries, ServiceEntry[][] groups) {
+			this.registry = registry;
+			this.entries = entries;
+			this.groups = groups;
+		}
+	}
+}
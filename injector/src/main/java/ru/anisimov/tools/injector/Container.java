@@ -2,33 +2,71 @@ package ru.anisimov.tools.injector;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import ru.anisimov.tools.injector.annotations.Argument;
+import ru.anisimov.tools.injector.annotations.Inject;
+import ru.anisimov.tools.injector.exceptions.DisposalException;
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
 import ru.anisimov.tools.injector.exceptions.ResolutionException;
+import ru.anisimov.tools.injector.exceptions.ServiceNotFoundException;
 import ru.anisimov.tools.injector.syntax.registration.RegistrationInterface;
 
-public class Container {
-	private Map<ServiceKey, ServiceEntry> services = new HashMap<>();
-	private Container parent;
+public class Container implements AutoCloseable {
+	private static final int INLINE_ENTRIES = 8;
+	private static final ServiceEntry[] CLOSED = new ServiceEntry[0];
+	private static final Object[] NO_ARGS = new Object[0];
 	
-	private Container() { this.parent = null; }
+	private final AtomicReference<Registry> registry;
+	private final ResolutionMetrics metrics;
+	private final ResolutionRecorder recorder;
+	private final Container parent;
+	private volatile ServiceEntry[] inlineEntries;
+	private volatile ConcurrentMap<ServiceEntry, ServiceEntry> containerEntries;
 	
-	private Container(Container parent) { this.parent = parent; }
+	private Container(Registry registry) { 
+		this.registry = new AtomicReference<>(registry);
+		this.metrics = registry.metrics();
+		this.recorder = registry.recorder();
+		this.parent = null; 
+	}
 	
-	public Container createChildContainer() {
-		return new Container(this);
+	private Container(Container parent) { 
+		this.registry = parent.registry;
+		this.metrics = parent.metrics;
+		this.recorder = parent.recorder;
+		this.parent = parent; 
 	}
 	
-	private void register(ServiceKey key, ServiceEntry entry) {
-		services.put(key, entry);
+	/**
+	 * Creates a container that shares the registrations and HIERARCHY-scoped
+	 * instances of this one and keeps its own CONTAINER-scoped instances.
+	 * <p>
+	 * A new child is a single object of six references, 40 bytes with
+	 * compressed oops. Its first {@value #INLINE_ENTRIES} CONTAINER-scoped
+	 * services are kept in a small array that is copied on each addition; only
+	 * a child that resolves more of them allocates a map.
+	 */
+	public Container createChildContainer() {
+		return new Container(this);
 	}
 	
 	public <TService> TService resolve(Class<TService> type, 
 			Object... args) throws ResolutionException {
-		return resolve(null, type, args);
+		return resolveImpl(null, type, args, true);
 	}
 	
 	public <TService> TService resolve(String name, Class<TService> type, 
@@ -36,6 +74,133 @@ public class Container {
 		return resolveImpl(name, type, args, true);
 	}
 	
+	/**
+	 * Resolves with the arguments as they are, without the array of
+	 * {@link #resolve(String, Class, Object...)}: a NONE-scoped registration
+	 * made with a fixed-arity factory, such as {@link Factory2}, and taking
+	 * exactly the classes of the arguments is created by a direct call to its
+	 * factory. Any other registration resolves as it would with the array.
+	 * Named apart from {@code resolve}, whose call sites keep resolving to
+	 * the array forms; the unnamed forms are {@link #resolveTyped(Class)}
+	 * and its overloads.
+	 */
+	public <TService> TService resolveTypedNamed(String name, Class<TService> type) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, 0, null, null, null, null);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		return factory != null ? factory.create() : resolveImpl(registry, entry, name, type, NO_ARGS, true);
+	}
+	
+	public <TService> TService resolveTyped(Class<TService> type) throws ResolutionException {
+		return resolveTypedNamed(null, type);
+	}
+	
+	public <TService, A> TService resolveTypedNamed(String name, Class<TService> type, A a) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, 1, a, null, null, null);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		return factory != null ? factory.create(a) : 
+				resolveImpl(registry, entry, name, type, new Object[] { a }, true);
+	}
+	
+	public <TService, A> TService resolveTyped(Class<TService> type, A a) throws ResolutionException {
+		return resolveTypedNamed(null, type, a);
+	}
+	
+	public <TService, A, B> TService resolveTypedNamed(String name, Class<TService> type, 
+			A a, B b) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, 2, a, b, null, null);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		return factory != null ? factory.create(a, b) : 
+				resolveImpl(registry, entry, name, type, new Object[] { a, b }, true);
+	}
+	
+	public <TService, A, B> TService resolveTyped(Class<TService> type, A a, B b) throws ResolutionException {
+		return resolveTypedNamed(null, type, a, b);
+	}
+	
+	public <TService, A, B, C> TService resolveTypedNamed(String name, Class<TService> type, 
+			A a, B b, C c) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, 3, a, b, c, null);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		return factory != null ? factory.create(a, b, c) : 
+				resolveImpl(registry, entry, name, type, new Object[] { a, b, c }, true);
+	}
+	
+	public <TService, A, B, C> TService resolveTyped(Class<TService> type, 
+			A a, B b, C c) throws ResolutionException {
+		return resolveTypedNamed(null, type, a, b, c);
+	}
+	
+	public <TService, A, B, C, D> TService resolveTypedNamed(String name, Class<TService> type, 
+			A a, B b, C c, D d) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, 4, a, b, c, d);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		return factory != null ? factory.create(a, b, c, d) : 
+				resolveImpl(registry, entry, name, type, new Object[] { a, b, c, d }, true);
+	}
+	
+	public <TService, A, B, C, D> TService resolveTyped(Class<TService> type, 
+			A a, B b, C c, D d) throws ResolutionException {
+		return resolveTypedNamed(null, type, a, b, c, d);
+	}
+	
+	/**
+	 * Resolves with a single int argument, which an {@link IntFactory} gets
+	 * without boxing; see {@link #resolveTypedNamed(String, Class)}. A
+	 * registration taking an Integer instead gets the boxed value. Named
+	 * apart from {@code resolve}, so char, short and byte arguments of
+	 * {@code resolve} keep their own wrappers instead of widening to int.
+	 */
+	public <TService> TService resolveInt(String name, Class<TService> type, int value) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookupPrimitive(type, name, int.class);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		if (factory != null) {
+			return factory.createInt(value);
+		}
+		Object[] args = { value };
+		return resolveImpl(registry, entry != null ? entry : registry.lookup(type, name, args), name, type, args, true);
+	}
+	
+	public <TService> TService resolveInt(Class<TService> type, int value) throws ResolutionException {
+		return resolveInt((String) null, type, value);
+	}
+	
+	public <TService> TService resolveLong(String name, Class<TService> type, long value) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookupPrimitive(type, name, long.class);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		if (factory != null) {
+			return factory.createLong(value);
+		}
+		Object[] args = { value };
+		return resolveImpl(registry, entry != null ? entry : registry.lookup(type, name, args), name, type, args, true);
+	}
+	
+	public <TService> TService resolveLong(Class<TService> type, long value) throws ResolutionException {
+		return resolveLong((String) null, type, value);
+	}
+	
+	public <TService> TService resolveBoolean(String name, Class<TService> type, 
+			boolean value) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookupPrimitive(type, name, boolean.class);
+		ArityFactory<TService> factory = arityFactoryOf(entry);
+		if (factory != null) {
+			return factory.createBoolean(value);
+		}
+		Object[] args = { value };
+		return resolveImpl(registry, entry != null ? entry : registry.lookup(type, name, args), name, type, args, true);
+	}
+	
+	public <TService> TService resolveBoolean(Class<TService> type, boolean value) throws ResolutionException {
+		return resolveBoolean((String) null, type, value);
+	}
+	
 	public <TService> TService tryResolve(Class<TService> type, 
 			Object... args) throws ResolutionException {
 		return tryResolve(null, type, args);
@@ -46,62 +211,720 @@ public class Container {
 		return resolveImpl(name, type, args, false);
 	}
 	
+	/**
+	 * Resolves every registration of the type that takes the arguments, named
+	 * or not, in registration order. A registration takes them as it would
+	 * in {@link #resolve(String, Class, Object...)}, including subtypes,
+	 * boxed primitives and nulls. The registrations of a type are grouped
+	 * when the container is built, so this is one lookup and a walk over the
+	 * group.
+	 */
+	public <TService> List<TService> resolveAll(Class<TService> type, 
+			Object... args) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry[] group = registry.group(type);
+		List<TService> result = new ArrayList<>(group.length);
+		for (ServiceEntry entry: group) {
+			if (ArgumentMatcher.accepts(entry, args)) {
+				result.add(this.<TService>resolveEntry(registry, bindEntry(entry), args));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Like {@link #resolveAll(Class, Object...)}, keyed by name; unnamed
+	 * registrations are left out.
+	 */
+	public <TService> Map<String, TService> resolveAllNamed(Class<TService> type, 
+			Object... args) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry[] group = registry.group(type);
+		Map<String, TService> result = new LinkedHashMap<>();
+		for (ServiceEntry entry: group) {
+			if (entry.getKey().getName() != null && ArgumentMatcher.accepts(entry, args)) {
+				result.put(entry.getKey().getName(), this.<TService>resolveEntry(registry, bindEntry(entry), args));
+			}
+		}
+		return result;
+	}
+	
+	public <TService> CompletableFuture<TService> resolveAsync(Class<TService> type, Object... args) {
+		return resolveAsync(null, type, args);
+	}
+	
+	/**
+	 * Resolves the service without blocking the caller. Declared dependencies
+	 * of the service are built in parallel on the executor set with
+	 * {@link Builder#executor(Executor)} before its factory runs there;
+	 * concurrent requests for the same CONTAINER or HIERARCHY instance share
+	 * one future. Failures complete the future exceptionally, with a
+	 * {@link ResolutionException} for missing services.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <TService> CompletableFuture<TService> resolveAsync(String name, Class<TService> type, Object... args) {
+		try {
+			Registry registry = this.registry.get();
+			ServiceEntry entry = registry.lookup(type, name, args);
+			if (entry == null) {
+				if (metrics != null) {
+					metrics.miss(type);
+				}
+				throw notFound(registry, type, name, args);
+			}
+			return (CompletableFuture) AsyncResolver.resolve(this, bindEntry(entry), args);
+		} catch (ResolutionException e) {
+			CompletableFuture<TService> result = new CompletableFuture<>();
+			result.completeExceptionally(e);
+			return result;
+		}
+	}
+	
+	public <TService> ServiceHandle<TService> handle(Class<TService> type, 
+			Class<?>... argTypes) throws ResolutionException {
+		return handle(null, type, argTypes);
+	}
+	
+	public <TService> ServiceHandle<TService> handle(String name, Class<TService> type, 
+			Class<?>... argTypes) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, argTypes);
+		if (entry == null) {
+			throw notFound(registry, type, name, argTypes);
+		}
+		return new ServiceHandle<>(this, registry, bindEntry(entry));
+	}
+	
+	public CacheStats cacheStats(Class<?> type, Class<?>... argTypes) throws ResolutionException {
+		return cacheStats(null, type, argTypes);
+	}
+	
+	/**
+	 * Returns the cache counters of an ARGUMENTS-scoped service, or null if
+	 * the service has another scope.
+	 */
+	public CacheStats cacheStats(String name, Class<?> type, 
+			Class<?>... argTypes) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, argTypes);
+		if (entry == null) {
+			throw notFound(registry, type, name, argTypes);
+		}
+		return entry.getCache() != null ? entry.getCache().stats() : null;
+	}
+	
+	public <TService> Lease<TService> lease(Class<TService> type, Object... args) throws ResolutionException {
+		return lease(null, type, args);
+	}
+	
+	/**
+	 * Borrows an instance of a POOLED service, waiting for one to be returned
+	 * if all of them are leased. The arguments are only used when the pool
+	 * creates an instance.
+	 */
 	@SuppressWarnings("unchecked")
+	public <TService> Lease<TService> lease(String name, Class<TService> type, 
+			Object... args) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, args);
+		if (entry == null) {
+			if (metrics != null) {
+				metrics.miss(type);
+			}
+			throw notFound(registry, type, name, args);
+		}
+		if (isClosed()) {
+			throw new ResolutionException("Container is closed");
+		}
+		InstancePool pool = entry.getPool();
+		if (pool == null) {
+			throw new ResolutionException(entry.getKey() + " is not pooled");
+		}
+		if (metrics == null) {
+			return new Lease<>(pool, (TService) pool.borrow(getRoot(), args, null));
+		}
+		ResolutionMetrics.Counters counters = metrics.of(entry);
+		counters.resolve();
+		return new Lease<>(pool, (TService) pool.borrow(measuredRoot(), args, counters));
+	}
+	
+	public PoolStats poolStats(Class<?> type, Class<?>... argTypes) throws ResolutionException {
+		return poolStats(null, type, argTypes);
+	}
+	
+	/**
+	 * Returns the pool counters of a POOLED service, or null if the service
+	 * has another scope.
+	 */
+	public PoolStats poolStats(String name, Class<?> type, 
+			Class<?>... argTypes) throws ResolutionException {
+		Registry registry = this.registry.get();
+		ServiceEntry entry = registry.lookup(type, name, argTypes);
+		if (entry == null) {
+			throw notFound(registry, type, name, argTypes);
+		}
+		return entry.getPool() != null ? entry.getPool().stats() : null;
+	}
+	
+	public <TService> Provider<TService> provider(Class<TService> type) throws ResolutionException {
+		return provider(null, type);
+	}
+	
+	/**
+	 * Returns a provider that resolves the service on every {@link Provider#get()}
+	 * without looking it up again.
+	 */
+	public <TService> Provider<TService> provider(String name, 
+			Class<TService> type) throws ResolutionException {
+		return handle(name, type);
+	}
+	
+	public <TService> Lazy<TService> lazy(Class<TService> type) throws ResolutionException {
+		return lazy(null, type);
+	}
+	
+	/**
+	 * Returns a lazy reference that resolves the service on its first
+	 * {@link Lazy#get()} and then keeps the instance.
+	 */
+	public <TService> Lazy<TService> lazy(String name, 
+			Class<TService> type) throws ResolutionException {
+		return new LazyReference<>(handle(name, type));
+	}
+	
+	/**
+	 * Builds the eager registrations ahead of their first resolution, along
+	 * with the CONTAINER and HIERARCHY-scoped services they depend on. Each
+	 * service is built on the executor as soon as its declared dependencies
+	 * are, so independent services are built in parallel and warming up takes
+	 * about as long as the slowest chain of dependencies rather than all
+	 * constructions together.
+	 * <p>
+	 * Waits until every construction is done or given up. A service that
+	 * fails or exceeds its timeout, and the services depending on it, are
+	 * left to be built on their first resolution; the report lists them. A
+	 * construction that timed out keeps running and stores its instance when
+	 * it finishes.
+	 *
+	 * @see RegistrationInterface#eager(long, java.util.concurrent.TimeUnit)
+	 */
+	public WarmUpReport warmUp(Executor executor) throws ResolutionException {
+		if (isClosed()) {
+			throw new ResolutionException("Container is closed");
+		}
+		return WarmUp.run(this, Objects.requireNonNull(executor));
+	}
+	
+	/**
+	 * Warms up on the executor the container was built with.
+	 */
+	public WarmUpReport warmUp() throws ResolutionException {
+		return warmUp(registry.get().executor());
+	}
+	
+	/**
+	 * Returns the resolution counters shared by this container hierarchy, or
+	 * null if they were not enabled with {@link Builder#enableMetrics()}.
+	 */
+	public ResolutionMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Counts the registrations, entries and instances this container holds
+	 * and estimates the bytes they take, for capacity planning. The root
+	 * holds the registry and the instances shared by the hierarchy, a child
+	 * only its CONTAINER-scoped entries, so the footprint of a hierarchy is
+	 * the sum over its containers. Counts are read without stopping
+	 * resolutions, so they may be slightly off while the container is used.
+	 */
+	public Footprint footprint() {
+		Registry registry = this.registry.get();
+		ServiceEntry[] inline = inlineEntries;
+		Map<ServiceEntry, ServiceEntry> map = containerEntries;
+		int containerEntries = 0;
+		int cachedInstances = 0;
+		long bytes = Footprint.CONTAINER_BYTES;
+		if (inline != null && inline != CLOSED) {
+			bytes += Footprint.arrayBytes(inline.length, 4);
+			for (int i = 1; i < inline.length; i += 2) {
+				containerEntries++;
+				cachedInstances += inline[i].getInstance() != null ? 1 : 0;
+			}
+		}
+		if (map != null) {
+			bytes += Footprint.mapBytes(map.size());
+			for (ServiceEntry entry: map.values()) {
+				containerEntries++;
+				cachedInstances += entry.getInstance() != null ? 1 : 0;
+			}
+		}
+		bytes += (long) containerEntries * Footprint.ENTRY_BYTES;
+		
+		int registrations = 0;
+		for (ServiceEntry entry: registry.entries()) {
+			if (entry == null) {
+				continue;
+			}
+			registrations++;
+			if (parent != null) {
+				continue;
+			}
+			if (entry.getScope() == ReuseScope.HIERARCHY) {
+				cachedInstances += entry.getInstance() != null ? 1 : 0;
+			} else if (entry.getCache() != null) {
+				int size = entry.getCache().size();
+				cachedInstances += size;
+				bytes += (long) size * Footprint.ARGUMENT_NODE_BYTES;
+			} else if (entry.getPool() != null) {
+				cachedInstances += entry.getPool().stats().getIdle();
+			}
+		}
+		long registryBytes = registry.estimatedBytes();
+		if (parent == null) {
+			bytes += registryBytes;
+		}
+		return new Footprint(registrations, containerEntries, cachedInstances, bytes, registryBytes);
+	}
+	
 	private <TService> TService resolveImpl(String name, Class<TService> type, 
 			Object[] args, boolean throwIfMissing) throws ResolutionException {
-		ServiceKey key = ServiceKey.valueOf(type, args);
-		key.setName(name);
-		ServiceEntry entry = getEntry(key);
+		Registry registry = this.registry.get();
+		return resolveImpl(registry, registry.lookup(type, name, args), name, type, args, throwIfMissing);
+	}
+	
+	/*
+	 * Resolves the entry found for the arguments, or handles the miss if
+	 * there is none.
+	 */
+	private <TService> TService resolveImpl(Registry registry, ServiceEntry entry, String name, 
+			Class<TService> type, Object[] args, boolean throwIfMissing) throws ResolutionException {
 		if (entry != null) {
-			switch(entry.getScope()) {
-			case CONTAINER:
-				ServiceEntry containerEntry;
-				if (entry.container != this) {
-					containerEntry = entry.cloneFor(this);
-					register(key, containerEntry);
-				} else {
-					containerEntry = entry;
+			return resolveEntry(registry, bindEntry(entry), args);
+		}
+		if (metrics != null) {
+			metrics.miss(type);
+		}
+		if (throwIfMissing) {
+			throw notFound(registry, type, name, args);
+		}
+		return null;
+	}
+	
+	/*
+	 * The fixed-arity factory of the entry if the resolveTyped methods may
+	 * call it directly, which skips only the scope switch: the entry is
+	 * NONE-scoped, metrics and events are off and the container is open.
+	 */
+	@SuppressWarnings("unchecked")
+	private <TService> ArityFactory<TService> arityFactoryOf(ServiceEntry entry) {
+		if (entry == null || entry.getScope() != ReuseScope.NONE || metrics != null || recorder != null || 
+				inlineEntries == CLOSED || !(entry.getFactory() instanceof ArityFactory)) {
+			return null;
+		}
+		return (ArityFactory<TService>) entry.getFactory();
+	}
+	
+	private ResolutionException notFound(Registry registry, Class<?> type, String name, Object[] args) {
+		return notFound(registry, type, name, argTypesOf(args));
+	}
+	
+	/*
+	 * The message is built lazily from what is captured here, never from the
+	 * registry or the containers, so a retained exception does not keep them
+	 * or the arguments reachable.
+	 */
+	private ResolutionException notFound(Registry registry, Class<?> type, String name, Class<?>[] argTypes) {
+		int depth = 0;
+		for (Container container = parent; container != null; container = container.parent) {
+			depth++;
+		}
+		int containers = depth + 1;
+		ServiceEntry[] group = registry.group(type);
+		ServiceKey[] registered = new ServiceKey[group.length];
+		for (int i = 0; i < group.length; i++) {
+			registered[i] = group[i].getKey();
+		}
+		return new ServiceNotFoundException(type, name, 
+				() -> describeMissing(type, name, argTypes, containers, registered), !registry.stacklessMisses());
+	}
+	
+	/*
+	 * Registrations are shared by the hierarchy, so a miss has searched every
+	 * container up to the root at once.
+	 */
+	private static String describeMissing(Class<?> type, String name, Class<?>[] argTypes, 
+			int containers, ServiceKey[] registered) {
+		StringBuilder result = new StringBuilder("No registration of ").append(type.getName());
+		if (argTypes.length > 0) {
+			result.append('(');
+			for (int i = 0; i < argTypes.length; i++) {
+				result.append(i > 0 ? ", " : "").append(argTypes[i] != null ? argTypes[i].getName() : "null");
+			}
+			result.append(')');
+		}
+		if (name != null) {
+			result.append(" named \"").append(name).append('"');
+		}
+		result.append(" in ").append(containers).append(containers == 1 ? " container" : " containers");
+		if (registered.length == 0) {
+			return result.append("; nothing is registered as ").append(type.getName()).toString();
+		}
+		result.append("; registered as ").append(type.getName()).append(':');
+		for (ServiceKey key: registered) {
+			result.append("\n\t").append(key);
+		}
+		return result.toString();
+	}
+	
+	private static Class<?>[] argTypesOf(Object[] args) {
+		Class<?>[] result = new Class<?>[args.length];
+		for (int i = 0; i < args.length; i++) {
+			result[i] = args[i] != null ? args[i].getClass() : null;
+		}
+		return result;
+	}
+	
+	/*
+	 * Registered entries are shared by the whole hierarchy and own the
+	 * HIERARCHY-scoped instances. Each container keeps its own copy of the
+	 * CONTAINER-scoped entries it has resolved.
+	 */
+	ServiceEntry bindEntry(ServiceEntry entry) throws ResolutionException {
+		if (entry.getScope() == ReuseScope.CONTAINER) {
+			ServiceEntry containerEntry = findContainerEntry(entry);
+			return containerEntry != null ? containerEntry : addContainerEntry(entry);
+		}
+		return entry;
+	}
+	
+	/*
+	 * The inline array holds pairs of a registered entry and this container's
+	 * copy of it.
+	 */
+	private ServiceEntry findContainerEntry(ServiceEntry entry) {
+		ServiceEntry[] entries = inlineEntries;
+		if (entries != null) {
+			for (int i = 0; i < entries.length; i += 2) {
+				if (entries[i] == entry) {
+					return entries[i + 1];
 				}
-				
-				if (containerEntry.getInstance() == null) {
-					Factory<?> factory = containerEntry.getFactory();
-					containerEntry.setInstance(factory.newInstance(args));
+			}
+		}
+		Map<ServiceEntry, ServiceEntry> map = containerEntries;
+		return map != null ? map.get(entry) : null;
+	}
+	
+	private synchronized ServiceEntry addContainerEntry(ServiceEntry entry) throws ResolutionException {
+		ServiceEntry containerEntry = findContainerEntry(entry);
+		if (containerEntry != null) {
+			return containerEntry;
+		}
+		ServiceEntry[] entries = inlineEntries;
+		if (entries == CLOSED) {
+			throw new ResolutionException("Container is closed");
+		}
+		containerEntry = entry.cloneFor(this);
+		if (entries == null) {
+			inlineEntries = new ServiceEntry[] { entry, containerEntry };
+		} else if (entries.length < INLINE_ENTRIES * 2) {
+			entries = Arrays.copyOf(entries, entries.length + 2);
+			entries[entries.length - 2] = entry;
+			entries[entries.length - 1] = containerEntry;
+			inlineEntries = entries;
+		} else {
+			if (containerEntries == null) {
+				containerEntries = new ConcurrentHashMap<>();
+			}
+			containerEntries.put(entry, containerEntry);
+		}
+		return containerEntry;
+	}
+	
+	<TService> TService resolveEntry(ServiceEntry entry, 
+			Object[] args) throws ResolutionException {
+		return resolveEntry(registry.get(), entry, args);
+	}
+	
+	/*
+	 * The registry is the one the entry was found in, so a resolution that
+	 * started before an update finishes against the registry it started with.
+	 */
+	@SuppressWarnings("unchecked")
+	<TService> TService resolveEntry(Registry registry, ServiceEntry entry, 
+			Object[] args) throws ResolutionException {
+		if (inlineEntries == CLOSED) {
+			throw new ResolutionException("Container is closed");
+		}
+		if (recorder != null) {
+			return (TService) recorder.record(this, registry, entry, args);
+		}
+		return (TService) resolveUnrecorded(registry, entry, args);
+	}
+	
+	Object resolveUnrecorded(Registry registry, ServiceEntry entry, Object[] args) throws ResolutionException {
+		if (metrics != null) {
+			ResolutionMetrics.Counters counters = metrics.of(entry);
+			counters.resolve();
+			return resolveMeasured(entry, args, counters);
+		}
+		CompiledResolver resolver = registry.resolver();
+		if (resolver != null) {
+			return resolver.resolve(this, entry, args);
+		}
+		return resolveScoped(entry, args);
+	}
+	
+	Object resolveScoped(ServiceEntry entry, Object[] args) throws ResolutionException {
+		switch(entry.getScope()) {
+		case CONTAINER:
+			return entry.getOrCreateInstance(entry.getContainer(), args);
+		case HIERARCHY:
+			return entry.getOrCreateInstance(getRoot(), args);
+		case ARGUMENTS:
+			return entry.getCache().getOrCreate(entry, getRoot(), args, null);
+		case THREAD:
+			return entry.getOrCreateThreadInstance(getRoot(), args, null);
+		case EXECUTION:
+			return ExecutionScope.current().getOrCreate(entry, getRoot(), args, null);
+		case POOLED:
+			throw new ResolutionException(entry.getKey() + " is pooled and needs to be leased");
+		case NONE:
+			return entry.getFactory().newInstance(this, args);
+		default:
+			throw new ResolutionException("Unknown scope");
+		}
+	}
+	
+	/*
+	 * Same as resolveScoped, reporting cache hits and factory calls.
+	 */
+	Object resolveMeasured(ServiceEntry entry, Object[] args, 
+			ResolutionObserver observer) throws ResolutionException {
+		switch(entry.getScope()) {
+		case CONTAINER:
+			return entry.getOrCreateInstance(entry.getContainer(), args, observer);
+		case HIERARCHY:
+			return entry.getOrCreateInstance(measuredRoot(), args, observer);
+		case ARGUMENTS:
+			return entry.getCache().getOrCreate(entry, measuredRoot(), args, observer);
+		case THREAD:
+			return entry.getOrCreateThreadInstance(measuredRoot(), args, observer);
+		case EXECUTION:
+			return ExecutionScope.current().getOrCreate(entry, measuredRoot(), args, observer);
+		case POOLED:
+			throw new ResolutionException(entry.getKey() + " is pooled and needs to be leased");
+		case NONE:
+			long start = System.nanoTime();
+			Object result = entry.getFactory().newInstance(this, args);
+			observer.factoryInvoked(System.nanoTime() - start);
+			return result;
+		default:
+			throw new ResolutionException("Unknown scope");
+		}
+	}
+	
+	private Container measuredRoot() {
+		int hops = 0;
+		Container root = this;
+		while (root.parent != null) {
+			root = root.parent;
+			hops++;
+		}
+		if (hops > 0 && metrics != null) {
+			metrics.parentHops(hops);
+		}
+		return root;
+	}
+	
+	/**
+	 * Disposes the instances this container owns, in reverse creation order,
+	 * and drops them. Those are its CONTAINER-scoped instances and, for the
+	 * root, the HIERARCHY-scoped ones, the cached ARGUMENTS-scoped ones and
+	 * the idle POOLED ones; pooled instances still leased are disposed when
+	 * they are returned. An instance is passed to the disposer
+	 * of its registration, or closed if it has none and is
+	 * {@link AutoCloseable}.
+	 * <p>
+	 * Children are not closed with their parent. A closed container fails
+	 * every resolution, and so do children that need a HIERARCHY-scoped
+	 * instance created after the root was closed. Closing again does nothing.
+	 * 
+	 * @throws DisposalException if disposing any instance failed
+	 */
+	@Override
+	public void close() {
+		List<ServiceEntry> owned = new ArrayList<>();
+		synchronized (this) {
+			ServiceEntry[] entries = inlineEntries;
+			if (entries == CLOSED) {
+				return;
+			}
+			if (entries != null) {
+				for (int i = 1; i < entries.length; i += 2) {
+					owned.add(entries[i]);
 				}
-				return (TService) containerEntry.getInstance();
-			case HIERARCHY:
-				if (entry.getInstance() == null) {
-					Factory<?> factory = entry.getFactory();
-					entry.setInstance(factory.newInstance(args));
+			}
+			if (containerEntries != null) {
+				owned.addAll(containerEntries.values());
+			}
+			if (parent == null) {
+				for (ServiceEntry entry: registry.get().entries()) {
+					if (entry != null && ownedByRoot(entry)) {
+						owned.add(entry);
+					}
 				}
-				return (TService) entry.getInstance();
-			case NONE:
-				Factory<TService> factory = (Factory<TService>) entry.getFactory();
-				return factory.newInstance(args);
-			default:
-				throw new ResolutionException("Unknown scope");
 			}
+			inlineEntries = CLOSED;
+			containerEntries = null;
 		}
-		if (throwIfMissing) {
-			throw new ResolutionException();
+		dispose(owned);
+	}
+	
+	public boolean isClosed() {
+		return inlineEntries == CLOSED;
+	}
+	
+	/**
+	 * Replaces registrations of the whole hierarchy while it is in use. The
+	 * module registers services on a new builder; each of them replaces the
+	 * registration with the same type, name and argument types, or is added.
+	 * Registrations that declare a dependency on a replaced one, directly or
+	 * through others, are reset too, so their instances are created again
+	 * from the new registrations. All other instances are kept.
+	 * <p>
+	 * Replaced HIERARCHY, ARGUMENTS and POOLED instances are disposed as by
+	 * {@link #close()}; replaced CONTAINER-scoped instances are disposed when
+	 * their container is closed. The changes are published at once: a
+	 * resolution sees all of them or none, and resolutions already running
+	 * finish against the registrations they started with. Resolution takes
+	 * no locks; concurrent updates are applied one after another.
+	 * 
+	 * @throws RegistrationException if the changed registrations have missing
+	 * dependencies or cycles; nothing is changed then
+	 * @throws DisposalException if disposing a replaced instance failed; the
+	 * changes are applied
+	 */
+	public void rebind(RegistrationModule module) {
+		Builder builder = new Builder();
+		module.configure(builder);
+		update(builder.entries(), Collections.<ServiceKey>emptyList());
+	}
+	
+	public boolean unregister(Class<?> type, Class<?>... argTypes) {
+		return unregister(null, type, argTypes);
+	}
+	
+	/**
+	 * Removes a registration of the whole hierarchy while it is in use, see
+	 * {@link #rebind(RegistrationModule)}. Returns false if there was no such
+	 * registration.
+	 * 
+	 * @throws RegistrationException if other registrations depend on it
+	 */
+	public boolean unregister(String name, Class<?> type, Class<?>... argTypes) {
+		ServiceKey key = new ServiceKey(type, argTypes);
+		key.setName(name);
+		return update(Collections.<ServiceEntry>emptyList(), Collections.singletonList(key));
+	}
+	
+	/*
+	 * Copy on write: the next registry is built aside and published with a
+	 * single write, so readers never see a registry being built.
+	 */
+	private boolean update(List<ServiceEntry> bound, List<ServiceKey> unbound) {
+		List<ServiceEntry> displaced = new ArrayList<>();
+		synchronized (registry) {
+			Registry current = registry.get();
+			registry.set(current.update(bound, unbound, displaced));
 		}
-		return null;
+		List<ServiceEntry> owned = new ArrayList<>();
+		for (ServiceEntry entry: displaced) {
+			if (ownedByRoot(entry)) {
+				owned.add(entry);
+			}
+		}
+		dispose(owned);
+		return !bound.isEmpty() || !displaced.isEmpty();
 	}
 	
-	private ServiceEntry getEntry(ServiceKey key) {
-		ServiceEntry result = null;
-		Container container = this;
-		while (container != null) {
-			if (container.services.containsKey(key)) {
-				result = container.services.get(key);
-				break;
+	private static boolean ownedByRoot(ServiceEntry entry) {
+		return entry.getScope() == ReuseScope.HIERARCHY || 
+				entry.getScope() == ReuseScope.ARGUMENTS || 
+				entry.getScope() == ReuseScope.POOLED;
+	}
+	
+	private static void dispose(List<ServiceEntry> entries) {
+		Collections.sort(entries, new Comparator<ServiceEntry>() {
+			@Override
+			public int compare(ServiceEntry a, ServiceEntry b) {
+				return Long.compare(b.getCreation(), a.getCreation());
+			}
+		});
+		DisposalException failure = null;
+		for (ServiceEntry entry: entries) {
+			List<Object> instances;
+			if (entry.getCache() != null) {
+				instances = entry.getCache().clear();
+			} else if (entry.getPool() != null) {
+				instances = entry.getPool().close();
+			} else {
+				instances = Collections.singletonList(entry.release());
+			}
+			for (Object instance: instances) {
+				if (instance != null) {
+					failure = dispose(entry, instance, failure);
+				}
 			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/*
+	 * Disposes one instance and adds its failure, if any, to the failures so
+	 * far, so callers can go on with the remaining instances.
+	 */
+	static DisposalException dispose(ServiceEntry entry, Object instance, DisposalException failure) {
+		try {
+			entry.dispose(instance);
+		} catch (Exception e) {
+			if (failure == null) {
+				return new DisposalException("Failed to dispose " + entry.getKey(), e);
+			}
+			failure.addSuppressed(e);
+		}
+		return failure;
+	}
+	
+	public Container getParent() {
+		return parent;
+	}
+	
+	Registry getRegistry() {
+		return registry.get();
+	}
+	
+	/*
+	 * HIERARCHY-scoped instances are built against the root, so they never
+	 * capture instances owned by the child they were first resolved from.
+	 */
+	Container getRoot() {
+		Container container = this;
+		while (container.parent != null) {
 			container = container.parent;
 		}
-		return result;
+		return container;
 	}
 	
 	public static class Builder implements ru.anisimov.tools.injector.Builder<Container> {
 		private List<Registration> registrations = new ArrayList<>();
+		private List<ComponentIndex> indexes = new ArrayList<>();
+		private boolean metrics;
+		private boolean stacklessMisses;
+		private ResolutionRecorder recorder;
+		private Executor executor = ForkJoinPool.commonPool();
 		
 		private Builder() {}
 		
@@ -111,7 +934,43 @@ public class Container {
 		
 		@Override
 		public Container build() {
-			Container container = new Container();
+			return new Container(registry());
+		}
+		
+		/**
+		 * Builds the container with resolution specialized for its final
+		 * registrations: a class generated at runtime dispatches on the
+		 * resolved registration directly and calls each factory from its own
+		 * call site, where the JIT can inline it. Resolution behaves exactly as
+		 * in a container from {@link #build()}; building takes longer, so this
+		 * pays off for long-lived containers on hot paths. Containers with
+		 * metrics enabled resolve through the measuring path instead.
+		 * Generating the class needs Java 17; on older runtimes this builds
+		 * the same container as {@link #build()}.
+		 */
+		public Container compile() {
+			Registry registry = registry();
+			registry.compile();
+			return new Container(registry);
+		}
+		
+		private Registry registry() {
+			Registry registry = Registry.build(entries(), metrics, executor);
+			registry.stacklessMisses(stacklessMisses);
+			registry.recorder(recorder);
+			return registry;
+		}
+		
+		private List<ServiceEntry> entries() {
+			int size = registrations.size();
+			for (ComponentIndex index: indexes) {
+				size += index.size();
+			}
+			List<ServiceEntry> entries = new ArrayList<>(size);
+			for (ComponentIndex index: indexes) {
+				index.addEntries(entries);
+			}
+			List<String> problems = new ArrayList<>();
 			for (Registration registration: registrations) {
 				ServiceKey key = new ServiceKey(registration.getServiceType(), 
 						registration.getArgs());
@@ -119,10 +978,89 @@ public class Container {
 				ServiceEntry entry = ServiceEntry.Builder.
 						newInstance(registration.getFactory()).
 						reuseScope(registration.getReuseScope()).
-						container(container).build();
-				container.register(key, entry);
+						disposer(registration.getDisposer()).
+						key(key).
+						cache(registration.getReuseScope() == ReuseScope.ARGUMENTS ? 
+								new ArgumentCache(registration.getMaximumSize(), 
+										registration.getTimeToLive()) : null).
+						threadInstances(registration.getReuseScope() == ReuseScope.THREAD ? 
+								new ThreadLocal<Object>() : null).
+						pool(registration.getReuseScope() == ReuseScope.POOLED, registration.getKeepIdle(), 
+								registration.getMaxPoolSize(), registration.getIdleTimeout(), 
+								registration.getResetter()).
+						eager(registration.isEager(), registration.getEagerTimeout()).
+						dependencies(registration.getDependencies()).build();
+				if (entry.isEager() && (key.getArgTypes().length > 0 || 
+						(entry.getScope() != ReuseScope.CONTAINER && entry.getScope() != ReuseScope.HIERARCHY))) {
+					problems.add("Eager " + key + " has to be CONTAINER or HIERARCHY-scoped without arguments");
+				}
+				entries.add(entry);
 			}
-			return container;
+			if (!problems.isEmpty()) {
+				throw new RegistrationException(problems);
+			}
+			return entries;
+		}
+		
+		/**
+		 * Sets the executor of {@link Container#resolveAsync(String, Class, Object...)}
+		 * and of {@link AsyncFactory asynchronous factories}, the common
+		 * fork-join pool by default. Factories that block on I/O should get an
+		 * executor sized for it.
+		 */
+		public Builder executor(Executor executor) {
+			this.executor = Objects.requireNonNull(executor);
+			return this;
+		}
+		
+		/**
+		 * Makes missing services fail with a {@link ServiceNotFoundException}
+		 * without a stack trace, which costs little more than its allocation.
+		 * Meant for containers whose misses are expected and handled; either
+		 * way the message is only built when it is read.
+		 */
+		public Builder stacklessMisses() {
+			stacklessMisses = true;
+			return this;
+		}
+		
+		/**
+		 * Makes the built container count resolutions, see
+		 * {@link Container#getMetrics()}. Without it resolution does not pay
+		 * for any counting.
+		 */
+		public Builder enableMetrics() {
+			metrics = true;
+			return this;
+		}
+		
+		/**
+		 * Makes the built container emit a JDK Flight Recorder event,
+		 * {@code ru.anisimov.tools.injector.Resolution}, for every resolution
+		 * while a recording has the event enabled. An event carries the
+		 * service, its scope, the depth of the resolving container, whether an
+		 * existing instance was reused, the time spent in the factory and the
+		 * id of the resolution it is nested in, so the resolutions made by
+		 * factories form a tree. Without it, or while no recording is running,
+		 * resolution does not pay for any events. Flight Recorder events need
+		 * Java 17; on older runtimes this does nothing.
+		 */
+		public Builder recordEvents() {
+			return recordEvents(0);
+		}
+		
+		/**
+		 * Records events only for resolutions that take at least the given
+		 * number of microseconds, see {@link #recordEvents()}. A resolution
+		 * takes at least as long as those nested in it, so the recorded ones
+		 * still form trees.
+		 */
+		public Builder recordEvents(long thresholdMicros) {
+			if (thresholdMicros < 0) {
+				throw new IllegalArgumentException("Threshold must not be negative: " + thresholdMicros);
+			}
+			recorder = ResolutionRecorder.create(TimeUnit.MICROSECONDS.toNanos(thresholdMicros));
+			return this;
 		}
 		
 		public <TService> RegistrationInterface register(Class<TService> type, Factory<TService> factory, Class<?>... args) {
@@ -130,26 +1068,172 @@ public class Container {
 			registrations.add(registration);
 			return registration;
 		}
+		
+		/**
+		 * Registers a factory without arguments that
+		 * {@link Container#resolveTyped(Class)} calls directly. The fixed-arity
+		 * factories are registered by their own names, so a lambda passed to
+		 * {@code register} is always a {@link Factory}.
+		 */
+		public <TService> RegistrationInterface registerTyped(Class<TService> type, Factory0<TService> factory) {
+			return register(type, ArityFactory.of(factory));
+		}
+		
+		public <TService, A> RegistrationInterface registerTyped(Class<TService> type, 
+				Factory1<TService, A> factory, Class<A> a) {
+			return register(type, ArityFactory.of(factory), a);
+		}
+		
+		public <TService, A, B> RegistrationInterface registerTyped(Class<TService> type, 
+				Factory2<TService, A, B> factory, Class<A> a, Class<B> b) {
+			return register(type, ArityFactory.of(factory), a, b);
+		}
+		
+		public <TService, A, B, C> RegistrationInterface registerTyped(Class<TService> type, 
+				Factory3<TService, A, B, C> factory, Class<A> a, Class<B> b, Class<C> c) {
+			return register(type, ArityFactory.of(factory), a, b, c);
+		}
+		
+		public <TService, A, B, C, D> RegistrationInterface registerTyped(Class<TService> type, 
+				Factory4<TService, A, B, C, D> factory, Class<A> a, Class<B> b, Class<C> c, Class<D> d) {
+			return register(type, ArityFactory.of(factory), a, b, c, d);
+		}
+		
+		/**
+		 * Registers a factory taking an int, which
+		 * {@link Container#resolveInt(Class, int)} passes without boxing.
+		 */
+		public <TService> RegistrationInterface registerInt(Class<TService> type, IntFactory<TService> factory) {
+			return register(type, ArityFactory.ofInt(factory), int.class);
+		}
+		
+		public <TService> RegistrationInterface registerLong(Class<TService> type, LongFactory<TService> factory) {
+			return register(type, ArityFactory.ofLong(factory), long.class);
+		}
+		
+		public <TService> RegistrationInterface registerBoolean(Class<TService> type, BooleanFactory<TService> factory) {
+			return register(type, ArityFactory.ofBoolean(factory), boolean.class);
+		}
+		
+		public <TService> RegistrationInterface register(Class<TService> type, ContainerAwareFactory<TService> factory, Class<?>... args) {
+			Registration registration = new Registration(type, factory, args);
+			registrations.add(registration);
+			return registration;
+		}
+		
+		public <TService> RegistrationInterface register(Class<TService> type, AsyncFactory<TService> factory, Class<?>... args) {
+			Registration registration = new Registration(type, factory, args);
+			registrations.add(registration);
+			return registration;
+		}
+		
+		/**
+		 * Registers a type that is created with its {@link Inject} constructor,
+		 * or its only public constructor. Parameters are resolved from the
+		 * container, except {@link Argument} ones which become the arguments
+		 * of the registration.
+		 */
+		public <TService> RegistrationInterface registerType(Class<TService> type) {
+			return registerType(type, type);
+		}
+		
+		public <TService> RegistrationInterface registerType(Class<TService> type, 
+				Class<? extends TService> implementation) {
+			ConstructorFactory<TService> factory = ConstructorFactory.<TService>of(implementation);
+			RegistrationInterface registration = register(type, factory, factory.getArgTypes());
+			for (ServiceKey dependency: factory.getDependencies()) {
+				registration.dependsOn(dependency.getName(), dependency.getResultType());
+			}
+			return registration;
+		}
+		
+		/**
+		 * Registers the components listed in the indexes that the annotation
+		 * processor generates along with its module, the
+		 * {@code META-INF/injector/components} resources of the class loader.
+		 * Each index is read in one pass without running generated code; the
+		 * types of the keys are loaded without being initialized, and the
+		 * factories are loaded by class name on their first use. A component
+		 * registered with {@code register} as well, or installed from the
+		 * module, is taken from that registration.
+		 *
+		 * @throws RegistrationException if an index cannot be read or lists a
+		 * class the class loader does not find
+		 */
+		public Builder loadIndex(ClassLoader loader) {
+			indexes.addAll(ComponentIndex.load(loader));
+			return this;
+		}
+		
+		/**
+		 * Loads the indexes of the context class loader of the current thread,
+		 * see {@link #loadIndex(ClassLoader)}.
+		 */
+		public Builder loadIndex() {
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			return loadIndex(loader != null ? loader : Container.class.getClassLoader());
+		}
+		
+		public Builder install(RegistrationModule module) {
+			module.configure(this);
+			return this;
+		}
 	}
 	
 	static class ServiceEntry {
-		private Factory<?> factory;
-		private ReuseScope scope;
-		private Object instance;
+		private static final ServiceKey[] NO_KEYS = new ServiceKey[0];
+		private static final Object CONSTRUCTING = new Object();
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<ServiceEntry, CompletableFuture> PENDING = 
+				AtomicReferenceFieldUpdater.newUpdater(ServiceEntry.class, CompletableFuture.class, "pending");
+		
+		private final Metadata metadata;
+		private volatile Object instance;
 		private Container container;
+		private Thread constructingThread;
+		private long creation;
+		private volatile CompletableFuture<Object> pending;
 		
-		private ServiceEntry(Factory<?> factory) {
-			this.factory = factory;
+		private ServiceEntry(Metadata metadata) {
+			this.metadata = metadata;
+		}
+		
+		/*
+		 * A new registered entry like this one, without instances.
+		 */
+		ServiceEntry renew() {
+			ServiceEntry entry = Builder.newInstance(metadata.factory).
+					reuseScope(metadata.scope).
+					disposer(metadata.disposer).
+					key(metadata.key).
+					cache(metadata.cache != null ? metadata.cache.emptyCopy() : null).
+					threadInstances(metadata.threadInstances != null ? new ThreadLocal<Object>() : null).
+					eager(metadata.eager, metadata.eagerTimeout).build();
+			if (metadata.pool != null) {
+				entry.metadata.pool = metadata.pool.emptyCopy(entry);
+			}
+			entry.metadata.dependencies = metadata.dependencies;
+			return entry;
 		}
 		
+		/*
+		 * A container's own copy of the entry, which shares the metadata of
+		 * the registered one and only adds the slot of its instance.
+		 */
 		public ServiceEntry cloneFor(Container newContainer) {
-			return Builder.newInstance(factory).
-					reuseScope(scope).
-					container(newContainer).build();
+			ServiceEntry entry = new ServiceEntry(metadata);
+			entry.container = newContainer;
+			return entry;
 		}
 		
-		public Factory<?> getFactory() {
-			return factory;
+		void bind(Signature signature, int hash, int index) {
+			metadata.signature = signature;
+			metadata.hash = hash;
+			metadata.index = index;
+		}
+		
+		public ContainerAwareFactory<?> getFactory() {
+			return metadata.factory;
 		}
 
 		public Object getInstance() {
@@ -160,12 +1244,221 @@ public class Container {
 			this.instance = instance;
 		}
 		
+		/*
+		 * Double-checked creation guarded by the entry itself, so factories of
+		 * different entries run concurrently and may resolve each other. A factory
+		 * that needs its own entry again would see the entry locked by its own
+		 * thread, which is reported instead of recursing.
+		 */
+		Object getOrCreateInstance(Container container, Object[] args) throws ResolutionException {
+			Object result = instance;
+			return result != null ? result : createInstance(container, args, null);
+		}
+		
+		Object getOrCreateInstance(Container container, Object[] args, 
+				ResolutionObserver observer) throws ResolutionException {
+			Object result = instance;
+			if (result != null) {
+				observer.cacheHit();
+				return result;
+			}
+			return createInstance(container, args, observer);
+		}
+		
+		private synchronized Object createInstance(Container container, Object[] args, 
+				ResolutionObserver observer) throws ResolutionException {
+			Object result = instance;
+			if (result != null) {
+				if (observer != null) {
+					observer.cacheHit();
+				}
+				return result;
+			}
+			if (constructingThread == Thread.currentThread()) {
+				throw new ResolutionException("Circular dependency");
+			}
+			if (container.isClosed()) {
+				throw new ResolutionException("Container is closed");
+			}
+			constructingThread = Thread.currentThread();
+			try {
+				long start = observer != null ? System.nanoTime() : 0;
+				result = metadata.factory.newInstance(container, args);
+				if (observer != null) {
+					observer.factoryInvoked(System.nanoTime() - start);
+				}
+				creation = container.getRegistry().nextCreation();
+				instance = result;
+			} finally {
+				constructingThread = null;
+			}
+			return result;
+		}
+		
+		/*
+		 * THREAD-scoped instances are plain thread locals; while the factory
+		 * runs the slot holds a marker, so a factory that needs its own entry
+		 * on the same thread is reported instead of recursing.
+		 */
+		Object getOrCreateThreadInstance(Container container, Object[] args, 
+				ResolutionObserver observer) throws ResolutionException {
+			Object result = metadata.threadInstances.get();
+			if (result != null && result != CONSTRUCTING) {
+				if (observer != null) {
+					observer.cacheHit();
+				}
+				return result;
+			}
+			if (result == CONSTRUCTING) {
+				throw new ResolutionException("Circular dependency");
+			}
+			if (container.isClosed()) {
+				throw new ResolutionException("Container is closed");
+			}
+			metadata.threadInstances.set(CONSTRUCTING);
+			try {
+				long start = observer != null ? System.nanoTime() : 0;
+				result = metadata.factory.newInstance(container, args);
+				if (observer != null) {
+					observer.factoryInvoked(System.nanoTime() - start);
+				}
+			} finally {
+				metadata.threadInstances.remove();
+			}
+			metadata.threadInstances.set(result);
+			return result;
+		}
+		
+		/*
+		 * Stores an instance built outside of getOrCreateInstance, unless one
+		 * was stored meanwhile, and returns the stored one. A candidate that
+		 * lost to a stored instance is disposed outside the lock, dropping
+		 * failures to dispose it since its caller gets the stored one.
+		 */
+		Object publish(Container container, Object candidate) {
+			Object published;
+			synchronized (this) {
+				if (instance == null) {
+					creation = container.getRegistry().nextCreation();
+					instance = candidate;
+					return candidate;
+				}
+				published = instance;
+			}
+			if (published != candidate) {
+				Container.dispose(this, candidate, null);
+			}
+			return published;
+		}
+		
+		/*
+		 * Future of an asynchronous resolution of the instance in progress.
+		 */
+		CompletableFuture<Object> getPending() {
+			return pending;
+		}
+		
+		boolean startPending(CompletableFuture<Object> future) {
+			return PENDING.compareAndSet(this, null, future);
+		}
+		
+		void clearPending(CompletableFuture<Object> future) {
+			PENDING.compareAndSet(this, future, null);
+		}
+		
+		/*
+		 * Takes the instance away from the entry, so it is disposed at most
+		 * once and can be collected.
+		 */
+		synchronized Object release() {
+			Object result = instance;
+			instance = null;
+			return result;
+		}
+		
+		@SuppressWarnings("unchecked")
+		void dispose(Object instance) throws Exception {
+			if (metadata.disposer != null) {
+				((Disposer<Object>) metadata.disposer).dispose(instance);
+			} else if (instance instanceof AutoCloseable) {
+				((AutoCloseable) instance).close();
+			}
+		}
+		
+		/*
+		 * Records the creation of an instance held by the cache or pool of
+		 * the entry, which are disposed together as of the latest one.
+		 */
+		synchronized void created(Container container) {
+			creation = container.getRegistry().nextCreation();
+		}
+		
+		/*
+		 * Order in which the instance was created within the hierarchy.
+		 */
+		synchronized long getCreation() {
+			return creation;
+		}
+		
 		public ReuseScope getScope() {
-			return scope;
+			return metadata.scope;
 		}
 		
 		private void setScope(ReuseScope scope) {
-			this.scope = scope;
+			metadata.scope = scope;
+		}
+		
+		public ServiceKey getKey() {
+			return metadata.key;
+		}
+		
+		private void setKey(ServiceKey key) {
+			metadata.key = key;
+		}
+		
+		/*
+		 * Instances of an ARGUMENTS-scoped entry, null for other scopes.
+		 */
+		ArgumentCache getCache() {
+			return metadata.cache;
+		}
+		
+		/*
+		 * Pool of a POOLED entry, null for other scopes.
+		 */
+		InstancePool getPool() {
+			return metadata.pool;
+		}
+		
+		/*
+		 * Whether Container.warmUp builds the entry, and how long it waits
+		 * for it in nanoseconds, zero for no limit.
+		 */
+		boolean isEager() {
+			return metadata.eager;
+		}
+		
+		long getEagerTimeout() {
+			return metadata.eagerTimeout;
+		}
+		
+		Signature getSignature() {
+			return metadata.signature;
+		}
+		
+		ServiceKey[] getDependencies() {
+			return metadata.dependencies;
+		}
+		
+		/*
+		 * Position of the entry in the registry it was built into.
+		 */
+		int getIndex() {
+			return metadata.index;
+		}
+		
+		int getHash() {
+			return metadata.hash;
 		}
 		
 		public Container getContainer() {
@@ -179,11 +1472,11 @@ public class Container {
 		public static class Builder implements ru.anisimov.tools.injector.Builder<ServiceEntry> {
 			private ServiceEntry entry;
 			
-			private	Builder(Factory<?> factory) {
-				entry = new ServiceEntry(factory);
+			private	Builder(ContainerAwareFactory<?> factory) {
+				entry = new ServiceEntry(new Metadata(factory));
 			}
 			
-			public static Builder newInstance(Factory<?> factory) {
+			public static Builder newInstance(ContainerAwareFactory<?> factory) {
 				return new Builder(factory);
 			}
 			
@@ -192,11 +1485,47 @@ public class Container {
 				return this;
 			}
 			
+			public Builder disposer(Disposer<?> disposer) {
+				entry.metadata.disposer = disposer;
+				return this;
+			}
+			
+			public Builder cache(ArgumentCache cache) {
+				entry.metadata.cache = cache;
+				return this;
+			}
+			
+			public Builder threadInstances(ThreadLocal<Object> threadInstances) {
+				entry.metadata.threadInstances = threadInstances;
+				return this;
+			}
+			
+			public Builder pool(boolean pooled, int keepIdle, int maxSize, long idleTimeout, Resetter<?> resetter) {
+				entry.metadata.pool = pooled ? new InstancePool(entry, keepIdle, maxSize, idleTimeout, resetter) : null;
+				return this;
+			}
+			
+			public Builder eager(boolean eager, long timeoutNanos) {
+				entry.metadata.eager = eager;
+				entry.metadata.eagerTimeout = timeoutNanos;
+				return this;
+			}
+			
 			public Builder instance(Object instance) {
 				entry.setInstance(instance);
 				return this;
 			}
 			
+			public Builder key(ServiceKey key) {
+				entry.setKey(key);
+				return this;
+			}
+			
+			public Builder dependencies(List<ServiceKey> dependencies) {
+				entry.metadata.dependencies = dependencies.toArray(NO_KEYS);
+				return this;
+			}
+			
 			public Builder container(Container container) {
 				entry.setContainer(container);
 				return this;
@@ -207,6 +1536,31 @@ public class Container {
 				return entry;
 			}
 		}
+		
+		/*
+		 * What a registered entry shares with the copies containers make of
+		 * it. Set while the entry is built and bound to its registry, then
+		 * only read.
+		 */
+		private static final class Metadata {
+			private final ContainerAwareFactory<?> factory;
+			private ReuseScope scope;
+			private ServiceKey key;
+			private ServiceKey[] dependencies = NO_KEYS;
+			private Disposer<?> disposer;
+			private ArgumentCache cache;
+			private ThreadLocal<Object> threadInstances;
+			private InstancePool pool;
+			private boolean eager;
+			private long eagerTimeout;
+			private Signature signature;
+			private int hash;
+			private int index;
+			
+			Metadata(ContainerAwareFactory<?> factory) {
+				this.factory = factory;
+			}
+		}
 	}
 	
 	static class ServiceKey {
@@ -242,6 +1596,33 @@ public class Container {
 		public void setName(String name) {
 			this.name = name;
 		}
+		
+		/*
+		 * Makes the key share the argument types interned by its registry,
+		 * and the interned copy of its name, instead of holding its own.
+		 */
+		void intern(Class<?>[] argTypes) {
+			this.argTypes = argTypes;
+			if (name != null) {
+				name = name.intern();
+			}
+		}
+		
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder(resultType.getName());
+			if (argTypes.length > 0) {
+				result.append('(');
+				for (int i = 0; i < argTypes.length; i++) {
+					result.append(i > 0 ? ", " : "").append(argTypes[i].getName());
+				}
+				result.append(')');
+			}
+			if (name != null) {
+				result.append(" named \"").append(name).append('"');
+			}
+			return result.toString();
+		}
 
 		@Override
 		public boolean equals(Object obj) {
@@ -0,0 +1,12 @@
+package ru.anisimov.tools.injector;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Factory that resolves its dependencies from the container it is invoked
+ * for: the resolving container for NONE scope, the owning container for
+ * CONTAINER scope and the root container for HIERARCHY scope.
+ */
+public interface ContainerAwareFactory<T> {
+	T newInstance(Container container, Object... args) throws ResolutionException;
+}
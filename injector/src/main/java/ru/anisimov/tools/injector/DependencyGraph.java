@@ -0,0 +1,147 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+
+/**
+ * Declared dependencies between the entries of a registry, by entry index.
+ * <p>
+ * Built with one iterative depth-first pass, so checking a graph is linear in
+ * the number of entries and dependencies and does not depend on the stack
+ * size. The pass reports missing dependencies and cycles and yields a
+ * topological order with dependencies before their dependents.
+ */
+final class DependencyGraph {
+	private static final int[] NO_DEPENDENCIES = new int[0];
+	private static final ServiceKey[] NO_KEYS = new ServiceKey[0];
+	private static final int MAX_REPORTED_CYCLES = 16;
+	
+	private static final byte UNVISITED = 0;
+	private static final byte IN_PROGRESS = 1;
+	private static final byte DONE = 2;
+	
+	private final int[][] dependencies;
+	private final int[] order;
+	
+	private DependencyGraph(int[][] dependencies, int[] order) {
+		this.dependencies = dependencies;
+		this.order = order;
+	}
+	
+	static DependencyGraph build(Registry registry) {
+		ServiceEntry[] entries = registry.entries();
+		List<String> problems = new ArrayList<>();
+		int[][] dependencies = new int[entries.length][];
+		for (int i = 0; i < entries.length; i++) {
+			ServiceKey[] keys = entries[i] != null ? entries[i].getDependencies() : NO_KEYS;
+			if (keys.length == 0) {
+				dependencies[i] = NO_DEPENDENCIES;
+				continue;
+			}
+			int[] targets = new int[keys.length];
+			int count = 0;
+			for (ServiceKey key: keys) {
+				ServiceEntry target = registry.lookup(key.getResultType(), key.getName(), Signature.EMPTY);
+				if (target == null) {
+					problems.add("Missing " + key + ", required by " + entries[i].getKey());
+				} else {
+					targets[count++] = target.getIndex();
+				}
+			}
+			dependencies[i] = count == targets.length ? targets : Arrays.copyOf(targets, count);
+		}
+		
+		int[] order = sort(entries, dependencies, problems);
+		if (!problems.isEmpty()) {
+			throw new RegistrationException(problems);
+		}
+		return new DependencyGraph(dependencies, order);
+	}
+	
+	int[] dependenciesOf(int index) {
+		return dependencies[index];
+	}
+	
+	/*
+	 * Entry indices with every entry after the entries it depends on.
+	 */
+	int[] order() {
+		return order;
+	}
+	
+	int size() {
+		return dependencies.length;
+	}
+	
+	long estimatedBytes() {
+		long result = Footprint.objectBytes(2, 0) + Footprint.arrayBytes(dependencies.length, 4) + 
+				Footprint.arrayBytes(order.length, 4);
+		for (int[] direct: dependencies) {
+			if (direct.length > 0) {
+				result += Footprint.arrayBytes(direct.length, 4);
+			}
+		}
+		return result;
+	}
+	
+	private static int[] sort(ServiceEntry[] entries, int[][] dependencies, List<String> problems) {
+		int size = dependencies.length;
+		byte[] state = new byte[size];
+		int[] stack = new int[size];
+		int[] edge = new int[size];
+		int[] stackPosition = new int[size];
+		int[] order = new int[size];
+		int ordered = 0;
+		int cycles = 0;
+		
+		for (int root = 0; root < size; root++) {
+			if (state[root] != UNVISITED) {
+				continue;
+			}
+			int top = 0;
+			stack[0] = root;
+			edge[0] = 0;
+			stackPosition[root] = 0;
+			state[root] = IN_PROGRESS;
+			while (top >= 0) {
+				int node = stack[top];
+				int[] targets = dependencies[node];
+				if (edge[top] < targets.length) {
+					int next = targets[edge[top]++];
+					if (state[next] == UNVISITED) {
+						top++;
+						stack[top] = next;
+						edge[top] = 0;
+						stackPosition[next] = top;
+						state[next] = IN_PROGRESS;
+					} else if (state[next] == IN_PROGRESS) {
+						if (cycles++ < MAX_REPORTED_CYCLES) {
+							problems.add(cycle(entries, stack, stackPosition[next], top));
+						}
+					}
+				} else {
+					state[node] = DONE;
+					order[ordered++] = node;
+					top--;
+				}
+			}
+		}
+		if (cycles > MAX_REPORTED_CYCLES) {
+			problems.add("and " + (cycles - MAX_REPORTED_CYCLES) + " more cycles");
+		}
+		return order;
+	}
+	
+	private static String cycle(ServiceEntry[] entries, int[] stack, int from, int to) {
+		StringBuilder result = new StringBuilder("Cycle: ");
+		for (int i = from; i <= to; i++) {
+			result.append(entries[stack[i]].getKey()).append(" -> ");
+		}
+		return result.append(entries[stack[from]].getKey()).toString();
+	}
+}
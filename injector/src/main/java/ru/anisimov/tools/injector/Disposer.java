@@ -0,0 +1,9 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Releases a CONTAINER or HIERARCHY-scoped instance when the container that
+ * owns it is closed.
+ */
+public interface Disposer<T> {
+	void dispose(T instance) throws Exception;
+}
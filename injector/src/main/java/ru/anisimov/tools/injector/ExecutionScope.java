@@ -0,0 +1,145 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.DisposalException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Holds the EXECUTION-scoped instances of one unit of work, such as a request
+ * or a task on a virtual thread.
+ * <p>
+ * A scope is bound to the current thread only while {@link #call(Callable)}
+ * or {@link #run(Runnable)} runs, like a scoped value: the thread keeps a
+ * single reference to the scope, which is removed on exit, and the instances
+ * stay with the scope. A scope may be entered again later, from any thread,
+ * but must not be entered by several threads at once. Closing the scope
+ * disposes its instances in reverse creation order.
+ */
+public final class ExecutionScope implements AutoCloseable {
+	private static final ThreadLocal<ExecutionScope> CURRENT = new ThreadLocal<>();
+	private static final Object CONSTRUCTING = new Object();
+	private static final Object NULL = new Object();
+	
+	private final Map<ServiceEntry, Object> instances = new IdentityHashMap<>();
+	private final List<ServiceEntry> created = new ArrayList<>();
+	private boolean closed;
+	
+	public <T> T call(Callable<T> task) throws Exception {
+		ExecutionScope previous = enter();
+		try {
+			return task.call();
+		} finally {
+			exit(previous);
+		}
+	}
+	
+	public void run(Runnable task) {
+		ExecutionScope previous = enter();
+		try {
+			task.run();
+		} finally {
+			exit(previous);
+		}
+	}
+	
+	/**
+	 * Returns the scope the current thread runs in, or null.
+	 */
+	public static ExecutionScope currentOrNull() {
+		return CURRENT.get();
+	}
+	
+	static ExecutionScope current() throws ResolutionException {
+		ExecutionScope scope = CURRENT.get();
+		if (scope == null) {
+			throw new ResolutionException("No execution scope");
+		}
+		return scope;
+	}
+	
+	/*
+	 * While the factory runs the entry maps to a marker, so a factory that
+	 * needs its own entry is reported instead of recursing. A null instance
+	 * is kept as another marker, so it is created once per scope as well.
+	 */
+	Object getOrCreate(ServiceEntry entry, Container container, Object[] args,
+			ResolutionObserver observer) throws ResolutionException {
+		Object result = instances.get(entry);
+		if (result == CONSTRUCTING) {
+			throw new ResolutionException("Circular dependency");
+		}
+		if (result != null) {
+			if (observer != null) {
+				observer.cacheHit();
+			}
+			return result != NULL ? result : null;
+		}
+		if (closed) {
+			throw new ResolutionException("Execution scope is closed");
+		}
+		if (container.isClosed()) {
+			throw new ResolutionException("Container is closed");
+		}
+		instances.put(entry, CONSTRUCTING);
+		try {
+			long start = observer != null ? System.nanoTime() : 0;
+			result = entry.getFactory().newInstance(container, args);
+			if (observer != null) {
+				observer.factoryInvoked(System.nanoTime() - start);
+			}
+		} finally {
+			instances.remove(entry);
+		}
+		instances.put(entry, result != null ? result : NULL);
+		created.add(entry);
+		return result;
+	}
+	
+	/**
+	 * Disposes the instances of this scope, see
+	 * {@link Container#close()} for how an instance is disposed. Closing again
+	 * does nothing.
+	 *
+	 * @throws DisposalException if disposing any instance failed
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		DisposalException failure = null;
+		for (int i = created.size() - 1; i >= 0; i--) {
+			ServiceEntry entry = created.get(i);
+			Object instance = instances.get(entry);
+			if (instance != NULL) {
+				failure = Container.dispose(entry, instance, failure);
+			}
+		}
+		instances.clear();
+		created.clear();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	private ExecutionScope enter() {
+		ExecutionScope previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+	
+	private static void exit(ExecutionScope previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration without arguments, see {@link Factory1}.
+ */
+public interface Factory0<T> {
+	T newInstance();
+}
@@ -0,0 +1,10 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with one argument. Unlike {@link Factory}, it is
+ * called with its argument as is, so resolving it with
+ * {@link Container#resolveTyped(Class, Object)} allocates nothing on the way.
+ */
+public interface Factory1<T, A> {
+	T newInstance(A a);
+}
@@ -0,0 +1,8 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with two arguments, see {@link Factory1}.
+ */
+public interface Factory2<T, A, B> {
+	T newInstance(A a, B b);
+}
@@ -0,0 +1,8 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with three arguments, see {@link Factory1}.
+ */
+public interface Factory3<T, A, B, C> {
+	T newInstance(A a, B b, C c);
+}
@@ -0,0 +1,8 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with four arguments, see {@link Factory1}.
+ */
+public interface Factory4<T, A, B, C, D> {
+	T newInstance(A a, B b, C c, D d);
+}
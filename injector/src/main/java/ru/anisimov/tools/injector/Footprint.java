@@ -0,0 +1,120 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * What a container holds, see {@link Container#footprint()}.
+ * <p>
+ * Byte counts are estimates of the injector's own objects for a 64-bit JVM
+ * with compressed oops: 12 byte object headers, 16 byte array headers, 4
+ * byte references and sizes aligned to 8 bytes. They leave out the services
+ * themselves, whose size the container does not know, THREAD and
+ * EXECUTION-scoped instances, which belong to threads and executions,
+ * interned names, and what memoized lookups and compiled resolvers add.
+ */
+public final class Footprint {
+	/*
+	 * A container: a header and six references.
+	 */
+	static final int CONTAINER_BYTES = objectBytes(6, 0);
+	/*
+	 * The slot of an entry: metadata, instance, container, constructing
+	 * thread and pending references and the creation order.
+	 */
+	static final int ENTRY_BYTES = objectBytes(5, 8);
+	/*
+	 * Shared metadata of a registered entry: nine references, the eager
+	 * timeout, hash, index and eager flag.
+	 */
+	static final int METADATA_BYTES = objectBytes(9, 17);
+	static final int KEY_BYTES = objectBytes(3, 0);
+	/*
+	 * A cached ARGUMENTS-scoped instance: the cache node, its map node and
+	 * its node in the eviction queue.
+	 */
+	static final int ARGUMENT_NODE_BYTES = objectBytes(3, 9) + objectBytes(3, 4) + objectBytes(2, 0);
+	
+	private final int registrations;
+	private final int containerEntries;
+	private final int cachedInstances;
+	private final long estimatedBytes;
+	private final long registryBytes;
+	
+	Footprint(int registrations, int containerEntries, int cachedInstances, 
+			long estimatedBytes, long registryBytes) {
+		this.registrations = registrations;
+		this.containerEntries = containerEntries;
+		this.cachedInstances = cachedInstances;
+		this.estimatedBytes = estimatedBytes;
+		this.registryBytes = registryBytes;
+	}
+	
+	/**
+	 * Registrations of the hierarchy, which all its containers share.
+	 */
+	public int getRegistrations() {
+		return registrations;
+	}
+	
+	/**
+	 * CONTAINER-scoped services the container has its own entry for.
+	 */
+	public int getContainerEntries() {
+		return containerEntries;
+	}
+	
+	/**
+	 * Instances the container keeps: its CONTAINER-scoped ones and, for the
+	 * root, the HIERARCHY-scoped, cached ARGUMENTS-scoped and idle POOLED
+	 * ones.
+	 */
+	public int getCachedInstances() {
+		return cachedInstances;
+	}
+	
+	/**
+	 * Bytes the container retains besides its instances, including the
+	 * registry for the root.
+	 */
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+	
+	/**
+	 * Bytes of the registry shared by the hierarchy, counted in the estimate
+	 * of the root only.
+	 */
+	public long getRegistryBytes() {
+		return registryBytes;
+	}
+	
+	@Override
+	public String toString() {
+		return "registrations=" + registrations + ", containerEntries=" + containerEntries + 
+				", cachedInstances=" + cachedInstances + ", estimatedBytes=" + estimatedBytes + 
+				", registryBytes=" + registryBytes;
+	}
+	
+	static int objectBytes(int references, int primitiveBytes) {
+		return (int) align(12 + 4 * references + primitiveBytes);
+	}
+	
+	static long arrayBytes(int length, int elementBytes) {
+		return align(16 + (long) length * elementBytes);
+	}
+	
+	/*
+	 * A hash map of the given size with its default load factor: the map,
+	 * its table and a node of a hash, key, value and next reference per
+	 * mapping.
+	 */
+	static long mapBytes(int size) {
+		int capacity = 16;
+		while (capacity * 3 / 4 < size) {
+			capacity *= 2;
+		}
+		return objectBytes(6, 16) + arrayBytes(capacity, 4) + (long) size * objectBytes(3, 4);
+	}
+	
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
@@ -0,0 +1,222 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Instances of a POOLED entry.
+ * <p>
+ * A semaphore with one permit per leased instance bounds the leases; a
+ * lease that finds no permit waits for one. Returned instances give their
+ * permit back and sit idle in an array of as many slots as there are
+ * permits, which threads take from and put into with compare and set,
+ * starting at a slot picked by thread, so borrowing and returning do not
+ * lock. Instances are only created by leases that find no idle one.
+ * <p>
+ * Idle instances are evicted when leases are returned, at most every half of
+ * the idle timeout, down to the number the pool keeps idle. That number is a
+ * floor for eviction only: the pool is not filled up to it, and a pool that
+ * is not used is not swept.
+ * <p>
+ * Instances leave the pool when they are evicted, invalidated, fail their
+ * reset or come back after the pool was closed. They are disposed then, and
+ * failures to dispose them are dropped since no caller waits for them.
+ */
+final class InstancePool {
+	static final int DEFAULT_MAXIMUM_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+	
+	private final ServiceEntry entry;
+	private final int keepIdle;
+	private final long idleTimeout;
+	private final Resetter<Object> resetter;
+	private final Semaphore permits;
+	private final AtomicReferenceArray<Idle> slots;
+	private final AtomicInteger idle = new AtomicInteger();
+	private final LongAdder leases = new LongAdder();
+	private final LongAdder creations = new LongAdder();
+	private final LongAdder waits = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private volatile long nextEviction;
+	private volatile boolean closed;
+	
+	/*
+	 * An idle timeout of zero keeps idle instances until the pool is closed.
+	 */
+	@SuppressWarnings("unchecked")
+	InstancePool(ServiceEntry entry, int keepIdle, int maxSize, long idleTimeoutNanos, Resetter<?> resetter) {
+		if (maxSize < 1 || keepIdle < 0 || keepIdle > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: " + keepIdle + ".." + maxSize);
+		}
+		this.entry = entry;
+		this.keepIdle = keepIdle;
+		this.idleTimeout = idleTimeoutNanos;
+		this.resetter = (Resetter<Object>) resetter;
+		this.permits = new Semaphore(maxSize);
+		this.slots = new AtomicReferenceArray<>(maxSize);
+		this.nextEviction = System.nanoTime();
+	}
+	
+	Object borrow(Container container, Object[] args,
+			ResolutionObserver observer) throws ResolutionException {
+		if (closed) {
+			throw new ResolutionException("Container is closed");
+		}
+		if (!permits.tryAcquire()) {
+			waits.increment();
+			long start = System.nanoTime();
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ResolutionException("Interrupted while waiting for " + entry.getKey(), e);
+			}
+			waitNanos.add(System.nanoTime() - start);
+		}
+		leases.increment();
+		Idle result = take();
+		if (result != null) {
+			if (observer != null) {
+				observer.cacheHit();
+			}
+			return result.instance;
+		}
+		try {
+			if (container.isClosed()) {
+				throw new ResolutionException("Container is closed");
+			}
+			long start = System.nanoTime();
+			Object instance = entry.getFactory().newInstance(container, args);
+			if (observer != null) {
+				observer.factoryInvoked(System.nanoTime() - start);
+			}
+			entry.created(container);
+			creations.increment();
+			return instance;
+		} catch (ResolutionException | RuntimeException | Error e) {
+			permits.release();
+			throw e;
+		}
+	}
+	
+	void release(Object instance, boolean discard) {
+		try {
+			if (!discard && resetter != null) {
+				try {
+					resetter.reset(instance);
+				} catch (Exception e) {
+					discard = true;
+				}
+			}
+			if (discard || closed || !put(new Idle(instance, System.nanoTime()))) {
+				Container.dispose(entry, instance, null);
+			} else if (closed) {
+				for (Object drained: close()) {
+					Container.dispose(entry, drained, null);
+				}
+			}
+		} finally {
+			permits.release();
+		}
+		if (idleTimeout != 0 && System.nanoTime() - nextEviction >= 0) {
+			evict();
+		}
+	}
+	
+	/*
+	 * A new, empty pool of the given entry with the same settings.
+	 */
+	InstancePool emptyCopy(ServiceEntry entry) {
+		return new InstancePool(entry, keepIdle, slots.length(), idleTimeout, resetter);
+	}
+	
+	PoolStats stats() {
+		int maxSize = slots.length();
+		return new PoolStats(leases.sum(), creations.sum(), waits.sum(), waitNanos.sum(),
+				evictions.sum(), idle.get(), maxSize - permits.availablePermits(), maxSize);
+	}
+	
+	/*
+	 * Stops pooling and returns the idle instances; instances still leased
+	 * are disposed when they are returned.
+	 */
+	List<Object> close() {
+		closed = true;
+		List<Object> result = new ArrayList<>();
+		for (int i = 0; i < slots.length(); i++) {
+			Idle current = slots.getAndSet(i, null);
+			if (current != null) {
+				idle.decrementAndGet();
+				result.add(current.instance);
+			}
+		}
+		return result;
+	}
+	
+	private Idle take() {
+		int length = slots.length();
+		int start = start(length);
+		for (int i = 0; i < length; i++) {
+			int index = (start + i) % length;
+			Idle current = slots.get(index);
+			if (current != null && slots.compareAndSet(index, current, null)) {
+				idle.decrementAndGet();
+				return current;
+			}
+		}
+		return null;
+	}
+	
+	/*
+	 * Returned instances never outnumber the slots, so a free slot exists
+	 * unless other threads keep taking the ones this thread has passed.
+	 */
+	private boolean put(Idle instance) {
+		int length = slots.length();
+		int start = start(length);
+		for (int i = 0; i < 2 * length; i++) {
+			int index = (start + i) % length;
+			if (slots.get(index) == null && slots.compareAndSet(index, null, instance)) {
+				idle.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private void evict() {
+		long now = System.nanoTime();
+		nextEviction = now + idleTimeout / 2;
+		for (int i = 0; i < slots.length() && idle.get() > keepIdle; i++) {
+			Idle current = slots.get(i);
+			if (current != null && now - current.returned > idleTimeout &&
+					slots.compareAndSet(i, current, null)) {
+				idle.decrementAndGet();
+				evictions.increment();
+				Container.dispose(entry, current.instance, null);
+			}
+		}
+	}
+	
+	private static int start(int length) {
+		long id = Thread.currentThread().getId();
+		return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % length;
+	}
+	
+	private static final class Idle {
+		private final Object instance;
+		private final long returned;
+		
+		Idle(Object instance, long returned) {
+			this.instance = instance;
+			this.returned = returned;
+		}
+	}
+}
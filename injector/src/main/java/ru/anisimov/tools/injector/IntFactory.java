@@ -0,0 +1,9 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with a single int argument, which
+ * {@link Container#resolveInt(Class, int)} passes without boxing.
+ */
+public interface IntFactory<T> {
+	T newInstance(int value);
+}
@@ -0,0 +1,12 @@
+package ru.anisimov.tools.injector;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Resolves a service on first use and returns the same instance afterwards.
+ * Injected for constructor parameters of type {@code Lazy<T>} instead of the
+ * service itself.
+ */
+public interface Lazy<T> {
+	T get() throws ResolutionException;
+}
@@ -0,0 +1,27 @@
+package ru.anisimov.tools.injector;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+final class LazyReference<T> implements Lazy<T> {
+	private final Provider<T> provider;
+	private volatile T instance;
+	
+	LazyReference(Provider<T> provider) {
+		this.provider = provider;
+	}
+	
+	@Override
+	public T get() throws ResolutionException {
+		T result = instance;
+		if (result == null) {
+			synchronized (this) {
+				result = instance;
+				if (result == null) {
+					result = provider.get();
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,43 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * A POOLED instance borrowed with {@link Container#lease(String, Class, Object...)}.
+ * Closing the lease resets the instance and returns it to the pool; a lease
+ * is meant for a try-with-resources block on one thread.
+ */
+public final class Lease<T> implements AutoCloseable {
+	private final InstancePool pool;
+	private final T instance;
+	private boolean closed;
+	
+	Lease(InstancePool pool, T instance) {
+		this.pool = pool;
+		this.instance = instance;
+	}
+	
+	public T get() {
+		if (closed) {
+			throw new IllegalStateException("Lease is closed");
+		}
+		return instance;
+	}
+	
+	/**
+	 * Ends the lease and disposes the instance instead of returning it, for
+	 * instances left in a broken state.
+	 */
+	public void invalidate() {
+		if (!closed) {
+			closed = true;
+			pool.release(instance, true);
+		}
+	}
+	
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			pool.release(instance, false);
+		}
+	}
+}
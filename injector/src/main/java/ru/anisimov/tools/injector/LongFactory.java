@@ -0,0 +1,9 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Factory of a registration with a single long argument, which
+ * {@link Container#resolveLong(Class, long)} passes without boxing.
+ */
+public interface LongFactory<T> {
+	T newInstance(long value);
+}
@@ -0,0 +1,80 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Counters of the pool of a POOLED registration, see
+ * {@link Container#poolStats(String, Class, Class...)}.
+ */
+public final class PoolStats {
+	private final long leases;
+	private final long creations;
+	private final long waits;
+	private final long waitNanos;
+	private final long evictions;
+	private final int idle;
+	private final int inUse;
+	private final int maxSize;
+	
+	PoolStats(long leases, long creations, long waits, long waitNanos, long evictions, 
+			int idle, int inUse, int maxSize) {
+		this.leases = leases;
+		this.creations = creations;
+		this.waits = waits;
+		this.waitNanos = waitNanos;
+		this.evictions = evictions;
+		this.idle = idle;
+		this.inUse = inUse;
+		this.maxSize = maxSize;
+	}
+	
+	public long getLeases() {
+		return leases;
+	}
+	
+	public long getCreations() {
+		return creations;
+	}
+	
+	/**
+	 * Leases that had to wait for an instance to be returned.
+	 */
+	public long getWaits() {
+		return waits;
+	}
+	
+	public long getWaitNanos() {
+		return waitNanos;
+	}
+	
+	/**
+	 * Idle instances disposed after the idle timeout.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+	
+	public int getIdle() {
+		return idle;
+	}
+	
+	public int getInUse() {
+		return inUse;
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * Share of the maximum size leased right now.
+	 */
+	public double getUtilization() {
+		return (double) inUse / maxSize;
+	}
+	
+	@Override
+	public String toString() {
+		return "leases=" + leases + ", creations=" + creations + ", waits=" + waits + 
+				", waitNanos=" + waitNanos + ", evictions=" + evictions + ", idle=" + idle + 
+				", inUse=" + inUse + ", maxSize=" + maxSize;
+	}
+}
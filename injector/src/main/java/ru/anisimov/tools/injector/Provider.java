@@ -0,0 +1,11 @@
+package ru.anisimov.tools.injector;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Resolves a service on demand. Injected for constructor parameters of type
+ * {@code Provider<T>} instead of the service itself.
+ */
+public interface Provider<T> {
+	T get() throws ResolutionException;
+}
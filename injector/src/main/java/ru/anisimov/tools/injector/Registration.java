@@ -1,17 +1,43 @@
 package ru.anisimov.tools.injector;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
 import ru.anisimov.tools.injector.syntax.registration.RegistrationInterface;
-import ru.anisimov.tools.injector.syntax.registration.ReusedWithin;
 
 public class Registration implements RegistrationInterface {
 	private String serviceName;
 	private Class<?> serviceType; 
-	private Factory<?> factory;
+	private ContainerAwareFactory<?> factory;
 	private Class<?>[] args;
 	private ReuseScope reuseScope;
+	private List<ServiceKey> dependencies = new ArrayList<>();
+	private Disposer<?> disposer;
+	private int maximumSize = ArgumentCache.DEFAULT_MAXIMUM_SIZE;
+	private long timeToLive;
+	private int keepIdle;
+	private int maxPoolSize = InstancePool.DEFAULT_MAXIMUM_SIZE;
+	private long idleTimeout;
+	private Resetter<?> resetter;
+	private boolean eager;
+	private long eagerTimeout;
 	
 	<TService> Registration(Class<TService> type, 
 			Factory<TService> factory, Class<?>... args) {
+		this(type, new PlainFactory<>(factory), args);
+	}
+	
+	<TService> Registration(Class<TService> type, 
+			AsyncFactory<TService> factory, Class<?>... args) {
+		this(type, new AsynchronousFactory<>(factory), args);
+	}
+	
+	<TService> Registration(Class<TService> type, 
+			ContainerAwareFactory<TService> factory, Class<?>... args) {
 		this.serviceName = null;
 		this.reuseScope = ReuseScope.NONE;
 		this.serviceType = type;
@@ -20,17 +46,81 @@ public class Registration implements RegistrationInterface {
 	}
 	
 	@Override
-	public ReusedWithin<?> named(String name) {
+	public RegistrationInterface named(String name) {
 		serviceName = name;
 		return this;
 	}
 	
 	@Override
-	public Object reusedWithin(ReuseScope scope) {
+	public RegistrationInterface reusedWithin(ReuseScope scope) {
 		reuseScope = scope;
-		return null;
+		return this;
+	}
+	
+	@Override
+	public RegistrationInterface dependsOn(Class<?> type) {
+		return dependsOn(null, type);
+	}
+	
+	@Override
+	public RegistrationInterface dependsOn(String name, Class<?> type) {
+		ServiceKey key = new ServiceKey(type);
+		key.setName(name);
+		dependencies.add(key);
+		return this;
+	}
+	
+	@Override
+	public <TService> RegistrationInterface disposedWith(Disposer<TService> disposer) {
+		this.disposer = disposer;
+		return this;
 	}
 
+	@Override
+	public RegistrationInterface boundedTo(int maximumSize) {
+		this.maximumSize = maximumSize;
+		return this;
+	}
+	
+	@Override
+	public RegistrationInterface boundedTo(int maximumSize, long timeToLive, TimeUnit unit) {
+		this.maximumSize = maximumSize;
+		this.timeToLive = unit.toNanos(timeToLive);
+		return this;
+	}
+	
+	@Override
+	public RegistrationInterface pooledWithin(int keepIdle, int maxSize) {
+		return pooledWithin(keepIdle, maxSize, 0, TimeUnit.NANOSECONDS);
+	}
+	
+	@Override
+	public RegistrationInterface pooledWithin(int keepIdle, int maxSize, long idleTimeout, TimeUnit unit) {
+		this.reuseScope = ReuseScope.POOLED;
+		this.keepIdle = keepIdle;
+		this.maxPoolSize = maxSize;
+		this.idleTimeout = unit.toNanos(idleTimeout);
+		return this;
+	}
+	
+	@Override
+	public <TService> RegistrationInterface resetWith(Resetter<TService> resetter) {
+		this.resetter = resetter;
+		return this;
+	}
+	
+	@Override
+	public RegistrationInterface eager() {
+		return eager(0, TimeUnit.NANOSECONDS);
+	}
+	
+	@Override
+	public RegistrationInterface eager(long timeout, TimeUnit unit) {
+		this.eager = true;
+		this.eagerTimeout = unit.toNanos(timeout);
+		return this;
+	}
+	
 	public String getName() {
 		return serviceName;
 	}
@@ -39,7 +129,7 @@ public class Registration implements RegistrationInterface {
 		return serviceType;
 	}
 
-	public Factory<?> getFactory() {
+	public ContainerAwareFactory<?> getFactory() {
 		return factory;
 	}
 
@@ -50,4 +140,94 @@ public class Registration implements RegistrationInterface {
 	public ReuseScope getReuseScope() {
 		return reuseScope;
 	}
+	
+	List<ServiceKey> getDependencies() {
+		return dependencies;
+	}
+	
+	Disposer<?> getDisposer() {
+		return disposer;
+	}
+	
+	int getMaximumSize() {
+		return maximumSize;
+	}
+	
+	long getTimeToLive() {
+		return timeToLive;
+	}
+	
+	int getKeepIdle() {
+		return keepIdle;
+	}
+	
+	int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+	
+	long getIdleTimeout() {
+		return idleTimeout;
+	}
+	
+	Resetter<?> getResetter() {
+		return resetter;
+	}
+	
+	boolean isEager() {
+		return eager;
+	}
+	
+	long getEagerTimeout() {
+		return eagerTimeout;
+	}
+	
+	/*
+	 * Returns the asynchronous factory behind a registered factory, or null.
+	 */
+	static AsyncFactory<?> asyncFactoryOf(ContainerAwareFactory<?> factory) {
+		return factory instanceof AsynchronousFactory ? ((AsynchronousFactory<?>) factory).factory : null;
+	}
+	
+	/*
+	 * Returns the plain factory behind a registered factory, or null.
+	 */
+	static Factory<?> plainFactoryOf(ContainerAwareFactory<?> factory) {
+		return factory instanceof PlainFactory ? ((PlainFactory<?>) factory).factory : null;
+	}
+	
+	private static class PlainFactory<TService> implements ContainerAwareFactory<TService> {
+		private final Factory<TService> factory;
+		
+		PlainFactory(Factory<TService> factory) {
+			this.factory = factory;
+		}
+		
+		@Override
+		public TService newInstance(Container container, Object... args) throws ResolutionException {
+			return factory.newInstance(args);
+		}
+	}
+	
+	private static class AsynchronousFactory<TService> implements ContainerAwareFactory<TService> {
+		private final AsyncFactory<TService> factory;
+		
+		AsynchronousFactory(AsyncFactory<TService> factory) {
+			this.factory = factory;
+		}
+		
+		@Override
+		public TService newInstance(Container container, Object... args) throws ResolutionException {
+			try {
+				return factory.newInstanceAsync(container, container.getRegistry().executor(), args).join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof ResolutionException) {
+					throw (ResolutionException) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new ResolutionException("Asynchronous factory failed", e.getCause());
+			}
+		}
+	}
 }
@@ -0,0 +1,9 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Group of registrations installed into a builder at once with
+ * {@link Container.Builder#install(RegistrationModule)}.
+ */
+public interface RegistrationModule {
+	void configure(Container.Builder builder);
+}
@@ -0,0 +1,502 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Frozen index of the registrations of a container hierarchy.
+ * <p>
+ * Entries live in a single open-addressing table with linear probing, hashed
+ * by service type, name and argument types, so a lookup is one probe in the
+ * common case. The same entries are also grouped by service type in
+ * registration order. Argument types are interned into {@link Signature}s
+ * when the registry is built. The registry is never modified after
+ * {@link #build(Collection)}, so it is read without locks; changes to the
+ * registrations build a new registry with {@link #update}. Lookups by
+ * arguments that are not an exact fit go to an {@link ArgumentMatcher},
+ * which memoizes its results with its own lock-free reads.
+ * <p>
+ * Building also checks the declared dependencies of the entries, see
+ * {@link DependencyGraph}.
+ */
+final class Registry {
+	private static final ServiceEntry[] NO_ENTRIES = new ServiceEntry[0];
+	
+	private final ServiceEntry[] entries;
+	private final ServiceEntry[] table;
+	private final Class<?>[] groupTypes;
+	private final ServiceEntry[][] groups;
+	private final Map<List<Class<?>>, Signature> signatures;
+	private final ArgumentMatcher matcher = new ArgumentMatcher(this);
+	private AtomicLong creations = new AtomicLong();
+	private DependencyGraph graph;
+	private ResolutionMetrics metrics;
+	private ResolutionRecorder recorder;
+	private Executor executor;
+	private CompiledResolver resolver;
+	private boolean stacklessMisses;
+	private Signature intSignature;
+	private Signature longSignature;
+	private Signature booleanSignature;
+	
+	private Registry(ServiceEntry[] entries, int size, int groupCount, Map<List<Class<?>>, Signature> signatures) {
+		this.entries = entries;
+		this.table = new ServiceEntry[capacityFor(size)];
+		this.groupTypes = new Class<?>[capacityFor(groupCount)];
+		this.groups = new ServiceEntry[groupTypes.length][];
+		this.signatures = signatures;
+	}
+	
+	/*
+	 * Entries are expected to be unique by key; for duplicate keys the last
+	 * entry wins and keeps the position of the first one.
+	 */
+	static Registry build(Collection<ServiceEntry> entries) {
+		return build(entries, false);
+	}
+	
+	static Registry build(Collection<ServiceEntry> entries, boolean withMetrics) {
+		return build(entries, withMetrics, ForkJoinPool.commonPool());
+	}
+	
+	static Registry build(Collection<ServiceEntry> entries, boolean withMetrics, Executor executor) {
+		Map<ServiceKey, ServiceEntry> unique = new LinkedHashMap<>(mapCapacityFor(entries.size()));
+		for (ServiceEntry entry: entries) {
+			unique.put(entry.getKey(), entry);
+		}
+		
+		Map<List<Class<?>>, Signature> signatures = new HashMap<>();
+		signatures.put(Arrays.<Class<?>>asList(), Signature.EMPTY);
+		ServiceEntry[] slots = unique.values().toArray(NO_ENTRIES);
+		Registry registry = build(slots, signatures, executor);
+		if (withMetrics) {
+			registry.metrics = new ResolutionMetrics(registry.entries);
+		}
+		return registry;
+	}
+	
+	/*
+	 * Builds a registry over the given slots, where the index of an entry is
+	 * its slot and empty slots are left out of lookups.
+	 */
+	private static Registry build(ServiceEntry[] slots, Map<List<Class<?>>, Signature> signatures, 
+			Executor executor) {
+		Map<Class<?>, List<ServiceEntry>> grouped = new LinkedHashMap<>(mapCapacityFor(slots.length));
+		int size = 0;
+		for (int index = 0; index < slots.length; index++) {
+			ServiceEntry entry = slots[index];
+			if (entry == null) {
+				continue;
+			}
+			size++;
+			List<Class<?>> types = Arrays.<Class<?>>asList(entry.getKey().getArgTypes());
+			Signature signature = signatures.get(types);
+			if (signature == null) {
+				signature = new Signature(entry.getKey().getArgTypes().clone());
+				signatures.put(Arrays.<Class<?>>asList(signature.getTypes()), signature);
+			}
+			entry.getKey().intern(signature.getTypes());
+			for (ServiceKey dependency: entry.getDependencies()) {
+				Signature dependencySignature = signatures.get(Arrays.<Class<?>>asList(dependency.getArgTypes()));
+				dependency.intern(dependencySignature != null ? 
+						dependencySignature.getTypes() : dependency.getArgTypes());
+			}
+			entry.bind(signature, hash(entry.getKey().getResultType(), 
+					entry.getKey().getName(), signature.getHash()), index);
+			
+			List<ServiceEntry> group = grouped.get(entry.getKey().getResultType());
+			if (group == null) {
+				group = new ArrayList<>();
+				grouped.put(entry.getKey().getResultType(), group);
+			}
+			group.add(entry);
+		}
+		
+		Registry registry = new Registry(slots, size, grouped.size(), signatures);
+		for (ServiceEntry entry: slots) {
+			if (entry != null) {
+				registry.insert(entry);
+			}
+		}
+		for (Map.Entry<Class<?>, List<ServiceEntry>> group: grouped.entrySet()) {
+			registry.insertGroup(group.getKey(), group.getValue().toArray(NO_ENTRIES));
+		}
+		registry.graph = DependencyGraph.build(registry);
+		registry.executor = executor;
+		registry.intSignature = signatures.get(Arrays.<Class<?>>asList(int.class));
+		registry.longSignature = signatures.get(Arrays.<Class<?>>asList(long.class));
+		registry.booleanSignature = signatures.get(Arrays.<Class<?>>asList(boolean.class));
+		return registry;
+	}
+	
+	/*
+	 * Builds the registry that follows this one once the bound entries
+	 * replace the entries with their keys, or are added, and the unbound
+	 * keys are removed. Entries that depend on a replaced or removed entry,
+	 * directly or not, are renewed, so they are created again; the others are
+	 * shared with this registry.
+	 * 
+	 * Entries keep their index: a replacement takes the slot of the entry it
+	 * replaces, added entries go to new slots and removed ones leave their
+	 * slot empty. Resolutions still running against this registry, or
+	 * holding its entries, so index the same metrics and compiled methods.
+	 * Signatures are carried over for the same reason, and the creation
+	 * counter is shared, so disposal order spans updates.
+	 * 
+	 * The replaced, removed and renewed entries of this registry are added
+	 * to the displaced list.
+	 */
+	Registry update(Collection<ServiceEntry> bound, Collection<ServiceKey> unbound, 
+			List<ServiceEntry> displaced) {
+		ServiceEntry[] slots = entries.clone();
+		Map<ServiceKey, Integer> added = new LinkedHashMap<>();
+		BitSet changed = new BitSet(slots.length);
+		for (ServiceKey key: unbound) {
+			ServiceEntry entry = find(key);
+			if (entry != null) {
+				slots[entry.getIndex()] = null;
+				changed.set(entry.getIndex());
+			}
+		}
+		for (ServiceEntry entry: bound) {
+			ServiceEntry previous = find(entry.getKey());
+			if (previous != null) {
+				slots[previous.getIndex()] = entry;
+				changed.set(previous.getIndex());
+			} else {
+				Integer index = added.get(entry.getKey());
+				if (index == null) {
+					index = entries.length + added.size();
+					added.put(entry.getKey(), index);
+				}
+				if (index >= slots.length) {
+					slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+				}
+				slots[index] = entry;
+			}
+		}
+		slots = Arrays.copyOf(slots, entries.length + added.size());
+		
+		BitSet renewed = dependentsOf(changed);
+		for (int i = renewed.nextSetBit(0); i >= 0; i = renewed.nextSetBit(i + 1)) {
+			slots[i] = entries[i].renew();
+		}
+		renewed.or(changed);
+		for (int i = renewed.nextSetBit(0); i >= 0; i = renewed.nextSetBit(i + 1)) {
+			if (entries[i] != null) {
+				displaced.add(entries[i]);
+			}
+		}
+		
+		Registry registry = build(slots, new HashMap<>(signatures), executor);
+		if (resolver != null) {
+			registry.compile();
+		}
+		registry.stacklessMisses = stacklessMisses;
+		registry.recorder = recorder;
+		registry.creations = creations;
+		if (metrics != null) {
+			metrics.resize(registry.entries);
+			registry.metrics = metrics;
+		}
+		return registry;
+	}
+	
+	/*
+	 * Looks up the registration taking exactly the classes of the arguments
+	 * and falls back to the ArgumentMatcher when there is none.
+	 */
+	ServiceEntry lookup(Class<?> type, String name, Object[] args) throws ResolutionException {
+		int hash = hash(type, name, Signature.hashOf(args));
+		int mask = table.length - 1;
+		for (int i = hash & mask; ; i = (i + 1) & mask) {
+			ServiceEntry entry = table[i];
+			if (entry == null) {
+				return matcher.match(type, name, args, hash);
+			}
+			if (entry.getHash() == hash && entry.getKey().getResultType() == type &&
+					entry.getSignature().matches(args) && sameName(entry.getKey().getName(), name)) {
+				return entry;
+			}
+		}
+	}
+	
+	/*
+	 * Like lookup by arguments, for the first arity of the given arguments;
+	 * only a miss of the table puts them into an array.
+	 */
+	ServiceEntry lookup(Class<?> type, String name, int arity, 
+			Object a, Object b, Object c, Object d) throws ResolutionException {
+		int hash = hash(type, name, Signature.hashOf(arity, a, b, c, d));
+		int mask = table.length - 1;
+		for (int i = hash & mask; ; i = (i + 1) & mask) {
+			ServiceEntry entry = table[i];
+			if (entry == null) {
+				Object[] args = Arrays.copyOf(new Object[] { a, b, c, d }, arity);
+				return matcher.match(type, name, args, hash);
+			}
+			if (entry.getHash() == hash && entry.getKey().getResultType() == type &&
+					entry.getSignature().matches(arity, a, b, c, d) && sameName(entry.getKey().getName(), name)) {
+				return entry;
+			}
+		}
+	}
+	
+	/*
+	 * Looks up the registration taking exactly one argument of the given
+	 * primitive type, int, long or boolean, without a fallback.
+	 */
+	ServiceEntry lookupPrimitive(Class<?> type, String name, Class<?> primitive) {
+		Signature signature = primitive == int.class ? intSignature : 
+				primitive == long.class ? longSignature : booleanSignature;
+		return signature != null ? lookup(type, name, signature) : null;
+	}
+	
+	ServiceEntry lookup(Class<?> type, String name, Signature signature) {
+		int hash = hash(type, name, signature.getHash());
+		int mask = table.length - 1;
+		for (int i = hash & mask; ; i = (i + 1) & mask) {
+			ServiceEntry entry = table[i];
+			if (entry == null) {
+				return null;
+			}
+			if (entry.getHash() == hash && entry.getKey().getResultType() == type &&
+					entry.getSignature() == signature && sameName(entry.getKey().getName(), name)) {
+				return entry;
+			}
+		}
+	}
+	
+	/*
+	 * Returns the interned signature for the given argument types, or null if
+	 * no registration takes them.
+	 */
+	Signature signature(Class<?>... argTypes) {
+		return signatures.get(Arrays.<Class<?>>asList(argTypes));
+	}
+	
+	/*
+	 * Like lookup by arguments, for callers that only know the argument types.
+	 */
+	ServiceEntry lookup(Class<?> type, String name, Class<?>[] argTypes) throws ResolutionException {
+		Signature signature = signature(argTypes);
+		ServiceEntry entry = signature != null ? lookup(type, name, signature) : null;
+		return entry != null ? entry : matcher.match(type, name, argTypes);
+	}
+	
+	ServiceEntry[] group(Class<?> type) {
+		int mask = groupTypes.length - 1;
+		for (int i = spread(type.hashCode()) & mask; ; i = (i + 1) & mask) {
+			Class<?> groupType = groupTypes[i];
+			if (groupType == null) {
+				return NO_ENTRIES;
+			}
+			if (groupType == type) {
+				return groups[i];
+			}
+		}
+	}
+	
+	int size() {
+		return entries.length;
+	}
+	
+	/*
+	 * Entries in registration order; the position of an entry is its index.
+	 * Slots of entries removed by an update are null.
+	 */
+	ServiceEntry[] entries() {
+		return entries;
+	}
+	
+	DependencyGraph graph() {
+		return graph;
+	}
+	
+	/*
+	 * Estimated bytes of the registry and its registered entries, see
+	 * Footprint.
+	 */
+	long estimatedBytes() {
+		long result = Footprint.objectBytes(15, 1) + Footprint.arrayBytes(entries.length, 4) + 
+				Footprint.arrayBytes(table.length, 4) + Footprint.arrayBytes(groupTypes.length, 4) + 
+				Footprint.arrayBytes(groups.length, 4) + Footprint.mapBytes(signatures.size()) + 
+				graph.estimatedBytes();
+		for (ServiceEntry[] group: groups) {
+			if (group != null) {
+				result += Footprint.arrayBytes(group.length, 4);
+			}
+		}
+		for (Signature signature: signatures.values()) {
+			result += Footprint.objectBytes(1, 4) + Footprint.objectBytes(1, 0) + 
+					Footprint.arrayBytes(signature.size(), 4);
+		}
+		for (ServiceEntry entry: entries) {
+			if (entry != null) {
+				result += Footprint.ENTRY_BYTES + Footprint.METADATA_BYTES + Footprint.KEY_BYTES;
+				int dependencies = entry.getDependencies().length;
+				if (dependencies > 0) {
+					result += Footprint.arrayBytes(dependencies, 4) + dependencies * Footprint.KEY_BYTES;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/*
+	 * Numbers reused instances as they are created, so they can be disposed
+	 * in reverse order.
+	 */
+	long nextCreation() {
+		return creations.incrementAndGet();
+	}
+	
+	Executor executor() {
+		return executor;
+	}
+	
+	/*
+	 * Generates the resolver of the entries; called before the registry is
+	 * handed to a container, so the field needs no synchronization.
+	 */
+	void compile() {
+		resolver = CompiledResolver.compile(entries);
+	}
+	
+	void stacklessMisses(boolean stackless) {
+		stacklessMisses = stackless;
+	}
+	
+	boolean stacklessMisses() {
+		return stacklessMisses;
+	}
+	
+	void recorder(ResolutionRecorder recorder) {
+		this.recorder = recorder;
+	}
+	
+	/*
+	 * Null unless the container was built to record events.
+	 */
+	ResolutionRecorder recorder() {
+		return recorder;
+	}
+	
+	/*
+	 * Null unless the container was compiled.
+	 */
+	CompiledResolver resolver() {
+		return resolver;
+	}
+	
+	/*
+	 * Null unless the container was built with metrics enabled.
+	 */
+	ResolutionMetrics metrics() {
+		return metrics;
+	}
+	
+	private ServiceEntry find(ServiceKey key) {
+		Signature signature = signature(key.getArgTypes());
+		return signature != null ? lookup(key.getResultType(), key.getName(), signature) : null;
+	}
+	
+	/*
+	 * Indices of the entries that depend on the given ones through declared
+	 * dependencies, not including the given ones.
+	 */
+	private BitSet dependentsOf(BitSet changed) {
+		List<List<Integer>> dependents = new ArrayList<>(entries.length);
+		for (int i = 0; i < entries.length; i++) {
+			dependents.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < entries.length; i++) {
+			for (int dependency: graph.dependenciesOf(i)) {
+				dependents.get(dependency).add(i);
+			}
+		}
+		BitSet result = new BitSet(entries.length);
+		Deque<Integer> pending = new ArrayDeque<>();
+		for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+			pending.push(i);
+		}
+		while (!pending.isEmpty()) {
+			for (int dependent: dependents.get(pending.pop())) {
+				if (!changed.get(dependent) && !result.get(dependent)) {
+					result.set(dependent);
+					pending.push(dependent);
+				}
+			}
+		}
+		return result;
+	}
+	
+	private void insert(ServiceEntry entry) {
+		int mask = table.length - 1;
+		int i = entry.getHash() & mask;
+		while (table[i] != null) {
+			i = (i + 1) & mask;
+		}
+		table[i] = entry;
+	}
+	
+	private void insertGroup(Class<?> type, ServiceEntry[] entries) {
+		int mask = groupTypes.length - 1;
+		int i = spread(type.hashCode()) & mask;
+		while (groupTypes[i] != null) {
+			i = (i + 1) & mask;
+		}
+		groupTypes[i] = type;
+		groups[i] = entries;
+	}
+	
+	static boolean sameName(String a, String b) {
+		return a == b || (a != null && a.equals(b));
+	}
+	
+	private static int hash(Class<?> type, String name, int signatureHash) {
+		int result = type.hashCode();
+		result = 31 * result + (name != null ? name.hashCode() : 0);
+		result = 31 * result + signatureHash;
+		return spread(result);
+	}
+	
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	/*
+	 * Initial capacity of a hash map that holds the given number of mappings
+	 * without rehashing.
+	 */
+	private static int mapCapacityFor(int size) {
+		return (int) (size / 0.75f) + 1;
+	}
+	
+	/*
+	 * Keeps the load factor at or below one half, which bounds the probe
+	 * sequences of misses as well as hits.
+	 */
+	private static int capacityFor(int size) {
+		int capacity = 2;
+		while (capacity < size * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,10 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Brings a POOLED instance back to a clean state when its lease is closed.
+ * An instance whose reset fails is disposed instead of going back to the
+ * pool.
+ */
+public interface Resetter<T> {
+	void reset(T instance) throws Exception;
+}
@@ -0,0 +1,248 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+
+/**
+ * Resolution counters of a container hierarchy, enabled with
+ * {@link Container.Builder#enableMetrics()}.
+ * <p>
+ * Counters are kept per registration, indexed like the registry entries, and
+ * are {@link LongAdder}s, so threads resolving the same service do not
+ * contend on them. Factory latencies go to a histogram with power of two
+ * nanosecond buckets. Use {@link #snapshot()} to read them.
+ */
+public final class ResolutionMetrics {
+	/**
+	 * Number of latency buckets; bucket {@code i} counts factory calls that
+	 * took less than {@code 2^(i + 1)} nanoseconds, the last one all longer
+	 * calls.
+	 */
+	public static final int BUCKETS = 36;
+	
+	private volatile ServiceEntry[] entries;
+	private volatile Counters[] counters;
+	private final ConcurrentMap<Class<?>, LongAdder> misses = new ConcurrentHashMap<>();
+	private final LongAdder parentHops = new LongAdder();
+	
+	ResolutionMetrics(ServiceEntry[] entries) {
+		this.entries = entries;
+		this.counters = new Counters[entries.length];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new Counters();
+		}
+	}
+	
+	/*
+	 * Follows an update of the registry. Counters stay with their index, as
+	 * entries do, so the counters of a replaced registration carry on.
+	 */
+	synchronized void resize(ServiceEntry[] entries) {
+		Counters[] resized = Arrays.copyOf(counters, entries.length);
+		for (int i = counters.length; i < resized.length; i++) {
+			resized[i] = new Counters();
+		}
+		counters = resized;
+		this.entries = entries;
+	}
+	
+	Counters of(ServiceEntry entry) {
+		return counters[entry.getIndex()];
+	}
+	
+	void miss(Class<?> type) {
+		LongAdder counter = misses.get(type);
+		if (counter == null) {
+			LongAdder created = new LongAdder();
+			counter = misses.putIfAbsent(type, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.increment();
+	}
+	
+	void parentHops(int hops) {
+		parentHops.add(hops);
+	}
+	
+	/**
+	 * Reads the current counters. Counters keep changing while they are read,
+	 * so the snapshot is not atomic across services.
+	 */
+	public Snapshot snapshot() {
+		ServiceEntry[] entries = this.entries;
+		Counters[] counters = this.counters;
+		List<ServiceSnapshot> services = new ArrayList<>(entries.length);
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i] != null) {
+				services.add(counters[i].snapshot(entries[i].getKey()));
+			}
+		}
+		Map<Class<?>, Long> missesByType = new LinkedHashMap<>();
+		for (Map.Entry<Class<?>, LongAdder> miss: misses.entrySet()) {
+			missesByType.put(miss.getKey(), miss.getValue().sum());
+		}
+		return new Snapshot(services, missesByType, parentHops.sum());
+	}
+	
+	static final class Counters implements ResolutionObserver {
+		private final LongAdder resolves = new LongAdder();
+		private final LongAdder cacheHits = new LongAdder();
+		private final LongAdder factoryInvocations = new LongAdder();
+		private final LongAdder factoryNanos = new LongAdder();
+		private final LongAdder[] latencies = new LongAdder[BUCKETS];
+		
+		Counters() {
+			for (int i = 0; i < latencies.length; i++) {
+				latencies[i] = new LongAdder();
+			}
+		}
+		
+		void resolve() {
+			resolves.increment();
+		}
+		
+		@Override
+		public void cacheHit() {
+			cacheHits.increment();
+		}
+		
+		@Override
+		public void factoryInvoked(long nanos) {
+			factoryInvocations.increment();
+			factoryNanos.add(nanos);
+			int bucket = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+			latencies[Math.min(bucket, BUCKETS - 1)].increment();
+		}
+		
+		private ServiceSnapshot snapshot(ServiceKey key) {
+			long[] histogram = new long[BUCKETS];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = latencies[i].sum();
+			}
+			return new ServiceSnapshot(key, resolves.sum(), cacheHits.sum(),
+					factoryInvocations.sum(), factoryNanos.sum(), histogram);
+		}
+	}
+	
+	public static final class Snapshot {
+		private final List<ServiceSnapshot> services;
+		private final Map<Class<?>, Long> misses;
+		private final long parentHops;
+		
+		private Snapshot(List<ServiceSnapshot> services, Map<Class<?>, Long> misses, long parentHops) {
+			this.services = Collections.unmodifiableList(services);
+			this.misses = Collections.unmodifiableMap(misses);
+			this.parentHops = parentHops;
+		}
+		
+		/**
+		 * Counters of every registration, in registration order.
+		 */
+		public List<ServiceSnapshot> getServices() {
+			return services;
+		}
+		
+		/**
+		 * Number of lookups, by requested service type, that found no
+		 * registration.
+		 */
+		public Map<Class<?>, Long> getMisses() {
+			return misses;
+		}
+		
+		public long getTotalMisses() {
+			long result = 0;
+			for (long count: misses.values()) {
+				result += count;
+			}
+			return result;
+		}
+		
+		/**
+		 * Parent links followed to reach the root container when resolving
+		 * HIERARCHY-scoped services from child containers.
+		 */
+		public long getParentHops() {
+			return parentHops;
+		}
+	}
+	
+	public static final class ServiceSnapshot {
+		private final ServiceKey key;
+		private final long resolves;
+		private final long cacheHits;
+		private final long factoryInvocations;
+		private final long factoryNanos;
+		private final long[] latencyHistogram;
+		
+		private ServiceSnapshot(ServiceKey key, long resolves, long cacheHits,
+				long factoryInvocations, long factoryNanos, long[] latencyHistogram) {
+			this.key = key;
+			this.resolves = resolves;
+			this.cacheHits = cacheHits;
+			this.factoryInvocations = factoryInvocations;
+			this.factoryNanos = factoryNanos;
+			this.latencyHistogram = latencyHistogram;
+		}
+		
+		public Class<?> getServiceType() {
+			return key.getResultType();
+		}
+		
+		public String getName() {
+			return key.getName();
+		}
+		
+		public Class<?>[] getArgTypes() {
+			return key.getArgTypes().clone();
+		}
+		
+		public long getResolves() {
+			return resolves;
+		}
+		
+		/**
+		 * Resolutions served by an existing instance, which any scope but NONE
+		 * can do: a container or hierarchy singleton, an instance cached for the
+		 * same arguments, thread or execution, or an idle pooled instance.
+		 */
+		public long getCacheHits() {
+			return cacheHits;
+		}
+		
+		public long getFactoryInvocations() {
+			return factoryInvocations;
+		}
+		
+		public long getFactoryNanos() {
+			return factoryNanos;
+		}
+		
+		/**
+		 * Factory calls per latency bucket, see {@link ResolutionMetrics#BUCKETS}.
+		 */
+		public long[] getLatencyHistogram() {
+			return latencyHistogram.clone();
+		}
+		
+		@Override
+		public String toString() {
+			return key + ": resolves=" + resolves + ", cacheHits=" + cacheHits +
+					", factoryInvocations=" + factoryInvocations +
+					", factoryNanos=" + factoryNanos +
+					", latencyHistogram=" + Arrays.toString(latencyHistogram);
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Notified of what a single resolution of an entry did: whether an existing
+ * instance served it, or how long the factory took. Scopes report to it
+ * where they create or reuse instances; resolutions without metrics or
+ * recorded events pass none.
+ */
+interface ResolutionObserver {
+	void cacheHit();
+	
+	void factoryInvoked(long nanos);
+}
@@ -0,0 +1,27 @@
+package ru.anisimov.tools.injector;
+
+import java.lang.reflect.Constructor;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/*
+ * Wraps the resolutions of a container hierarchy built with
+ * Container.Builder#recordEvents(). The recorder emitting Flight Recorder
+ * events lives in the Java 17 layer of the multi-release jar; on older
+ * runtimes there is none and resolutions are not recorded.
+ */
+interface ResolutionRecorder {
+	Object record(Container container, Registry registry, ServiceEntry entry, 
+			Object[] args) throws ResolutionException;
+	
+	static ResolutionRecorder create(long thresholdNanos) {
+		try {
+			Class<?> recorder = Class.forName(ResolutionRecorder.class.getPackage().getName() + ".ResolutionEventRecorder");
+			Constructor<?> constructor = recorder.getDeclaredConstructor(long.class);
+			return (ResolutionRecorder) constructor.newInstance(thresholdNanos);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
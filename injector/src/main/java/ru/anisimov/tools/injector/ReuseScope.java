@@ -1,5 +1,28 @@
 package ru.anisimov.tools.injector;
 
 public enum ReuseScope {
-	CONTAINER, HIERARCHY, NONE
+	CONTAINER, HIERARCHY, NONE,
+	/**
+	 * One instance per distinct argument values within the hierarchy, kept in
+	 * a bounded cache, see {@link ru.anisimov.tools.injector.syntax.registration.BoundedTo}.
+	 */
+	ARGUMENTS,
+	/**
+	 * One instance per thread within the hierarchy. Instances live as long as
+	 * their thread and are not disposed by the container.
+	 */
+	THREAD,
+	/**
+	 * One instance per {@link ExecutionScope}; resolving outside of a scope
+	 * fails. Suits virtual threads, where a thread per task would make THREAD
+	 * scope build an instance per task.
+	 */
+	EXECUTION,
+	/**
+	 * Instances are leased from a bounded pool with
+	 * {@link Container#lease(String, Class, Object...)} and returned when the
+	 * lease is closed, see {@link ru.anisimov.tools.injector.syntax.registration.PooledWithin}.
+	 * Plain resolution fails, as nothing would return the instance.
+	 */
+	POOLED
 }
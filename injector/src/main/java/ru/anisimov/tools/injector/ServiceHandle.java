@@ -0,0 +1,73 @@
+package ru.anisimov.tools.injector;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Pre-bound lookup of a single service in a container. The key is looked up
+ * once when the handle is created, so resolving through the handle skips
+ * argument matching and the registry probe. A handle is also the
+ * {@link Provider} returned by {@link Container#provider(String, Class)}.
+ * <p>
+ * The handle remembers the registry it looked the key up in and looks it up
+ * again after the registrations were changed with
+ * {@link Container#rebind(RegistrationModule)} or
+ * {@link Container#unregister(String, Class, Class...)}.
+ * <p>
+ * Arguments are passed to the factory as is and are not checked against the
+ * argument types the handle was created with.
+ */
+public final class ServiceHandle<TService> implements Provider<TService> {
+	private static final Object[] NO_ARGS = new Object[0];
+	
+	private final Container container;
+	private volatile Binding binding;
+	
+	ServiceHandle(Container container, Registry registry, ServiceEntry entry) {
+		this.container = container;
+		this.binding = new Binding(registry, entry);
+	}
+	
+	public TService resolve() throws ResolutionException {
+		return resolve(NO_ARGS);
+	}
+	
+	public TService resolve(Object... args) throws ResolutionException {
+		Registry registry = container.getRegistry();
+		Binding current = binding;
+		if (current.registry != registry) {
+			current = rebind(registry, current.entry.getKey());
+		}
+		return container.resolveEntry(registry, current.entry, args);
+	}
+	
+	@Override
+	public TService get() throws ResolutionException {
+		return resolve(NO_ARGS);
+	}
+	
+	public Container getContainer() {
+		return container;
+	}
+	
+	private Binding rebind(Registry registry, ServiceKey key) throws ResolutionException {
+		ServiceEntry entry = registry.lookup(key.getResultType(), key.getName(), key.getArgTypes());
+		if (entry == null) {
+			throw new ResolutionException(key + " is no longer registered");
+		}
+		Binding result = new Binding(registry, container.bindEntry(entry));
+		binding = result;
+		return result;
+	}
+	
+	private static final class Binding {
+		private final Registry registry;
+		private final ServiceEntry entry;
+		
+		Binding(Registry registry, ServiceEntry entry) {
+			this.registry = registry;
+			this.entry = entry;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package ru.anisimov.tools.injector;
+
+/**
+ * Interned argument types of a registration. A registry keeps one instance
+ * per distinct tuple, so signatures coming from the registry can be compared
+ * by identity.
+ */
+final class Signature {
+	static final Signature EMPTY = new Signature(new Class<?>[0]);
+	
+	private final Class<?>[] types;
+	private final int hash;
+	
+	Signature(Class<?>[] types) {
+		this.types = types;
+		this.hash = hashOf(types);
+	}
+	
+	static int hashOf(Class<?>[] types) {
+		int result = 1;
+		for (Class<?> type: types) {
+			result = 31 * result + type.hashCode();
+		}
+		return result;
+	}
+	
+	static int hashOf(Object[] args) {
+		int result = 1;
+		for (Object arg: args) {
+			result = 31 * result + (arg != null ? arg.getClass().hashCode() : 0);
+		}
+		return result;
+	}
+	
+	/*
+	 * Like hashOf(Object[]) for the first arity of the given arguments, for
+	 * callers that hold them without an array.
+	 */
+	static int hashOf(int arity, Object a, Object b, Object c, Object d) {
+		int result = 1;
+		for (int i = 0; i < arity; i++) {
+			Object arg = i == 0 ? a : i == 1 ? b : i == 2 ? c : d;
+			result = 31 * result + (arg != null ? arg.getClass().hashCode() : 0);
+		}
+		return result;
+	}
+	
+	boolean matches(Object[] args) {
+		if (args.length != types.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (args[i] == null || args[i].getClass() != types[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	boolean matches(int arity, Object a, Object b, Object c, Object d) {
+		if (arity != types.length) {
+			return false;
+		}
+		return (arity < 1 || matches(0, a)) && (arity < 2 || matches(1, b)) &&
+				(arity < 3 || matches(2, c)) && (arity < 4 || matches(3, d));
+	}
+	
+	Class<?>[] getTypes() {
+		return types;
+	}
+	
+	int getHash() {
+		return hash;
+	}
+	
+	int size() {
+		return types.length;
+	}
+	
+	private boolean matches(int index, Object arg) {
+		return arg != null && arg.getClass() == types[index];
+	}
+}
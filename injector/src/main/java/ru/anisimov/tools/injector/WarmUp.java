@@ -0,0 +1,190 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.WarmUpReport.Construction;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Builds the eager entries of a container, see {@link Container#warmUp}.
+ * <p>
+ * The plan holds the eager entries and the CONTAINER and HIERARCHY-scoped
+ * entries they depend on, directly or through NONE-scoped ones, which are
+ * created anyway when their dependents are. Walking the dependency graph in
+ * topological order, each planned entry gets a future that starts its
+ * construction on the executor once the futures of its dependencies are
+ * done, so the warm-up is as long as the longest chain of constructions.
+ * Every future completes normally with the outcome of its entry; an entry
+ * whose dependency was not built is skipped, since building it would build
+ * the dependency again on its own thread.
+ */
+final class WarmUp {
+	private static final Object[] NO_ARGS = new Object[0];
+	private static final int[] NO_DEPENDENCIES = new int[0];
+	
+	private WarmUp() {}
+	
+	static WarmUpReport run(Container container, Executor executor) throws ResolutionException {
+		long start = System.nanoTime();
+		Registry registry = container.getRegistry();
+		ServiceEntry[] entries = registry.entries();
+		int[] order = registry.graph().order();
+		int[][] dependencies = reusedDependencies(registry, order);
+		
+		boolean[] planned = new boolean[entries.length];
+		for (int i = order.length - 1; i >= 0; i--) {
+			int index = order[i];
+			planned[index] |= entries[index] != null && entries[index].isEager();
+			if (planned[index]) {
+				for (int dependency: dependencies[index]) {
+					planned[dependency] = true;
+				}
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Construction>[] futures = (CompletableFuture<Construction>[]) new CompletableFuture<?>[entries.length];
+		List<CompletableFuture<Construction>> started = new ArrayList<>();
+		for (int index: order) {
+			if (planned[index]) {
+				CompletableFuture<?>[] required = new CompletableFuture<?>[dependencies[index].length];
+				for (int i = 0; i < required.length; i++) {
+					required[i] = futures[dependencies[index][i]];
+				}
+				futures[index] = construct(container, executor, entries[index], required);
+				started.add(futures[index]);
+			}
+		}
+		try {
+			CompletableFuture.allOf(started.toArray(new CompletableFuture<?>[started.size()])).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResolutionException("Interrupted while warming up", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		
+		List<Construction> constructions = new ArrayList<>(started.size());
+		long[] paths = new long[entries.length];
+		long criticalPath = 0;
+		for (int index: order) {
+			if (planned[index]) {
+				Construction construction = futures[index].join();
+				constructions.add(construction);
+				long path = 0;
+				for (int dependency: dependencies[index]) {
+					path = Math.max(path, paths[dependency]);
+				}
+				paths[index] = path + construction.getNanos();
+				criticalPath = Math.max(criticalPath, paths[index]);
+			}
+		}
+		return new WarmUpReport(constructions, System.nanoTime() - start, criticalPath);
+	}
+	
+	/*
+	 * The CONTAINER and HIERARCHY-scoped entries each entry needs, looking
+	 * through NONE-scoped dependencies. The order puts dependencies first, so
+	 * theirs are known when an entry is reached.
+	 */
+	private static int[][] reusedDependencies(Registry registry, int[] order) {
+		ServiceEntry[] entries = registry.entries();
+		int[][] result = new int[entries.length][];
+		for (int index: order) {
+			int[] direct = registry.graph().dependenciesOf(index);
+			if (direct.length == 0) {
+				result[index] = NO_DEPENDENCIES;
+				continue;
+			}
+			List<Integer> reused = new ArrayList<>();
+			for (int dependency: direct) {
+				switch (entries[dependency].getScope()) {
+				case CONTAINER:
+				case HIERARCHY:
+					reused.add(dependency);
+					break;
+				case NONE:
+					for (int inner: result[dependency]) {
+						reused.add(inner);
+					}
+					break;
+				default:
+					break;
+				}
+			}
+			result[index] = new int[reused.size()];
+			for (int i = 0; i < result[index].length; i++) {
+				result[index][i] = reused.get(i);
+			}
+		}
+		return result;
+	}
+	
+	private static CompletableFuture<Construction> construct(Container container, Executor executor,
+			ServiceEntry entry, CompletableFuture<?>[] required) {
+		return CompletableFuture.allOf(required).thenCompose(ignored -> {
+			for (CompletableFuture<?> dependency: required) {
+				Construction construction = (Construction) dependency.join();
+				if (construction.getFailure() != null) {
+					return CompletableFuture.completedFuture(new Construction(entry.getKey(), 0,
+							new ResolutionException("Not built, " + construction.getKey() + " was not built")));
+				}
+			}
+			long submitted = System.nanoTime();
+			CompletableFuture<Construction> result = AsyncResolver.supply(executor, () -> build(container, entry));
+			if (entry.getEagerTimeout() > 0) {
+				within(result, entry.getEagerTimeout());
+			}
+			return result.exceptionally(failure -> new Construction(entry.getKey(),
+					System.nanoTime() - submitted, unwrap(failure)));
+		});
+	}
+	
+	/*
+	 * CompletableFuture#orTimeout, which the core cannot use on Java 8.
+	 */
+	private static void within(CompletableFuture<?> future, long nanos) {
+		ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(
+				() -> future.completeExceptionally(new TimeoutException()), nanos, TimeUnit.NANOSECONDS);
+		future.whenComplete((result, failure) -> timeout.cancel(false));
+	}
+	
+	private static Construction build(Container container, ServiceEntry entry) {
+		long start = System.nanoTime();
+		try {
+			container.resolveEntry(container.bindEntry(entry), NO_ARGS);
+			return new Construction(entry.getKey(), System.nanoTime() - start, null);
+		} catch (ResolutionException | RuntimeException e) {
+			return new Construction(entry.getKey(), System.nanoTime() - start, e);
+		}
+	}
+	
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+	
+	/*
+	 * Holds the timer thread, started by the first warm-up with a timeout.
+	 */
+	private static final class Timeouts {
+		static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "injector-warm-up-timeouts");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		static {
+			SCHEDULER.setRemoveOnCancelPolicy(true);
+		}
+	}
+}
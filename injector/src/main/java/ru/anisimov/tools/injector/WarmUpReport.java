@@ -0,0 +1,135 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import ru.anisimov.tools.injector.Container.ServiceKey;
+
+/**
+ * Outcome of {@link Container#warmUp(java.util.concurrent.Executor)}: the
+ * construction of every service it built, with dependencies before their
+ * dependents, and how long the whole warm-up took. A service is only started
+ * once its dependencies are built, so its time is that of its own factory.
+ */
+public final class WarmUpReport {
+	private final List<Construction> constructions;
+	private final long nanos;
+	private final long criticalPathNanos;
+	
+	WarmUpReport(List<Construction> constructions, long nanos, long criticalPathNanos) {
+		this.constructions = Collections.unmodifiableList(constructions);
+		this.nanos = nanos;
+		this.criticalPathNanos = criticalPathNanos;
+	}
+	
+	public List<Construction> getConstructions() {
+		return constructions;
+	}
+	
+	/**
+	 * Constructions that failed, timed out or were skipped because one of
+	 * their dependencies was not built. Those services are built on their
+	 * first resolution instead.
+	 */
+	public List<Construction> getFailures() {
+		List<Construction> result = new ArrayList<>();
+		for (Construction construction: constructions) {
+			if (construction.getFailure() != null) {
+				result.add(construction);
+			}
+		}
+		return result;
+	}
+	
+	public boolean isComplete() {
+		return getFailures().isEmpty();
+	}
+	
+	/**
+	 * Wall time of the warm-up.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	/**
+	 * Longest sum of construction times along a chain of dependencies, the
+	 * least a warm-up with enough threads can take.
+	 */
+	public long getCriticalPathNanos() {
+		return criticalPathNanos;
+	}
+	
+	/**
+	 * Sum of all construction times, what building the services one by one
+	 * would take.
+	 */
+	public long getTotalConstructionNanos() {
+		long result = 0;
+		for (Construction construction: constructions) {
+			result += construction.getNanos();
+		}
+		return result;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("nanos=").append(nanos).
+				append(", criticalPathNanos=").append(criticalPathNanos).
+				append(", totalConstructionNanos=").append(getTotalConstructionNanos());
+		for (Construction construction: constructions) {
+			result.append("\n\t").append(construction);
+		}
+		return result.toString();
+	}
+	
+	public static final class Construction {
+		private final ServiceKey key;
+		private final long nanos;
+		private final Throwable failure;
+		
+		Construction(ServiceKey key, long nanos, Throwable failure) {
+			this.key = key;
+			this.nanos = nanos;
+			this.failure = failure;
+		}
+		
+		public Class<?> getServiceType() {
+			return key.getResultType();
+		}
+		
+		public String getName() {
+			return key.getName();
+		}
+		
+		/**
+		 * Time the factory took, or how long the warm-up waited for a
+		 * construction that failed to finish in time.
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+		
+		/**
+		 * Null for a service that was built.
+		 */
+		public Throwable getFailure() {
+			return failure;
+		}
+		
+		public boolean isTimedOut() {
+			return failure instanceof TimeoutException;
+		}
+		
+		ServiceKey getKey() {
+			return key;
+		}
+		
+		@Override
+		public String toString() {
+			return key + ": nanos=" + nanos + (failure != null ? ", failure=" + failure : "");
+		}
+	}
+}
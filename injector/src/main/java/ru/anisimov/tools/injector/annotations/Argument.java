@@ -0,0 +1,18 @@
+package ru.anisimov.tools.injector.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a constructor parameter that is passed to {@code resolve} by the
+ * caller instead of being resolved from the container. Arguments keep their
+ * order and become the argument types of the registration.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Argument {
+}
@@ -0,0 +1,25 @@
+package ru.anisimov.tools.injector.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import ru.anisimov.tools.injector.ReuseScope;
+
+/**
+ * Registration of a class with an {@link Inject} constructor. Without it the
+ * class is registered as itself, unnamed and with {@link ReuseScope#NONE}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Component {
+	/** Service type the class is registered as; the class itself by default. */
+	Class<?> service() default Void.class;
+	
+	String name() default "";
+	
+	ReuseScope scope() default ReuseScope.NONE;
+}
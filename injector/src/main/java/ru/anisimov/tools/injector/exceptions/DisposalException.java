@@ -0,0 +1,14 @@
+package ru.anisimov.tools.injector.exceptions;
+
+/**
+ * Thrown by {@code Container.close()} when disposing instances failed. The
+ * first failure is the cause, the others are suppressed; every instance is
+ * disposed regardless.
+ */
+public class DisposalException extends RuntimeException {
+	private static final long serialVersionUID = 5093367215104783742L;
+	
+	public DisposalException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
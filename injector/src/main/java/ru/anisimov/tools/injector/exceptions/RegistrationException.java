@@ -0,0 +1,32 @@
+package ru.anisimov.tools.injector.exceptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by {@code Container.Builder.build()} when declared dependencies are
+ * not registered or form cycles. Every problem found is listed.
+ */
+public class RegistrationException extends RuntimeException {
+	private static final long serialVersionUID = -3925012385476632417L;
+	
+	private final List<String> problems;
+	
+	public RegistrationException(List<String> problems) {
+		super(message(problems));
+		this.problems = Collections.unmodifiableList(new ArrayList<>(problems));
+	}
+	
+	public List<String> getProblems() {
+		return problems;
+	}
+	
+	private static String message(List<String> problems) {
+		StringBuilder result = new StringBuilder("Invalid registrations:");
+		for (String problem: problems) {
+			result.append("\n\t").append(problem);
+		}
+		return result.toString();
+	}
+}
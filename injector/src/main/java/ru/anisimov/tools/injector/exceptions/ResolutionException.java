@@ -10,4 +10,12 @@ public class ResolutionException extends Exception {
 	public ResolutionException(String string) {
 		super(string);
 	}
+	
+	public ResolutionException(String string, Throwable cause) {
+		super(string, cause);
+	}
+	
+	protected ResolutionException(String string, boolean writableStackTrace) {
+		super(string, null, true, writableStackTrace);
+	}
 }
@@ -0,0 +1,54 @@
+package ru.anisimov.tools.injector.exceptions;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.function.Supplier;
+
+/**
+ * Thrown when no registration matches the requested service. The message
+ * describes the request and what is registered for the service type; it is
+ * only built when it is read, so misses that are caught and handled do not
+ * pay for it.
+ */
+public class ServiceNotFoundException extends ResolutionException {
+	private static final long serialVersionUID = 7715232614381016318L;
+	
+	private final Class<?> serviceType;
+	private final String name;
+	private transient Supplier<String> description;
+	private String message;
+	
+	/*
+	 * Without a writable stack trace the exception costs an allocation, see
+	 * Container.Builder.stacklessMisses().
+	 */
+	public ServiceNotFoundException(Class<?> serviceType, String name, 
+			Supplier<String> description, boolean writableStackTrace) {
+		super(null, writableStackTrace);
+		this.serviceType = serviceType;
+		this.name = name;
+		this.description = description;
+	}
+	
+	public Class<?> getServiceType() {
+		return serviceType;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public synchronized String getMessage() {
+		if (description != null) {
+			message = description.get();
+			description = null;
+		}
+		return message;
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getMessage();
+		out.defaultWriteObject();
+	}
+}
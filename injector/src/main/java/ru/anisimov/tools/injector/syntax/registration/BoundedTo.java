@@ -0,0 +1,14 @@
+package ru.anisimov.tools.injector.syntax.registration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the instances cached for an ARGUMENTS-scoped registration. The least
+ * recently used ones are evicted first; instances older than the time to live
+ * are recreated. Without limits a registration caches up to 1024 instances.
+ */
+public interface BoundedTo<TResult> {
+	TResult boundedTo(int maximumSize);
+	
+	TResult boundedTo(int maximumSize, long timeToLive, TimeUnit unit);
+}
@@ -0,0 +1,7 @@
+package ru.anisimov.tools.injector.syntax.registration;
+
+public interface DependsOn<TResult> {
+	TResult dependsOn(Class<?> type);
+	
+	TResult dependsOn(String name, Class<?> type);
+}
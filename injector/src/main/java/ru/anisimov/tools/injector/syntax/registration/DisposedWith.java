@@ -0,0 +1,7 @@
+package ru.anisimov.tools.injector.syntax.registration;
+
+import ru.anisimov.tools.injector.Disposer;
+
+public interface DisposedWith<TResult> {
+	<TService> TResult disposedWith(Disposer<TService> disposer);
+}
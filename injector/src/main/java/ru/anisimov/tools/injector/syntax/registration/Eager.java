@@ -0,0 +1,15 @@
+package ru.anisimov.tools.injector.syntax.registration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks a CONTAINER or HIERARCHY-scoped registration without arguments to be
+ * built by {@code Container.warmUp} ahead of its first resolution. The
+ * timeout bounds how long warming up waits for its construction; without
+ * one it waits as long as the construction takes.
+ */
+public interface Eager<TResult> {
+	TResult eager();
+	
+	TResult eager(long timeout, TimeUnit unit);
+}
@@ -0,0 +1,21 @@
+package ru.anisimov.tools.injector.syntax.registration;
+
+import java.util.concurrent.TimeUnit;
+
+import ru.anisimov.tools.injector.Resetter;
+
+/**
+ * Makes a registration POOLED: at most {@code maxSize} instances are leased
+ * at a time, with {@code Container.lease}, and returned ones are kept for
+ * later leases. Instances idle for longer than the idle timeout are disposed
+ * when a lease is returned, except for the last {@code keepIdle} of them;
+ * instances are only created on demand, so the pool may hold fewer. Without
+ * limits a pool holds up to twice the number of processors and never evicts.
+ */
+public interface PooledWithin<TResult> {
+	TResult pooledWithin(int keepIdle, int maxSize);
+	
+	TResult pooledWithin(int keepIdle, int maxSize, long idleTimeout, TimeUnit unit);
+	
+	<TService> TResult resetWith(Resetter<TService> resetter);
+}
@@ -1,4 +1,7 @@
 package ru.anisimov.tools.injector.syntax.registration;
 
-public interface RegistrationInterface extends Named<ReusedWithin<?>>, ReusedWithin<Object> {
+public interface RegistrationInterface extends Named<RegistrationInterface>, 
+		ReusedWithin<RegistrationInterface>, DependsOn<RegistrationInterface>, 
+		DisposedWith<RegistrationInterface>, BoundedTo<RegistrationInterface>, 
+		PooledWithin<RegistrationInterface>, Eager<RegistrationInterface> {
 }
@@ -0,0 +1,371 @@
+package ru.anisimov.tools.injector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a single class file, just enough of the format for
+ * {@link ResolverCompiler}: a constant pool, fields without attributes and
+ * methods with code and stack map frames, all of which the caller lays out.
+ * Frames are only supported at points where the stack holds at most one
+ * reference and the locals are those the method was entered with.
+ */
+final class BytecodeWriter {
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_PRIVATE = 0x0002;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_FINAL = 0x0010;
+	static final int ACC_SUPER = 0x0020;
+	
+	static final int ALOAD_0 = 0x2a;
+	static final int ALOAD_1 = 0x2b;
+	static final int ALOAD_2 = 0x2c;
+	static final int ALOAD_3 = 0x2d;
+	static final int ASTORE_0 = 0x4b;
+	static final int AALOAD = 0x32;
+	static final int POP = 0x57;
+	static final int DUP = 0x59;
+	static final int IAND = 0x7e;
+	static final int IUSHR = 0x7c;
+	static final int IFNULL = 0xc6;
+	static final int ARETURN = 0xb0;
+	static final int RETURN = 0xb1;
+	static final int GETSTATIC = 0xb2;
+	static final int PUTSTATIC = 0xb3;
+	static final int INVOKEVIRTUAL = 0xb6;
+	static final int INVOKESPECIAL = 0xb7;
+	static final int INVOKESTATIC = 0xb8;
+	static final int INVOKEINTERFACE = 0xb9;
+	static final int CHECKCAST = 0xc0;
+	
+	private static final int JAVA_17 = 61;
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int MAXIMUM_CONSTANTS = 65535;
+	private static final int ITEM_OBJECT = 7;
+	
+	private final Bytes constants = new Bytes();
+	private final Map<String, Integer> constantIndices = new HashMap<>();
+	private final Bytes fields = new Bytes();
+	private final Bytes methods = new Bytes();
+	private final int access;
+	private final int thisClass;
+	private final int superClass;
+	private int constantCount = 1;
+	private int fieldCount;
+	private int methodCount;
+	
+	/*
+	 * Class names are internal names, such as java/lang/Object.
+	 */
+	BytecodeWriter(int access, String name, String superName) {
+		this.access = access;
+		this.thisClass = type(name);
+		this.superClass = type(superName);
+	}
+	
+	int utf8(String value) {
+		Integer index = constantIndices.get("U" + value);
+		if (index == null) {
+			constants.u1(CONSTANT_UTF8).utf(value);
+			index = add("U" + value, 1);
+		}
+		return index;
+	}
+	
+	int type(String name) {
+		return constant(CONSTANT_CLASS, "C" + name, utf8(name), -1);
+	}
+	
+	int string(String value) {
+		return constant(CONSTANT_STRING, "S" + value, utf8(value), -1);
+	}
+	
+	int field(String owner, String name, String descriptor) {
+		return member(CONSTANT_FIELDREF, owner, name, descriptor);
+	}
+	
+	int method(String owner, String name, String descriptor) {
+		return member(CONSTANT_METHODREF, owner, name, descriptor);
+	}
+	
+	int interfaceMethod(String owner, String name, String descriptor) {
+		return member(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+	}
+	
+	void addField(int access, String name, String descriptor) {
+		fields.u2(access).u2(utf8(name)).u2(utf8(descriptor)).u2(0);
+		fieldCount++;
+	}
+	
+	Code addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+		methods.u2(access).u2(utf8(name)).u2(utf8(descriptor));
+		methodCount++;
+		return new Code(maxStack, maxLocals);
+	}
+	
+	byte[] toByteArray() {
+		Bytes result = new Bytes();
+		result.u4(0xCAFEBABE).u2(0).u2(JAVA_17);
+		result.u2(constantCount).bytes(constants);
+		result.u2(access).u2(thisClass).u2(superClass).u2(0);
+		result.u2(fieldCount).bytes(fields);
+		result.u2(methodCount).bytes(methods);
+		result.u2(0);
+		return result.toByteArray();
+	}
+	
+	private int member(int tag, String owner, String name, String descriptor) {
+		int nameAndType = constant(CONSTANT_NAME_AND_TYPE, "N" + name + " " + descriptor,
+				utf8(name), utf8(descriptor));
+		return constant(tag, tag + owner + "." + name + " " + descriptor, type(owner), nameAndType);
+	}
+	
+	private int constant(int tag, String key, int first, int second) {
+		Integer index = constantIndices.get(key);
+		if (index == null) {
+			constants.u1(tag).u2(first);
+			if (second >= 0) {
+				constants.u2(second);
+			}
+			index = add(key, 1);
+		}
+		return index;
+	}
+	
+	private int add(String key, int slots) {
+		int index = constantCount;
+		if (index + slots > MAXIMUM_CONSTANTS) {
+			throw new IllegalStateException("Too many constants");
+		}
+		constantCount += slots;
+		constantIndices.put(key, index);
+		return index;
+	}
+	
+	/**
+	 * Code of the method added last; {@link #end()} has to be called before
+	 * another method is added.
+	 */
+	final class Code {
+		private final Bytes code = new Bytes();
+		private final List<int[]> frames = new ArrayList<>();
+		private final int maxStack;
+		private final int maxLocals;
+		
+		private Code(int maxStack, int maxLocals) {
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+		}
+		
+		Code op(int opcode) {
+			code.u1(opcode);
+			return this;
+		}
+		
+		/*
+		 * An instruction with a constant pool index operand.
+		 */
+		Code op(int opcode, int index) {
+			code.u1(opcode).u2(index);
+			return this;
+		}
+		
+		Code invokeinterface(int index, int argumentSlots) {
+			code.u1(INVOKEINTERFACE).u2(index).u1(argumentSlots + 1).u1(0);
+			return this;
+		}
+		
+		Code ldc(int index) {
+			code.u1(0x13).u2(index);
+			return this;
+		}
+		
+		Code sipush(int value) {
+			code.u1(0x11).u2(value);
+			return this;
+		}
+		
+		/*
+		 * Writes a branch whose target is set later with target(int, ...).
+		 */
+		int branch(int opcode) {
+			int position = code.length();
+			code.u1(opcode).u2(0);
+			return position;
+		}
+		
+		/*
+		 * Writes a table switch over low..high whose targets are set later
+		 * with caseTarget and defaultTarget.
+		 */
+		int tableswitch(int low, int high) {
+			int position = code.length();
+			code.u1(0xaa);
+			while (code.length() % 4 != 0) {
+				code.u1(0);
+			}
+			code.u4(0).u4(low).u4(high);
+			for (int i = low; i <= high; i++) {
+				code.u4(0);
+			}
+			return position;
+		}
+		
+		/*
+		 * Points the case of a table switch at the current position, which
+		 * gets a frame with the locals the method was entered with.
+		 */
+		void caseTarget(int tableswitch, int value) {
+			int table = defaultOffset(tableswitch);
+			int low = code.getInt(table + 4);
+			code.putInt(table + 12 + 4 * (value - low), code.length() - tableswitch);
+			frame(-1);
+		}
+		
+		void defaultTarget(int tableswitch) {
+			code.putInt(defaultOffset(tableswitch), code.length() - tableswitch);
+			frame(-1);
+		}
+		
+		/*
+		 * Points a branch at the current position, where the stack holds one
+		 * value of the given class, or none if the class is -1.
+		 */
+		void target(int branch, int stackType) {
+			code.putShort(branch + 1, code.length() - branch);
+			frame(stackType);
+		}
+		
+		void end() {
+			Bytes frameTable = new Bytes();
+			int previous = -1;
+			for (int[] frame: frames) {
+				int delta = frame[0] - previous - 1;
+				if (frame[1] < 0) {
+					if (delta < 64) {
+						frameTable.u1(delta);
+					} else {
+						frameTable.u1(251).u2(delta);
+					}
+				} else {
+					if (delta < 64) {
+						frameTable.u1(64 + delta);
+					} else {
+						frameTable.u1(247).u2(delta);
+					}
+					frameTable.u1(ITEM_OBJECT).u2(frame[1]);
+				}
+				previous = frame[0];
+			}
+			
+			Bytes attribute = new Bytes();
+			attribute.u2(maxStack).u2(maxLocals).u4(code.length()).bytes(code).u2(0);
+			if (frames.isEmpty()) {
+				attribute.u2(0);
+			} else {
+				attribute.u2(1).u2(utf8("StackMapTable")).u4(frameTable.length() + 2).
+						u2(frames.size()).bytes(frameTable);
+			}
+			methods.u2(1).u2(utf8("Code")).u4(attribute.length()).bytes(attribute);
+		}
+		
+		private int defaultOffset(int tableswitch) {
+			return (tableswitch + 4) & ~3;
+		}
+		
+		private void frame(int stackType) {
+			frames.add(new int[] { code.length(), stackType });
+		}
+	}
+	
+	private static final class Bytes {
+		private byte[] data = new byte[64];
+		private int length;
+		
+		Bytes u1(int value) {
+			ensure(1);
+			data[length++] = (byte) value;
+			return this;
+		}
+		
+		Bytes u2(int value) {
+			ensure(2);
+			data[length++] = (byte) (value >>> 8);
+			data[length++] = (byte) value;
+			return this;
+		}
+		
+		Bytes u4(int value) {
+			return u2(value >>> 16).u2(value);
+		}
+		
+		/*
+		 * Modified UTF-8 as read by DataInput.readUTF, without NUL bytes.
+		 */
+		Bytes utf(String value) {
+			int start = length;
+			u2(0);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c >= 0x0001 && c <= 0x007f) {
+					u1(c);
+				} else if (c <= 0x07ff) {
+					u1(0xc0 | (c >> 6)).u1(0x80 | (c & 0x3f));
+				} else {
+					u1(0xe0 | (c >> 12)).u1(0x80 | ((c >> 6) & 0x3f)).u1(0x80 | (c & 0x3f));
+				}
+			}
+			int size = length - start - 2;
+			if (size > 65535) {
+				throw new IllegalStateException("Constant too long");
+			}
+			putShort(start, size);
+			return this;
+		}
+		
+		Bytes bytes(Bytes other) {
+			ensure(other.length);
+			System.arraycopy(other.data, 0, data, length, other.length);
+			length += other.length;
+			return this;
+		}
+		
+		int getInt(int at) {
+			return (data[at] & 0xff) << 24 | (data[at + 1] & 0xff) << 16 |
+					(data[at + 2] & 0xff) << 8 | (data[at + 3] & 0xff);
+		}
+		
+		void putInt(int at, int value) {
+			putShort(at, value >>> 16);
+			putShort(at + 2, value);
+		}
+		
+		void putShort(int at, int value) {
+			data[at] = (byte) (value >>> 8);
+			data[at + 1] = (byte) value;
+		}
+		
+		int length() {
+			return length;
+		}
+		
+		byte[] toByteArray() {
+			return Arrays.copyOf(data, length);
+		}
+		
+		private void ensure(int size) {
+			if (length + size > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + size));
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package ru.anisimov.tools.injector;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one resolution, see
+ * {@link Container.Builder#recordEvents()}. Its duration covers the whole
+ * resolution, including the resolutions nested in it, whose events point to
+ * it by {@link #parentId}.
+ */
+@Name("ru.anisimov.tools.injector.Resolution")
+@Label("Resolution")
+@Category("Injector")
+@Description("Resolution of a service by a container")
+@StackTrace(false)
+final class ResolutionEvent extends Event {
+	@Label("Id")
+	long id;
+	
+	@Label("Parent Id")
+	@Description("Id of the resolution this one is nested in, 0 for none")
+	long parentId;
+	
+	@Label("Service Type")
+	Class<?> serviceType;
+	
+	@Label("Name")
+	String name;
+	
+	@Label("Scope")
+	String scope;
+	
+	@Label("Container Depth")
+	@Description("Parents of the resolving container, 0 for the root")
+	int depth;
+	
+	@Label("Cache Hit")
+	@Description("Whether an existing instance was returned without calling the factory")
+	boolean cacheHit;
+	
+	@Label("Factory Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long factoryDuration;
+}
@@ -0,0 +1,109 @@
+package ru.anisimov.tools.injector;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+/**
+ * Emits a {@link ResolutionEvent} around each resolution of a container
+ * hierarchy built with {@link Container.Builder#recordEvents()}.
+ * <p>
+ * While the event is disabled a resolution only pays for creating an event
+ * the JIT can eliminate and checking it. Otherwise the resolution gets a
+ * frame that observes its factory call and is the current frame of its
+ * thread while it runs, so nested resolutions find their parent. Factories
+ * that resolve on other threads start new trees.
+ */
+final class ResolutionEventRecorder implements ResolutionRecorder {
+	private final long thresholdNanos;
+	private final AtomicLong ids = new AtomicLong();
+	private final ThreadLocal<Frame> current = new ThreadLocal<>();
+	
+	ResolutionEventRecorder(long thresholdNanos) {
+		this.thresholdNanos = thresholdNanos;
+	}
+	
+	@Override
+	public Object record(Container container, Registry registry, ServiceEntry entry, 
+			Object[] args) throws ResolutionException {
+		ResolutionEvent event = new ResolutionEvent();
+		if (!event.isEnabled()) {
+			return container.resolveUnrecorded(registry, entry, args);
+		}
+		ResolutionMetrics metrics = container.getMetrics();
+		Frame parent = current.get();
+		Frame frame = new Frame(metrics != null ? metrics.of(entry) : null);
+		current.set(frame);
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			return container.resolveMeasured(entry, args, frame);
+		} finally {
+			long nanos = System.nanoTime() - start;
+			event.end();
+			current.set(parent);
+			if (nanos >= thresholdNanos && event.shouldCommit()) {
+				event.id = frame.id();
+				event.parentId = parent != null ? parent.id() : 0;
+				event.serviceType = entry.getKey().getResultType();
+				event.name = entry.getKey().getName();
+				event.scope = entry.getScope().name();
+				event.depth = depthOf(container);
+				event.cacheHit = !frame.factoryInvoked && entry.getScope() != ReuseScope.NONE;
+				event.factoryDuration = frame.factoryNanos;
+				event.commit();
+			}
+		}
+	}
+	
+	private static int depthOf(Container container) {
+		int depth = 0;
+		for (Container parent = container.getParent(); parent != null; parent = parent.getParent()) {
+			depth++;
+		}
+		return depth;
+	}
+	
+	/*
+	 * A resolution in progress. Its id is taken when its event, or that of a
+	 * nested resolution, is committed, which a nested one always is first.
+	 * Metrics, if enabled, see the same calls.
+	 */
+	private final class Frame implements ResolutionObserver {
+		private final ResolutionMetrics.Counters counters;
+		private long id;
+		private boolean factoryInvoked;
+		private long factoryNanos;
+		
+		Frame(ResolutionMetrics.Counters counters) {
+			this.counters = counters;
+			if (counters != null) {
+				counters.resolve();
+			}
+		}
+		
+		long id() {
+			if (id == 0) {
+				id = ids.incrementAndGet();
+			}
+			return id;
+		}
+		
+		@Override
+		public void cacheHit() {
+			if (counters != null) {
+				counters.cacheHit();
+			}
+		}
+		
+		@Override
+		public void factoryInvoked(long nanos) {
+			factoryInvoked = true;
+			factoryNanos += nanos;
+			if (counters != null) {
+				counters.factoryInvoked(nanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package ru.anisimov.tools.injector;
+
+import static ru.anisimov.tools.injector.BytecodeWriter.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+
+/**
+ * Generates the {@link CompiledResolver} of a registry built with
+ * {@link Container.Builder#compile()}.
+ * <p>
+ * The generated class is a hidden class with a static method per entry,
+ * reached by entry index through two levels of table switches of at most
+ * {@value #CHUNK} cases, which keeps every method small enough for the JIT.
+ * The factory of a NONE-scoped entry is held in a static final field, so the
+ * JIT sees it as a constant and can inline its call; CONTAINER and
+ * HIERARCHY-scoped entries return their instance without going through the
+ * scope switch. Everything else, and entries past
+ * {@value CompiledResolver#MAXIMUM_ENTRIES}, goes to
+ * {@link Container#resolveScoped(ServiceEntry, Object[])}, as do the empty
+ * slots of removed entries, which are never resolved.
+ * <p>
+ * The class is not linked strongly to its class loader, so it is unloaded
+ * with the last container using it.
+ */
+final class ResolverCompiler {
+	private static final int MAXIMUM_ENTRIES = CompiledResolver.MAXIMUM_ENTRIES;
+	private static final int CHUNK = 256;
+	private static final int CHUNK_BITS = 8;
+	
+	private static final String SELF = internalName(CompiledResolver.class);
+	private static final String GENERATED = SELF + "$Generated";
+	private static final String CONTAINER = internalName(Container.class);
+	private static final String ENTRY = internalName(ServiceEntry.class);
+	private static final String FACTORY = internalName(Factory.class);
+	private static final String AWARE_FACTORY = internalName(ContainerAwareFactory.class);
+	private static final String OBJECT = "java/lang/Object";
+	private static final String RESOLVE = "(L" + CONTAINER + ";L" + ENTRY + ";[Ljava/lang/Object;)Ljava/lang/Object;";
+	
+	private ResolverCompiler() {}
+	
+	/*
+	 * Returns null for an empty registry, which has nothing to specialize.
+	 */
+	static CompiledResolver compile(ServiceEntry[] entries) {
+		if (entries.length == 0) {
+			return null;
+		}
+		int size = Math.min(entries.length, MAXIMUM_ENTRIES);
+		Object[] factories = new Object[size];
+		BytecodeWriter writer = new BytecodeWriter(ACC_PUBLIC | ACC_FINAL | ACC_SUPER, GENERATED, SELF);
+		int resolveScoped = writer.method(CONTAINER, "resolveScoped",
+				"(L" + ENTRY + ";[Ljava/lang/Object;)Ljava/lang/Object;");
+		
+		for (int i = 0; i < size; i++) {
+			ServiceEntry entry = entries[i];
+			if (entry != null && entry.getScope() == ReuseScope.NONE) {
+				Factory<?> plain = Registration.plainFactoryOf(entry.getFactory());
+				factories[i] = plain != null ? plain : entry.getFactory();
+				writer.addField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "factory" + i,
+						"L" + (plain != null ? FACTORY : AWARE_FACTORY) + ";");
+			}
+		}
+		
+		BytecodeWriter.Code code = writer.addMethod(ACC_STATIC, "<clinit>", "()V", 3, 1);
+		code.op(INVOKESTATIC, writer.method("java/lang/invoke/MethodHandles", "lookup",
+				"()Ljava/lang/invoke/MethodHandles$Lookup;"));
+		code.ldc(writer.string("_")).ldc(writer.type("[Ljava/lang/Object;"));
+		code.op(INVOKESTATIC, writer.method("java/lang/invoke/MethodHandles", "classData",
+				"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+		code.op(CHECKCAST, writer.type("[Ljava/lang/Object;")).op(ASTORE_0);
+		for (int i = 0; i < size; i++) {
+			if (factories[i] != null) {
+				String type = factories[i] instanceof Factory ? FACTORY : AWARE_FACTORY;
+				code.op(ALOAD_0).sipush(i).op(AALOAD).op(CHECKCAST, writer.type(type));
+				code.op(PUTSTATIC, writer.field(GENERATED, "factory" + i, "L" + type + ";"));
+			}
+		}
+		code.op(RETURN).end();
+		
+		code = writer.addMethod(ACC_PUBLIC, "<init>", "()V", 1, 1);
+		code.op(ALOAD_0).op(INVOKESPECIAL, writer.method(SELF, "<init>", "()V")).op(RETURN).end();
+		
+		int getIndex = writer.method(ENTRY, "getIndex", "()I");
+		int chunks = (size + CHUNK - 1) / CHUNK;
+		code = writer.addMethod(0, "resolve", RESOLVE, 3, 4);
+		code.op(ALOAD_2).op(INVOKEVIRTUAL, getIndex).sipush(CHUNK_BITS).op(IUSHR);
+		int tableswitch = code.tableswitch(0, chunks - 1);
+		for (int k = 0; k < chunks; k++) {
+			code.caseTarget(tableswitch, k);
+			code.op(ALOAD_1).op(ALOAD_2).op(ALOAD_3);
+			code.op(INVOKESTATIC, writer.method(GENERATED, "chunk" + k, RESOLVE)).op(ARETURN);
+		}
+		code.defaultTarget(tableswitch);
+		code.op(ALOAD_1).op(ALOAD_2).op(ALOAD_3).op(INVOKEVIRTUAL, resolveScoped).op(ARETURN).end();
+		
+		for (int k = 0; k < chunks; k++) {
+			int first = k * CHUNK;
+			int last = Math.min(first + CHUNK, size) - 1;
+			code = writer.addMethod(ACC_PRIVATE | ACC_STATIC, "chunk" + k, RESOLVE, 3, 3);
+			code.op(ALOAD_1).op(INVOKEVIRTUAL, getIndex).sipush(CHUNK - 1).op(IAND);
+			tableswitch = code.tableswitch(0, last - first);
+			for (int i = first; i <= last; i++) {
+				code.caseTarget(tableswitch, i - first);
+				code.op(ALOAD_0).op(ALOAD_1).op(ALOAD_2);
+				code.op(INVOKESTATIC, writer.method(GENERATED, "entry" + i, RESOLVE)).op(ARETURN);
+			}
+			code.defaultTarget(tableswitch);
+			code.op(ALOAD_0).op(ALOAD_1).op(ALOAD_2).op(INVOKEVIRTUAL, resolveScoped).op(ARETURN).end();
+		}
+		
+		int getInstance = writer.method(ENTRY, "getInstance", "()Ljava/lang/Object;");
+		for (int i = 0; i < size; i++) {
+			code = writer.addMethod(ACC_PRIVATE | ACC_STATIC, "entry" + i, RESOLVE, 3, 3);
+			switch (entries[i] != null ? entries[i].getScope() : ReuseScope.NONE) {
+			case NONE:
+				if (factories[i] == null) {
+					break;
+				}
+				if (factories[i] instanceof Factory) {
+					code.op(GETSTATIC, writer.field(GENERATED, "factory" + i, "L" + FACTORY + ";"));
+					code.op(ALOAD_2).invokeinterface(writer.interfaceMethod(FACTORY, "newInstance",
+							"([Ljava/lang/Object;)Ljava/lang/Object;"), 1);
+				} else {
+					code.op(GETSTATIC, writer.field(GENERATED, "factory" + i, "L" + AWARE_FACTORY + ";"));
+					code.op(ALOAD_0).op(ALOAD_2).invokeinterface(writer.interfaceMethod(AWARE_FACTORY, "newInstance",
+							"(L" + CONTAINER + ";[Ljava/lang/Object;)Ljava/lang/Object;"), 2);
+				}
+				code.op(ARETURN).end();
+				continue;
+			case CONTAINER:
+			case HIERARCHY:
+				code.op(ALOAD_1).op(INVOKEVIRTUAL, getInstance).op(DUP);
+				int branch = code.branch(IFNULL);
+				code.op(ARETURN);
+				code.target(branch, writer.type(OBJECT));
+				code.op(POP);
+				break;
+			default:
+				break;
+			}
+			code.op(ALOAD_0).op(ALOAD_1).op(ALOAD_2).op(INVOKEVIRTUAL, resolveScoped).op(ARETURN).end();
+		}
+		
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(
+					writer.toByteArray(), factories, true);
+			return (CompiledResolver) lookup.findConstructor(lookup.lookupClass(),
+					MethodType.methodType(void.class)).invoke();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Failed to compile the resolver", e);
+		}
+	}
+	
+	private static String internalName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+}
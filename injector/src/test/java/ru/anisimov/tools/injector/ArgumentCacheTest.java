@@ -0,0 +1,225 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ArgumentCacheTest {
+	@Test
+	public void instancesAreCachedPerArgumentValues() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new ClientFactory(), String.class, int.class).
+				reusedWithin(ReuseScope.ARGUMENTS);
+		
+		Container container = builder.build();
+		Client a = container.resolve(Client.class, "a", 1);
+		Client b = container.resolve(Client.class, "b", 1);
+		
+		assertNotSame(a, b);
+		assertEquals("a1", a.id);
+		assertEquals("b1", b.id);
+		assertSame(a, container.resolve(Client.class, "a", 1));
+		assertSame(a, container.createChildContainer().resolve(Client.class, "a", 1));
+		assertNotSame(a, container.resolve(Client.class, "a", 2));
+		
+		CacheStats stats = container.cacheStats(Client.class, String.class, int.class);
+		assertEquals(2, stats.getHits());
+		assertEquals(3, stats.getMisses());
+		assertEquals(3, stats.getSize());
+	}
+	
+	@Test
+	public void cacheStatsAreNullForOtherScopes() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new ClientFactory(), String.class, int.class).
+				reusedWithin(ReuseScope.HIERARCHY);
+		
+		assertNull(builder.build().cacheStats(Client.class, String.class, int.class));
+	}
+	
+	@Test
+	public void leastRecentlyUsedInstancesAreEvicted() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new ClientFactory(), String.class, int.class).
+				reusedWithin(ReuseScope.ARGUMENTS).boundedTo(2);
+		
+		Container container = builder.build();
+		container.resolve(Client.class, "a", 0);
+		Client b = container.resolve(Client.class, "b", 0);
+		Client c = container.resolve(Client.class, "c", 0);
+		container.resolve(Client.class, "b", 0);
+		container.resolve(Client.class, "d", 0);
+		
+		CacheStats stats = container.cacheStats(Client.class, String.class, int.class);
+		assertEquals(2, stats.getSize());
+		assertEquals(2, stats.getEvictions());
+		assertSame(b, container.resolve(Client.class, "b", 0));
+		assertNotSame(c, container.resolve(Client.class, "c", 0));
+	}
+	
+	@Test
+	public void expiredInstancesAreRecreated() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new ClientFactory(), String.class, int.class).
+				reusedWithin(ReuseScope.ARGUMENTS).boundedTo(10, 1, TimeUnit.MILLISECONDS);
+		
+		Container container = builder.build();
+		Client a = container.resolve(Client.class, "a", 0);
+		Thread.sleep(5);
+		
+		assertNotSame(a, container.resolve(Client.class, "a", 0));
+		assertEquals(1, container.cacheStats(Client.class, String.class, int.class).getExpirations());
+	}
+	
+	@Test
+	public void failedCreationsLeaveNothingCached() throws ResolutionException {
+		final AtomicInteger calls = new AtomicInteger();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new Factory<Client>() {
+			@Override
+			public Client newInstance(Object... args) {
+				if (calls.incrementAndGet() == 1) {
+					throw new IllegalStateException("broken");
+				}
+				return new Client("" + args[0]);
+			}
+		}, String.class).reusedWithin(ReuseScope.ARGUMENTS);
+		
+		Container container = builder.build();
+		try {
+			container.resolve(Client.class, "a");
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("broken", e.getMessage());
+		}
+		assertEquals(0, container.cacheStats(Client.class, String.class).getSize());
+		
+		Client a = container.resolve(Client.class, "a");
+		assertSame(a, container.resolve(Client.class, "a"));
+		assertEquals(1, container.cacheStats(Client.class, String.class).getSize());
+	}
+	
+	@Test
+	public void concurrentResolutionsCreateOneInstancePerKey() throws Exception {
+		final ClientFactory factory = new ClientFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, factory, String.class, int.class).
+				reusedWithin(ReuseScope.ARGUMENTS).boundedTo(100);
+		final Container container = builder.build();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Client>> results = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				final int key = i % 10;
+				results.add(executor.submit(new Callable<Client>() {
+					@Override
+					public Client call() throws Exception {
+						return container.resolve(Client.class, "k", key);
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertSame(results.get(i % 10).get(), results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(10, factory.created.get());
+	}
+	
+	@Test
+	public void rootCloseDisposesCachedInstances() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Client.class, new ClientFactory(), String.class, int.class).
+				reusedWithin(ReuseScope.ARGUMENTS);
+		
+		Container container = builder.build();
+		Client a = container.resolve(Client.class, "a", 0);
+		Client b = container.resolve(Client.class, "b", 0);
+		container.close();
+		
+		assertTrue(a.closed);
+		assertTrue(b.closed);
+		assertEquals(0, container.cacheStats(Client.class, String.class, int.class).getSize());
+	}
+	
+	@Test
+	public void cachedInstancesAreDisposedBeforeWhatTheyWereBuiltFrom() throws ResolutionException {
+		final List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Resource.class, new Factory<Resource>() {
+			@Override
+			public Resource newInstance(Object... args) {
+				return new Resource("singleton", disposed);
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Resource.class, new ContainerAwareFactory<Resource>() {
+			@Override
+			public Resource newInstance(Container container, Object... args) throws ResolutionException {
+				container.resolve(Resource.class);
+				return new Resource("argument " + args[0], disposed);
+			}
+		}, String.class).reusedWithin(ReuseScope.ARGUMENTS);
+		
+		Container container = builder.build();
+		container.resolve(Resource.class, "a");
+		container.close();
+		
+		assertEquals(Arrays.asList("argument a", "singleton"), disposed);
+	}
+	
+	private static class ClientFactory implements Factory<Client> {
+		private final AtomicInteger created = new AtomicInteger();
+		
+		@Override
+		public Client newInstance(Object... args) {
+			created.incrementAndGet();
+			return new Client("" + args[0] + args[1]);
+		}
+	}
+	
+	private static class Client implements AutoCloseable {
+		private final String id;
+		private volatile boolean closed;
+		
+		Client(String id) {
+			this.id = id;
+		}
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+	
+	private static class Resource implements AutoCloseable {
+		private final String name;
+		private final List<String> disposed;
+		
+		Resource(String name, List<String> disposed) {
+			this.name = name;
+			this.disposed = disposed;
+		}
+		
+		@Override
+		public void close() {
+			disposed.add(name);
+		}
+	}
+}
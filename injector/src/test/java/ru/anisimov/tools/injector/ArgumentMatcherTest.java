@@ -0,0 +1,122 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ArgumentMatcherTest {
+	@Test
+	public void subtypeArgumentsMatchRegisteredTypes() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("list"), List.class);
+		
+		Container container = builder.build();
+		List<String> list = new ArrayList<>();
+		
+		assertEquals("list", container.resolve(Bar.class, list).tag);
+		assertSame(list, container.resolve(Bar.class, list).args[0]);
+	}
+	
+	@Test
+	public void nullArgumentsMatchReferenceTypes() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("string"), String.class, int.class);
+		
+		Container container = builder.build();
+		
+		assertEquals("string", container.resolve(Bar.class, null, 1).tag);
+		assertNull(container.tryResolve(Bar.class, "a", null));
+	}
+	
+	@Test
+	public void boxedArgumentsMatchPrimitiveTypes() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("int"), int.class).named("counter");
+		
+		Container container = builder.build();
+		
+		assertEquals("int", container.resolve("counter", Bar.class, 3).tag);
+		assertNull(container.tryResolve("counter", Bar.class, 3L));
+	}
+	
+	@Test
+	public void mostSpecificRegistrationWins() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("object"), Object.class);
+		builder.register(Bar.class, new BarFactory("charSequence"), CharSequence.class);
+		builder.register(Bar.class, new BarFactory("integer"), Integer.class);
+		
+		Container container = builder.build();
+		
+		assertEquals("charSequence", container.resolve(Bar.class, "text").tag);
+		assertEquals("charSequence", container.resolve(Bar.class, new StringBuilder()).tag);
+		assertEquals("object", container.resolve(Bar.class, 1L).tag);
+		assertEquals("integer", container.resolve(Bar.class, 1).tag);
+	}
+	
+	@Test(expected=ResolutionException.class)
+	public void ambiguousArgumentsThrow() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("charSequence"), CharSequence.class);
+		builder.register(Bar.class, new BarFactory("serializable"), Serializable.class);
+		
+		builder.build().resolve(Bar.class, "text");
+	}
+	
+	@Test
+	public void matchesAreMemoizedPerArgumentClasses() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("list"), List.class);
+		builder.register(Bar.class, new BarFactory("object"), Object.class);
+		
+		Container container = builder.build();
+		for (int i = 0; i < 3; i++) {
+			assertEquals("list", container.resolve(Bar.class, new ArrayList<>()).tag);
+			assertEquals("object", container.resolve(Bar.class, "text").tag);
+			assertEquals("list", container.resolve(Bar.class, (Object) null).tag);
+			assertNull(container.tryResolve("missing", Bar.class, "text"));
+		}
+	}
+	
+	@Test
+	public void handlesMatchArgumentTypes() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory("list"), List.class);
+		
+		ServiceHandle<Bar> handle = builder.build().handle(Bar.class, ArrayList.class);
+		
+		assertEquals("list", handle.resolve(new ArrayList<>()).tag);
+	}
+	
+	private static class BarFactory implements Factory<Bar> {
+		private final String tag;
+		
+		BarFactory(String tag) {
+			this.tag = tag;
+		}
+		
+		@Override
+		public Bar newInstance(Object... args) {
+			return new Bar(tag, args);
+		}
+	}
+	
+	private static class Bar {
+		private final String tag;
+		private final Object[] args;
+		
+		Bar(String tag, Object[] args) {
+			this.tag = tag;
+			this.args = args;
+		}
+	}
+}
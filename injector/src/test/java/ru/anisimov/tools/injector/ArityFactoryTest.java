@@ -0,0 +1,204 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+import ru.anisimov.tools.injector.exceptions.ServiceNotFoundException;
+
+@RunWith(JUnit4.class)
+public class ArityFactoryTest {
+	@Test
+	public void fixedArityFactoriesResolveWithAndWithoutArray() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerTyped(String.class, new Factory0<String>() {
+			@Override
+			public String newInstance() {
+				return "0";
+			}
+		});
+		builder.registerTyped(String.class, new Factory1<String, Integer>() {
+			@Override
+			public String newInstance(Integer a) {
+				return "1:" + a;
+			}
+		}, Integer.class);
+		builder.registerTyped(String.class, new Factory2<String, Integer, String>() {
+			@Override
+			public String newInstance(Integer a, String b) {
+				return "2:" + a + b;
+			}
+		}, Integer.class, String.class);
+		builder.registerTyped(String.class, new Factory3<String, Integer, String, Long>() {
+			@Override
+			public String newInstance(Integer a, String b, Long c) {
+				return "3:" + a + b + c;
+			}
+		}, Integer.class, String.class, Long.class);
+		builder.registerTyped(String.class, new Factory4<String, Integer, String, Long, Boolean>() {
+			@Override
+			public String newInstance(Integer a, String b, Long c, Boolean d) {
+				return "4:" + a + b + c + d;
+			}
+		}, Integer.class, String.class, Long.class, Boolean.class).named("four");
+		Container container = builder.build();
+		
+		assertEquals("0", container.resolveTyped(String.class));
+		assertEquals("1:7", container.resolveTyped(String.class, Integer.valueOf(7)));
+		assertEquals("2:7x", container.resolveTyped(String.class, 7, "x"));
+		assertEquals("3:7x8", container.resolveTyped(String.class, 7, "x", 8L));
+		assertEquals("4:7x8true", container.resolveTypedNamed("four", String.class, 7, "x", 8L, true));
+		assertEquals("2:7x", container.resolve(String.class, new Object[] { 7, "x" }));
+		assertEquals("4:7x8true", container.resolve("four", String.class, new Object[] { 7, "x", 8L, true }));
+	}
+	
+	@Test
+	public void primitiveFactoriesResolveUnboxedAndBoxed() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerInt(String.class, new IntFactory<String>() {
+			@Override
+			public String newInstance(int value) {
+				return "int:" + value;
+			}
+		});
+		builder.registerLong(String.class, new LongFactory<String>() {
+			@Override
+			public String newInstance(long value) {
+				return "long:" + value;
+			}
+		});
+		builder.registerBoolean(String.class, new BooleanFactory<String>() {
+			@Override
+			public String newInstance(boolean value) {
+				return "boolean:" + value;
+			}
+		}).named("flag");
+		Container container = builder.build();
+		
+		assertEquals("int:1", container.resolveInt(String.class, 1));
+		assertEquals("long:2", container.resolveLong(String.class, 2L));
+		assertEquals("boolean:true", container.resolveBoolean("flag", String.class, true));
+		assertEquals("int:1", container.resolve(String.class, new Object[] { 1 }));
+		assertEquals("long:2", container.resolve(String.class, new Object[] { 2L }));
+	}
+	
+	@Test
+	public void primitiveArgumentsReachBoxedRegistrations() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(String.class, new Factory<String>() {
+			@Override
+			public String newInstance(Object... args) {
+				return "plain:" + args[0];
+			}
+		}, Integer.class);
+		builder.registerTyped(String.class, new Factory1<String, Long>() {
+			@Override
+			public String newInstance(Long a) {
+				return "typed:" + a;
+			}
+		}, long.class);
+		Container container = builder.build();
+		
+		assertEquals("plain:3", container.resolveInt(String.class, 3));
+		assertEquals("typed:4", container.resolveLong(String.class, 4L));
+	}
+	
+	@Test
+	public void narrowPrimitiveArgumentsKeepTheirWrappers() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(String.class, new Factory<String>() {
+			@Override
+			public String newInstance(Object... args) {
+				return "char:" + args[0];
+			}
+		}, Character.class);
+		builder.register(String.class, new Factory<String>() {
+			@Override
+			public String newInstance(Object... args) {
+				return "short:" + args[0];
+			}
+		}, Short.class);
+		builder.register(String.class, new Factory<String>() {
+			@Override
+			public String newInstance(Object... args) {
+				return "byte:" + args[0];
+			}
+		}, Byte.class);
+		Container container = builder.build();
+		
+		assertEquals("char:c", container.resolve(String.class, 'c'));
+		assertEquals("short:5", container.resolve(String.class, (short) 5));
+		assertEquals("byte:6", container.resolve(String.class, (byte) 6));
+	}
+	
+	@Test
+	public void lambdaFactoriesRegisterUnambiguously() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(String.class, args -> "lambda:" + args[0], Integer.class);
+		builder.registerTyped(String.class, () -> "typed").named("typed");
+		builder.registerInt(String.class, value -> "int:" + value).named("int");
+		Container container = builder.build();
+		
+		assertEquals("lambda:1", container.resolve(String.class, 1));
+		assertEquals("lambda:1", container.resolve((String) null, String.class, 1));
+		assertEquals("typed", container.resolve("typed", String.class));
+		assertEquals("int:2", container.resolveInt("int", String.class, 2));
+	}
+	
+	@Test
+	public void reusedRegistrationsKeepTheirScope() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerTyped(Object.class, new Factory1<Object, String>() {
+			@Override
+			public Object newInstance(String a) {
+				return new Object();
+			}
+		}, String.class).reusedWithin(ReuseScope.CONTAINER);
+		builder.registerInt(Object.class, new IntFactory<Object>() {
+			@Override
+			public Object newInstance(int value) {
+				return new Object();
+			}
+		}).reusedWithin(ReuseScope.ARGUMENTS);
+		Container container = builder.build();
+		
+		assertSame(container.resolveTyped(Object.class, "a"), container.resolveTyped(Object.class, "b"));
+		assertSame(container.resolveInt(Object.class, 1), container.resolveInt(Object.class, 1));
+		assertNotSame(container.resolveInt(Object.class, 1), container.resolveInt(Object.class, 2));
+	}
+	
+	@Test
+	public void missesAndClosedContainersFail() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerTyped(Object.class, new Factory0<Object>() {
+			@Override
+			public Object newInstance() {
+				return new Object();
+			}
+		});
+		Container container = builder.build();
+		
+		try {
+			container.resolveTyped(Object.class, 1, "x");
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertTrue(e.getMessage().startsWith("No registration of java.lang.Object(java.lang.Integer, java.lang.String)"));
+		}
+		try {
+			container.resolveBoolean(Object.class, true);
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertTrue(e.getMessage().startsWith("No registration of java.lang.Object(java.lang.Boolean)"));
+		}
+		container.close();
+		try {
+			container.resolveTyped(Object.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Container is closed", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class AsyncResolutionTest {
+	private ExecutorService executor;
+	
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void independentDependenciesAreBuiltInParallel() throws Exception {
+		final CountDownLatch allStarted = new CountDownLatch(3);
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		for (String name: new String[] { "a", "b", "c" }) {
+			builder.register(Part.class, new ContainerAwareFactory<Part>() {
+				@Override
+				public Part newInstance(Container container, Object... args) throws ResolutionException {
+					allStarted.countDown();
+					try {
+						if (!allStarted.await(5, TimeUnit.SECONDS)) {
+							throw new ResolutionException("Parts were built one by one");
+						}
+					} catch (InterruptedException e) {
+						throw new ResolutionException("Interrupted", e);
+					}
+					return new Part();
+				}
+			}).named(name).reusedWithin(ReuseScope.HIERARCHY);
+		}
+		builder.register(Whole.class, new ContainerAwareFactory<Whole>() {
+			@Override
+			public Whole newInstance(Container container, Object... args) throws ResolutionException {
+				return new Whole(container.resolve("a", Part.class), 
+						container.resolve("b", Part.class), container.resolve("c", Part.class));
+			}
+		}).dependsOn("a", Part.class).dependsOn("b", Part.class).dependsOn("c", Part.class);
+		
+		Container container = builder.build();
+		Whole whole = container.resolveAsync(Whole.class).get(10, TimeUnit.SECONDS);
+		
+		assertSame(container.resolve("a", Part.class), whole.parts[0]);
+		assertSame(container.resolve("c", Part.class), whole.parts[2]);
+	}
+	
+	@Test
+	public void concurrentRequestersShareOneFuture() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger created = new AtomicInteger();
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				created.incrementAndGet();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new Part();
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		
+		Container container = builder.build();
+		CompletableFuture<Part> first = container.resolveAsync(Part.class);
+		CompletableFuture<Part> second = container.createChildContainer().resolveAsync(Part.class);
+		
+		assertSame(first, second);
+		release.countDown();
+		assertSame(first.get(5, TimeUnit.SECONDS), container.resolve(Part.class));
+		assertEquals(1, created.get());
+		assertTrue(container.resolveAsync(Part.class).isDone());
+	}
+	
+	@Test
+	public void asyncFactoriesServeBothResolutions() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		builder.register(Part.class, new AsyncFactory<Part>() {
+			@Override
+			public CompletableFuture<Part> newInstanceAsync(Container container, Executor executor, Object... args) {
+				return CompletableFuture.supplyAsync(Part::new, executor);
+			}
+		}).reusedWithin(ReuseScope.CONTAINER);
+		
+		Container container = builder.build();
+		Part part = container.resolveAsync(Part.class).get(5, TimeUnit.SECONDS);
+		
+		assertSame(part, container.resolve(Part.class));
+		assertNotSame(part, container.createChildContainer().resolve(Part.class));
+	}
+	
+	@Test
+	public void candidatesLosingToASynchronousResolutionAreDisposed() throws Exception {
+		final CompletableFuture<Resource> slow = new CompletableFuture<>();
+		final CountDownLatch started = new CountDownLatch(1);
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		builder.register(Resource.class, new AsyncFactory<Resource>() {
+			@Override
+			public CompletableFuture<Resource> newInstanceAsync(Container container, Executor executor, Object... args) {
+				if (started.getCount() > 0) {
+					started.countDown();
+					return slow;
+				}
+				return CompletableFuture.completedFuture(new Resource());
+			}
+		}).reusedWithin(ReuseScope.CONTAINER);
+		Container container = builder.build();
+		
+		CompletableFuture<Resource> async = container.resolveAsync(Resource.class);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Resource stored = container.resolve(Resource.class);
+		Resource candidate = new Resource();
+		slow.complete(candidate);
+		
+		assertSame(stored, async.get(5, TimeUnit.SECONDS));
+		assertTrue(candidate.closed);
+		assertFalse(stored.closed);
+	}
+	
+	@Test
+	public void failuresCompleteTheFuture() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance().executor(executor);
+		builder.register(Part.class, new ContainerAwareFactory<Part>() {
+			@Override
+			public Part newInstance(Container container, Object... args) throws ResolutionException {
+				throw new ResolutionException("broken");
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		Container container = builder.build();
+		
+		assertCause(container.resolveAsync(Whole.class), ResolutionException.class);
+		CompletableFuture<Part> failed = container.resolveAsync(Part.class);
+		assertCause(failed, ResolutionException.class);
+		CompletableFuture<Part> retried = container.resolveAsync(Part.class);
+		assertNotSame(failed, retried);
+		assertCause(retried, ResolutionException.class);
+	}
+	
+	private static void assertCause(CompletableFuture<?> future, Class<? extends Throwable> type) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(type.isInstance(e.getCause()));
+		}
+	}
+	
+	private static class Part {
+	}
+	
+	private static class Resource implements AutoCloseable {
+		private volatile boolean closed;
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+	
+	private static class Whole {
+		private final Part[] parts;
+		
+		Whole(Part... parts) {
+			this.parts = parts;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class CompiledResolverTest {
+	@Test
+	public void compiledContainerResolvesEveryScope() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory(), String.class);
+		builder.register(Bar.class, new BarFactory()).named("container").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Bar.class, new BarFactory()).named("hierarchy").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Bar.class, new BarFactory(), String.class).named("arguments").reusedWithin(ReuseScope.ARGUMENTS);
+		builder.register(Bar.class, new BarFactory()).named("thread").reusedWithin(ReuseScope.THREAD);
+		builder.register(Baz.class, new ContainerAwareFactory<Baz>() {
+			@Override
+			public Baz newInstance(Container container, Object... args) throws ResolutionException {
+				return new Baz(container.resolve("hierarchy", Bar.class));
+			}
+		});
+		Container parent = builder.compile();
+		Container child = parent.createChildContainer();
+		
+		assertTrue(parent.getRegistry().resolver().getClass().isHidden());
+		assertEquals("a", child.resolve(Bar.class, "a").name);
+		assertNotSame(child.resolve(Bar.class, "a"), child.resolve(Bar.class, "a"));
+		assertSame(child.resolve("container", Bar.class), child.resolve("container", Bar.class));
+		assertNotSame(parent.resolve("container", Bar.class), child.resolve("container", Bar.class));
+		assertSame(parent.resolve("hierarchy", Bar.class), child.resolve("hierarchy", Bar.class));
+		assertSame(child.resolve("arguments", Bar.class, "b"), parent.resolve("arguments", Bar.class, "b"));
+		assertSame(child.resolve("thread", Bar.class), parent.resolve("thread", Bar.class));
+		assertSame(parent.resolve("hierarchy", Bar.class), child.resolve(Baz.class).bar);
+		assertSame(child.resolve("hierarchy", Bar.class), child.handle("hierarchy", Bar.class).resolve());
+	}
+	
+	@Test
+	public void compiledContainerDispatchesAcrossChunks() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		for (int i = 0; i < 600; i++) {
+			builder.register(Bar.class, new BarFactory(), String.class).named("bar" + i).
+					reusedWithin(i % 2 == 0 ? ReuseScope.NONE : ReuseScope.HIERARCHY);
+		}
+		Container container = builder.compile();
+		
+		for (int i = 0; i < 600; i += 7) {
+			assertEquals("bar" + i, container.resolve("bar" + i, Bar.class, "bar" + i).name);
+		}
+		assertSame(container.resolve("bar599", Bar.class, "x"), container.resolve("bar599", Bar.class, "y"));
+	}
+	
+	@Test
+	public void compiledContainerReportsFailures() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory()).reusedWithin(ReuseScope.HIERARCHY);
+		Container container = builder.compile();
+		
+		assertNull(container.tryResolve(Baz.class));
+		container.close();
+		try {
+			container.resolve(Bar.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Container is closed", e.getMessage());
+		}
+		assertNull(Container.Builder.newInstance().compile().tryResolve(Bar.class));
+	}
+	
+	private static class BarFactory implements Factory<Bar> {
+		@Override
+		public Bar newInstance(Object... args) { 
+			return new Bar(args.length > 0 ? (String) args[0] : ""); 
+		}
+	}
+	
+	private static class Bar {
+		private final String name;
+		
+		public Bar(String name) {
+			this.name = name;
+		}
+	}
+	
+	private static class Baz {
+		private final Bar bar;
+		
+		public Baz(Bar bar) {
+			this.bar = bar;
+		}
+	}
+}
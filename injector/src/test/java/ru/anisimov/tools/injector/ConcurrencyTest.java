@@ -0,0 +1,169 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ConcurrencyTest {
+	private static final int THREADS = 32;
+	
+	@Test
+	public void hierarchyScopedInstanceIsCreatedOnce() throws Exception {
+		CountingFactory factory = new CountingFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, factory).reusedWithin(ReuseScope.HIERARCHY);
+		final Container container = builder.build();
+		
+		List<Bar> bars = resolveConcurrently(new Callable<Bar>() {
+			@Override
+			public Bar call() throws Exception {
+				return container.createChildContainer().resolve(Bar.class);
+			}
+		});
+		
+		assertEquals(1, factory.created.get());
+		for (Bar bar: bars) {
+			assertSame(bars.get(0), bar);
+		}
+	}
+	
+	@Test
+	public void containerScopedInstanceIsCreatedOncePerContainer() throws Exception {
+		CountingFactory factory = new CountingFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, factory).reusedWithin(ReuseScope.CONTAINER);
+		final Container child = builder.build().createChildContainer();
+		
+		List<Bar> bars = resolveConcurrently(new Callable<Bar>() {
+			@Override
+			public Bar call() throws Exception {
+				return child.resolve(Bar.class);
+			}
+		});
+		
+		assertEquals(1, factory.created.get());
+		for (Bar bar: bars) {
+			assertSame(bars.get(0), bar);
+		}
+	}
+	
+	@Test
+	public void reentrantFactoriesResolveConcurrently() throws Exception {
+		final CountingFactory barFactory = new CountingFactory();
+		final AtomicInteger foos = new AtomicInteger();
+		final Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, barFactory).reusedWithin(ReuseScope.HIERARCHY);
+		final Container[] holder = new Container[1];
+		builder.register(Foo.class, new Factory<Foo>() {
+			@Override
+			public Foo newInstance(Object... args) {
+				foos.incrementAndGet();
+				try {
+					return new Foo(holder[0].resolve(Bar.class));
+				} catch (ResolutionException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		holder[0] = builder.build();
+		
+		List<Foo> result = resolveConcurrently(new Callable<Foo>() {
+			@Override
+			public Foo call() throws Exception {
+				return holder[0].resolve(Foo.class);
+			}
+		});
+		
+		assertEquals(1, foos.get());
+		assertEquals(1, barFactory.created.get());
+		assertSame(holder[0].resolve(Bar.class), result.get(0).bar);
+	}
+	
+	@Test(expected=ResolutionException.class)
+	public void circularFactoryIsReported() throws Throwable {
+		final Container[] holder = new Container[1];
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new Factory<Bar>() {
+			@Override
+			public Bar newInstance(Object... args) {
+				try {
+					holder[0].resolve(Bar.class);
+				} catch (ResolutionException e) {
+					throw new RuntimeException(e);
+				}
+				return new Bar();
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		holder[0] = builder.build();
+		
+		try {
+			holder[0].resolve(Bar.class);
+		} catch (RuntimeException e) {
+			throw e.getCause();
+		}
+	}
+	
+	private static <T> List<T> resolveConcurrently(final Callable<T> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(new Callable<T>() {
+					@Override
+					public T call() throws Exception {
+						start.await();
+						return task.call();
+					}
+				}));
+			}
+			start.countDown();
+			List<T> result = new ArrayList<>();
+			for (Future<T> future: futures) {
+				result.add(future.get());
+			}
+			return result;
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	private static class CountingFactory implements Factory<Bar> {
+		private final AtomicInteger created = new AtomicInteger();
+		
+		@Override
+		public Bar newInstance(Object... args) {
+			created.incrementAndGet();
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new Bar();
+		}
+	}
+	
+	private static class Bar {}
+	
+	private static class Foo {
+		private final Bar bar;
+		
+		public Foo(Bar bar) {
+			this.bar = bar;
+		}
+	}
+}
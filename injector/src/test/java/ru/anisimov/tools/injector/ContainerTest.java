@@ -62,6 +62,33 @@ public class ContainerTest {
 		assertEquals(foo.getClass(), Foo.class);
 	}
 	
+	@Test
+	public void containerAwareFactoryResolvesDependencies() throws ResolutionException {
+		class BarFactory implements Factory<IBar> {
+			@SuppressWarnings("unused")
+			@Override
+			public IBar newInstance(Object... args) { return new Bar(); }
+		}
+		class FooFactory implements ContainerAwareFactory<IFoo> {
+			@SuppressWarnings("unused")
+			@Override
+			public IFoo newInstance(Container container, Object... args) throws ResolutionException {
+				return new Foo(container.resolve(IBar.class));
+			}
+		}
+		
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(IBar.class, new BarFactory()).reusedWithin(ReuseScope.CONTAINER);
+		builder.register(IFoo.class, new FooFactory());
+		
+		Container container = builder.build();
+		Container child = container.createChildContainer();
+		Foo foo = (Foo) child.resolve(IFoo.class);
+		
+		assertSame(child.resolve(IBar.class), foo.getBar());
+		assertNotSame(container.resolve(IBar.class), foo.getBar());
+	}
+	
 	@Test
 	public void constructorArgumentsArePassedOnResolve() throws ResolutionException {
 		class BarFactory implements Factory<IBar> {
@@ -325,6 +352,31 @@ public class ContainerTest {
 		assertNotSame(bar1, bar2);
 	}
 	
+	@Test
+	public void ContainerScopedInstancesAreReusedOnChildWithManyServices() throws ResolutionException {
+		class BarFactory implements Factory<IBar> {
+			@SuppressWarnings("unused")
+			@Override
+			public IBar newInstance(Object... args) { return new Bar(); }
+		}
+		BarFactory barFactory = new BarFactory();
+		
+		Container.Builder builder = Container.Builder.newInstance();
+		for (int i = 0; i < 20; i++) {
+			builder.register(IBar.class, barFactory).named("bar" + i).reusedWithin(ReuseScope.CONTAINER);
+		}
+		
+		Container parent = builder.build();
+		Container child = parent.createChildContainer();
+		
+		for (int i = 0; i < 20; i++) {
+			IBar bar = child.resolve("bar" + i, IBar.class);
+			assertSame(bar, child.resolve("bar" + i, IBar.class));
+			assertNotSame(bar, parent.resolve("bar" + i, IBar.class));
+		}
+		assertNotSame(child.resolve("bar0", IBar.class), child.resolve("bar19", IBar.class));
+	}
+	
 	@Test
 	public void ContainerOwnedInstancesAreDisposed() throws ResolutionException {
 		class BarFactory implements Factory<IBar> {
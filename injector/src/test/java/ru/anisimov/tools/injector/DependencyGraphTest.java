@@ -0,0 +1,82 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+import ru.anisimov.tools.injector.syntax.registration.RegistrationInterface;
+
+@RunWith(JUnit4.class)
+public class DependencyGraphTest {
+	private static final Factory<Object> FACTORY = new Factory<Object>() {
+		@Override
+		public Object newInstance(Object... args) { return new Object(); }
+	};
+	
+	@Test
+	public void missingDependenciesAreReported() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Object.class, FACTORY).named("a").dependsOn("b", Object.class).dependsOn(String.class);
+		
+		try {
+			builder.build();
+			fail();
+		} catch (RegistrationException e) {
+			assertEquals(2, e.getProblems().size());
+			assertEquals("Missing java.lang.Object named \"b\", required by java.lang.Object named \"a\"", 
+					e.getProblems().get(0));
+			assertEquals("Missing java.lang.String, required by java.lang.Object named \"a\"", 
+					e.getProblems().get(1));
+		}
+	}
+	
+	@Test
+	public void cyclesAreReportedWithPath() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Object.class, FACTORY).named("a").dependsOn("b", Object.class);
+		builder.register(Object.class, FACTORY).named("b").dependsOn("c", Object.class);
+		builder.register(Object.class, FACTORY).named("c").dependsOn("a", Object.class);
+		
+		try {
+			builder.build();
+			fail();
+		} catch (RegistrationException e) {
+			assertEquals(1, e.getProblems().size());
+			assertEquals("Cycle: java.lang.Object named \"a\" -> java.lang.Object named \"b\" -> " + 
+					"java.lang.Object named \"c\" -> java.lang.Object named \"a\"", e.getProblems().get(0));
+		}
+	}
+	
+	@Test
+	public void topologicalOrderPutsDependenciesFirst() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Object.class, FACTORY).named("top").dependsOn("left", Object.class).dependsOn("right", Object.class);
+		builder.register(Object.class, FACTORY).named("left").dependsOn("bottom", Object.class);
+		builder.register(Object.class, FACTORY).named("right").dependsOn("bottom", Object.class);
+		builder.register(Object.class, FACTORY).named("bottom");
+		
+		int[] order = builder.build().getRegistry().graph().order();
+		
+		assertArrayEquals(new int[] { 3, 1, 2, 0 }, order);
+	}
+	
+	@Test(timeout=10000)
+	public void longChainsAreCheckedIteratively() {
+		int size = 50000;
+		Container.Builder builder = Container.Builder.newInstance();
+		for (int i = 0; i < size; i++) {
+			RegistrationInterface registration = builder.register(Object.class, FACTORY).named("s" + i);
+			if (i + 1 < size) {
+				registration.dependsOn("s" + (i + 1), Object.class);
+			}
+		}
+		
+		int[] order = builder.build().getRegistry().graph().order();
+		
+		assertEquals(size - 1, order[0]);
+		assertEquals(0, order[size - 1]);
+	}
+}
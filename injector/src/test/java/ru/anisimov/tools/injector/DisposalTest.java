@@ -0,0 +1,180 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.DisposalException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class DisposalTest {
+	@Test
+	public void closeDisposesOwnedInstancesInReverseCreationOrder() throws ResolutionException {
+		List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		for (String name: Arrays.asList("a", "b", "c")) {
+			builder.register(Resource.class, new ResourceFactory(name, disposed)).
+					named(name).reusedWithin(ReuseScope.CONTAINER);
+		}
+		
+		Container child = builder.build().createChildContainer();
+		child.resolve("b", Resource.class);
+		child.resolve("c", Resource.class);
+		child.resolve("a", Resource.class);
+		child.close();
+		
+		assertEquals(Arrays.asList("a", "c", "b"), disposed);
+		assertTrue(child.isClosed());
+	}
+	
+	@Test
+	public void childDisposesOnlyItsOwnInstances() throws ResolutionException {
+		List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Resource.class, new ResourceFactory("container", disposed)).
+				named("container").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Resource.class, new ResourceFactory("hierarchy", disposed)).
+				named("hierarchy").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Resource.class, new ResourceFactory("none", disposed)).named("none");
+		
+		Container container = builder.build();
+		Container child = container.createChildContainer();
+		Resource hierarchy = child.resolve("hierarchy", Resource.class);
+		child.resolve("container", Resource.class);
+		child.resolve("none", Resource.class);
+		container.resolve("container", Resource.class);
+		child.close();
+		
+		assertEquals(Arrays.asList("container"), disposed);
+		assertSame(hierarchy, container.resolve("hierarchy", Resource.class));
+		
+		container.close();
+		
+		assertEquals(Arrays.asList("container", "container", "hierarchy"), disposed);
+	}
+	
+	@Test
+	public void registeredDisposerIsUsedInsteadOfClose() throws ResolutionException {
+		final List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Resource.class, new ResourceFactory("a", disposed)).
+				reusedWithin(ReuseScope.HIERARCHY).
+				disposedWith(new Disposer<Resource>() {
+					@Override
+					public void dispose(Resource instance) {
+						disposed.add("disposer " + instance.name);
+					}
+				});
+		
+		Container container = builder.build();
+		container.resolve(Resource.class);
+		container.close();
+		container.close();
+		
+		assertEquals(Arrays.asList("disposer a"), disposed);
+	}
+	
+	@Test
+	public void closedContainerFailsResolution() throws ResolutionException {
+		List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Resource.class, new ResourceFactory("a", disposed));
+		builder.register(Resource.class, new ResourceFactory("b", disposed)).
+				named("b").reusedWithin(ReuseScope.HIERARCHY);
+		
+		Container container = builder.build();
+		ServiceHandle<Resource> handle = container.handle(Resource.class);
+		Container child = container.createChildContainer();
+		container.close();
+		
+		assertClosed(container, handle);
+		try {
+			child.resolve("b", Resource.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Container is closed", e.getMessage());
+		}
+		assertNotNull(child.resolve(Resource.class));
+	}
+	
+	@Test
+	public void failuresAreReportedAfterDisposingEverything() throws ResolutionException {
+		List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Resource.class, new ResourceFactory("fail1", disposed)).
+				named("fail1").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Resource.class, new ResourceFactory("a", disposed)).
+				named("a").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Resource.class, new ResourceFactory("fail2", disposed)).
+				named("fail2").reusedWithin(ReuseScope.CONTAINER);
+		
+		Container container = builder.build();
+		container.resolve("fail1", Resource.class);
+		container.resolve("a", Resource.class);
+		container.resolve("fail2", Resource.class);
+		try {
+			container.close();
+			fail();
+		} catch (DisposalException e) {
+			assertEquals("fail2", e.getCause().getMessage());
+			assertEquals(1, e.getSuppressed().length);
+			assertEquals("fail1", e.getSuppressed()[0].getMessage());
+		}
+		assertEquals(Arrays.asList("fail2", "a", "fail1"), disposed);
+	}
+	
+	private static void assertClosed(Container container, ServiceHandle<Resource> handle) {
+		try {
+			container.resolve(Resource.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Container is closed", e.getMessage());
+		}
+		try {
+			handle.resolve();
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Container is closed", e.getMessage());
+		}
+	}
+	
+	private static class ResourceFactory implements Factory<Resource> {
+		private final String name;
+		private final List<String> disposed;
+		
+		ResourceFactory(String name, List<String> disposed) {
+			this.name = name;
+			this.disposed = disposed;
+		}
+		
+		@Override
+		public Resource newInstance(Object... args) {
+			return new Resource(name, disposed);
+		}
+	}
+	
+	private static class Resource implements AutoCloseable {
+		private final String name;
+		private final List<String> disposed;
+		
+		Resource(String name, List<String> disposed) {
+			this.name = name;
+			this.disposed = disposed;
+		}
+		
+		@Override
+		public void close() {
+			disposed.add(name);
+			if (name.startsWith("fail")) {
+				throw new IllegalStateException(name);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class FootprintTest {
+	@Test
+	public void rootCountsSharedInstancesAndChildrenTheirOwn() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory()).named("none");
+		builder.register(Bar.class, new BarFactory()).named("hierarchy").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Bar.class, new BarFactory()).named("container").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Bar.class, new BarFactory(), String.class).reusedWithin(ReuseScope.ARGUMENTS);
+		Container container = builder.build();
+		Container child = container.createChildContainer();
+		Container idle = container.createChildContainer();
+		
+		container.resolve("none", Bar.class);
+		child.resolve("hierarchy", Bar.class);
+		child.resolve("container", Bar.class);
+		container.resolve(Bar.class, "a");
+		container.resolve(Bar.class, "b");
+		
+		Footprint root = container.footprint();
+		assertEquals(4, root.getRegistrations());
+		assertEquals(0, root.getContainerEntries());
+		assertEquals(3, root.getCachedInstances());
+		assertTrue(root.getEstimatedBytes() > root.getRegistryBytes());
+		
+		Footprint footprint = child.footprint();
+		assertEquals(4, footprint.getRegistrations());
+		assertEquals(1, footprint.getContainerEntries());
+		assertEquals(1, footprint.getCachedInstances());
+		assertEquals(root.getRegistryBytes(), footprint.getRegistryBytes());
+		assertEquals(Footprint.CONTAINER_BYTES, idle.footprint().getEstimatedBytes());
+		assertTrue(footprint.getEstimatedBytes() > Footprint.CONTAINER_BYTES);
+		assertTrue(footprint.getEstimatedBytes() < root.getRegistryBytes());
+	}
+	
+	@Test
+	public void containerEntriesShareTheMetadataOfTheirRegistration() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory()).reusedWithin(ReuseScope.CONTAINER);
+		Container container = builder.build();
+		ServiceEntry registered = container.getRegistry().entries()[0];
+		
+		ServiceEntry own = container.createChildContainer().bindEntry(registered);
+		
+		assertNotSame(registered, own);
+		assertSame(registered.getKey(), own.getKey());
+		assertSame(registered.getFactory(), own.getFactory());
+		assertEquals(registered.getIndex(), own.getIndex());
+	}
+	
+	@Test
+	public void estimatedBytesGrowWithRegistrations() {
+		Container.Builder small = Container.Builder.newInstance();
+		Container.Builder large = Container.Builder.newInstance();
+		for (int i = 0; i < 1000; i++) {
+			large.register(Bar.class, new BarFactory()).named("bar" + i);
+			if (i < 10) {
+				small.register(Bar.class, new BarFactory()).named("bar" + i);
+			}
+		}
+		
+		long smallBytes = small.build().footprint().getRegistryBytes();
+		long largeBytes = large.build().footprint().getRegistryBytes();
+		
+		assertTrue(largeBytes > 990 * (Footprint.ENTRY_BYTES + Footprint.METADATA_BYTES) + smallBytes);
+	}
+	
+	private static class Bar {}
+	
+	private static class BarFactory implements Factory<Bar> {
+		@Override
+		public Bar newInstance(Object... args) {
+			return new Bar();
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class InstancePoolTest {
+	@Test
+	public void returnedInstancesAreReusedAfterReset() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, new ParserFactory()).pooledWithin(0, 2).
+				resetWith(new Resetter<Parser>() {
+					@Override
+					public void reset(Parser instance) {
+						instance.buffer.setLength(0);
+					}
+				});
+		Container container = builder.build();
+		
+		Parser first;
+		try (Lease<Parser> lease = container.lease(Parser.class)) {
+			first = lease.get();
+			first.buffer.append("dirty");
+		}
+		try (Lease<Parser> lease = container.lease(Parser.class);
+				Lease<Parser> other = container.createChildContainer().lease(Parser.class)) {
+			assertSame(first, lease.get());
+			assertEquals(0, lease.get().buffer.length());
+			assertNotSame(first, other.get());
+			
+			PoolStats stats = container.poolStats(Parser.class);
+			assertEquals(3, stats.getLeases());
+			assertEquals(2, stats.getCreations());
+			assertEquals(2, stats.getInUse());
+			assertEquals(1.0, stats.getUtilization(), 0.0);
+		}
+		assertEquals(2, container.poolStats(Parser.class).getIdle());
+	}
+	
+	@Test
+	public void leasesWaitWhenThePoolIsExhausted() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, new ParserFactory()).pooledWithin(0, 1);
+		final Container container = builder.build();
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final CountDownLatch waiting = new CountDownLatch(1);
+			Lease<Parser> lease = container.lease(Parser.class);
+			Future<Parser> borrowed = executor.submit(new Callable<Parser>() {
+				@Override
+				public Parser call() throws ResolutionException {
+					waiting.countDown();
+					try (Lease<Parser> other = container.lease(Parser.class)) {
+						return other.get();
+					}
+				}
+			});
+			waiting.await();
+			Thread.sleep(20);
+			assertFalse(borrowed.isDone());
+			Parser parser = lease.get();
+			lease.close();
+			
+			assertSame(parser, borrowed.get(5, TimeUnit.SECONDS));
+			assertEquals(1, container.poolStats(Parser.class).getWaits());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void idleInstancesAreEvictedDownToMinimum() throws Exception {
+		ParserFactory factory = new ParserFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, factory).pooledWithin(1, 3, 1, TimeUnit.MILLISECONDS);
+		Container container = builder.build();
+		
+		Lease<Parser> a = container.lease(Parser.class);
+		Lease<Parser> b = container.lease(Parser.class);
+		Lease<Parser> c = container.lease(Parser.class);
+		a.close();
+		b.close();
+		Thread.sleep(5);
+		c.close();
+		
+		PoolStats stats = container.poolStats(Parser.class);
+		assertEquals(2, stats.getEvictions());
+		assertEquals(1, stats.getIdle());
+		assertEquals(2, factory.closed.get());
+	}
+	
+	@Test
+	public void invalidatedInstancesAreDisposed() throws ResolutionException {
+		ParserFactory factory = new ParserFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, factory).pooledWithin(0, 1);
+		Container container = builder.build();
+		
+		Lease<Parser> lease = container.lease(Parser.class);
+		Parser parser = lease.get();
+		lease.invalidate();
+		lease.close();
+		
+		assertEquals(1, factory.closed.get());
+		try (Lease<Parser> other = container.lease(Parser.class)) {
+			assertNotSame(parser, other.get());
+		}
+	}
+	
+	@Test
+	public void pooledServicesCannotBeResolved() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, new ParserFactory()).reusedWithin(ReuseScope.POOLED);
+		builder.register(String.class, new Factory<String>() {
+			@Override
+			public String newInstance(Object... args) {
+				return "";
+			}
+		});
+		Container container = builder.build();
+		
+		try {
+			container.resolve(Parser.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertTrue(e.getMessage().contains("pooled"));
+		}
+		try {
+			container.lease(String.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertTrue(e.getMessage().contains("not pooled"));
+		}
+		assertNull(container.poolStats(String.class));
+		assertEquals(InstancePool.DEFAULT_MAXIMUM_SIZE, container.poolStats(Parser.class).getMaxSize());
+	}
+	
+	@Test
+	public void closingTheRootDisposesPooledInstances() throws ResolutionException {
+		ParserFactory factory = new ParserFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, factory).pooledWithin(0, 2);
+		Container container = builder.build();
+		
+		container.lease(Parser.class).close();
+		Lease<Parser> leased = container.lease(Parser.class);
+		container.lease(Parser.class).close();
+		container.close();
+		
+		assertEquals(1, factory.closed.get());
+		leased.close();
+		assertEquals(2, factory.closed.get());
+	}
+	
+	@Test
+	public void pooledInstancesAreDisposedBeforeWhatTheyWereBuiltFrom() throws ResolutionException {
+		final List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Parser.class, new ParserFactory()).named("grammar").
+				reusedWithin(ReuseScope.HIERARCHY).disposedWith(new Disposer<Parser>() {
+					@Override
+					public void dispose(Parser instance) {
+						disposed.add("grammar");
+					}
+				});
+		builder.register(Parser.class, new ContainerAwareFactory<Parser>() {
+			@Override
+			public Parser newInstance(Container container, Object... args) throws ResolutionException {
+				container.resolve("grammar", Parser.class);
+				return new Parser(new AtomicInteger());
+			}
+		}).pooledWithin(0, 1).disposedWith(new Disposer<Parser>() {
+			@Override
+			public void dispose(Parser instance) {
+				disposed.add("pooled");
+			}
+		});
+		Container container = builder.build();
+		
+		container.lease(Parser.class).close();
+		container.close();
+		
+		assertEquals(Arrays.asList("pooled", "grammar"), disposed);
+	}
+	
+	private static class ParserFactory implements Factory<Parser> {
+		private final AtomicInteger closed = new AtomicInteger();
+		
+		@Override
+		public Parser newInstance(Object... args) {
+			return new Parser(closed);
+		}
+	}
+	
+	private static class Parser implements AutoCloseable {
+		private final StringBuilder buffer = new StringBuilder();
+		private final AtomicInteger closed;
+		
+		Parser(AtomicInteger closed) {
+			this.closed = closed;
+		}
+		
+		@Override
+		public void close() {
+			closed.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.annotations.Inject;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class MultiBindingTest {
+	@Test
+	public void resolveAllReturnsRegistrationsInOrder() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Handler.class, new HandlerFactory("b")).named("b");
+		builder.register(Handler.class, new HandlerFactory("unnamed"));
+		builder.register(Handler.class, new HandlerFactory("a")).named("a").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Handler.class, new HandlerFactory("args"), String.class).named("args");
+		
+		Container container = builder.build();
+		
+		assertEquals(Arrays.asList("b", "unnamed", "a"), names(container.resolveAll(Handler.class)));
+		assertEquals(Arrays.asList("args"), names(container.resolveAll(Handler.class, "x")));
+		assertSame(container.resolve("a", Handler.class), container.resolveAll(Handler.class).get(2));
+		assertTrue(container.resolveAll(String.class).isEmpty());
+	}
+	
+	@Test
+	public void resolveAllNamedLeavesUnnamedOut() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Handler.class, new HandlerFactory("b")).named("b");
+		builder.register(Handler.class, new HandlerFactory("unnamed"));
+		builder.register(Handler.class, new HandlerFactory("a")).named("a");
+		
+		Map<String, Handler> handlers = builder.build().resolveAllNamed(Handler.class);
+		
+		assertEquals(Arrays.asList("b", "a"), new ArrayList<>(handlers.keySet()));
+		assertEquals("a", handlers.get("a").name);
+	}
+	
+	@Test
+	public void resolveAllMatchesArgumentsLikeResolve() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Handler.class, new HandlerFactory("list"), List.class).named("list");
+		builder.register(Handler.class, new HandlerFactory("int"), int.class).named("int");
+		builder.register(Handler.class, new HandlerFactory("string"), String.class);
+		
+		Container container = builder.build();
+		
+		assertEquals(Arrays.asList("list"), names(container.resolveAll(Handler.class, new ArrayList<String>())));
+		assertEquals(Arrays.asList("int"), names(container.resolveAll(Handler.class, 1)));
+		assertEquals(Arrays.asList("list", "string"), names(container.resolveAll(Handler.class, (Object) null)));
+		assertEquals(Arrays.asList("list"), 
+				new ArrayList<>(container.resolveAllNamed(Handler.class, new ArrayList<String>()).keySet()));
+	}
+	
+	@Test
+	public void collectionsAreInjected() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Handler.class, new HandlerFactory("json")).named("json");
+		builder.register(Handler.class, new HandlerFactory("xml")).named("xml");
+		builder.register(Handler.class, new HandlerFactory("plain"));
+		builder.registerType(Dispatcher.class);
+		
+		Dispatcher dispatcher = builder.build().resolve(Dispatcher.class);
+		
+		assertEquals(Arrays.asList("json", "xml", "plain"), names(dispatcher.all));
+		assertEquals(Arrays.asList("json", "xml"), new ArrayList<>(dispatcher.byName.keySet()));
+	}
+	
+	@Test
+	public void emptyGroupsAreInjectedAsEmptyCollections() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Dispatcher.class);
+		
+		Dispatcher dispatcher = builder.build().resolve(Dispatcher.class);
+		
+		assertTrue(dispatcher.all.isEmpty());
+		assertTrue(dispatcher.byName.isEmpty());
+	}
+	
+	private static List<String> names(List<Handler> handlers) {
+		List<String> result = new ArrayList<>();
+		for (Handler handler: handlers) {
+			result.add(handler.name);
+		}
+		return result;
+	}
+	
+	private static class HandlerFactory implements Factory<Handler> {
+		private final String name;
+		
+		HandlerFactory(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public Handler newInstance(Object... args) {
+			return new Handler(name);
+		}
+	}
+	
+	private static class Handler {
+		private final String name;
+		
+		Handler(String name) {
+			this.name = name;
+		}
+	}
+	
+	static class Dispatcher {
+		private final List<Handler> all;
+		private final Map<String, Handler> byName;
+		
+		@Inject
+		Dispatcher(List<Handler> all, Map<String, Handler> byName) {
+			this.all = all;
+			this.byName = byName;
+		}
+	}
+}
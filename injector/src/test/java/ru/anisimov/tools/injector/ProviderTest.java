@@ -0,0 +1,110 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ProviderTest {
+	@Test
+	public void providerResolvesOnEveryGet() throws ResolutionException {
+		CountingFactory factory = new CountingFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, factory).named("bar");
+		
+		Provider<Bar> provider = builder.build().provider("bar", Bar.class);
+		
+		assertEquals(0, factory.created.get());
+		assertNotSame(provider.get(), provider.get());
+		assertEquals(2, factory.created.get());
+	}
+	
+	@Test
+	public void lazyResolvesOnceOnFirstGet() throws ResolutionException {
+		CountingFactory factory = new CountingFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, factory);
+		
+		Lazy<Bar> lazy = builder.build().lazy(Bar.class);
+		
+		assertEquals(0, factory.created.get());
+		assertSame(lazy.get(), lazy.get());
+		assertEquals(1, factory.created.get());
+	}
+	
+	@Test(expected=ResolutionException.class)
+	public void providerForNotRegisteredServiceThrows() throws ResolutionException {
+		Container.Builder.newInstance().build().provider(Bar.class);
+	}
+	
+	@Test
+	public void providersAndLazyReferencesAreInjected() throws ResolutionException {
+		CountingFactory factory = new CountingFactory();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, factory);
+		builder.registerType(Foo.class);
+		
+		Foo foo = builder.build().resolve(Foo.class);
+		
+		assertEquals(0, factory.created.get());
+		assertNotSame(foo.bars.get(), foo.bars.get());
+		assertSame(foo.bar.get(), foo.bar.get());
+		assertEquals(3, factory.created.get());
+	}
+	
+	@Test
+	public void providersMayCloseCycles() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Parent.class).reusedWithin(ReuseScope.HIERARCHY);
+		builder.registerType(Child.class).reusedWithin(ReuseScope.HIERARCHY);
+		
+		Container container = builder.build();
+		Parent parent = container.resolve(Parent.class);
+		
+		assertSame(parent, parent.child.parent.get());
+	}
+	
+	private static class CountingFactory implements Factory<Bar> {
+		private final AtomicInteger created = new AtomicInteger();
+		
+		@Override
+		public Bar newInstance(Object... args) {
+			created.incrementAndGet();
+			return new Bar();
+		}
+	}
+	
+	static class Bar {}
+	
+	public static class Foo {
+		private final Provider<Bar> bars;
+		private final Lazy<Bar> bar;
+		
+		public Foo(Provider<Bar> bars, Lazy<Bar> bar) {
+			this.bars = bars;
+			this.bar = bar;
+		}
+	}
+	
+	public static class Parent {
+		private final Child child;
+		
+		public Parent(Child child) {
+			this.child = child;
+		}
+	}
+	
+	public static class Child {
+		private final Provider<Parent> parent;
+		
+		public Child(Provider<Parent> parent) {
+			this.parent = parent;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class RebindTest {
+	@Test
+	public void rebindResetsOnlyReplacedServicesAndTheirDependents() throws ResolutionException {
+		final List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Setting.class, new SettingFactory("old", disposed)).
+				named("url").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Setting.class, new SettingFactory("kept", disposed)).
+				named("other").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Client.class, new ContainerAwareFactory<Client>() {
+			@Override
+			public Client newInstance(Container container, Object... args) throws ResolutionException {
+				return new Client(container.resolve("url", Setting.class));
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY).dependsOn("url", Setting.class);
+		Container container = builder.build();
+		Container child = container.createChildContainer();
+		
+		Setting other = child.resolve("other", Setting.class);
+		Client client = child.resolve(Client.class);
+		assertEquals("old", client.setting.value);
+		
+		container.rebind(new RegistrationModule() {
+			@Override
+			public void configure(Container.Builder builder) {
+				builder.register(Setting.class, new SettingFactory("new", disposed)).
+						named("url").reusedWithin(ReuseScope.HIERARCHY);
+			}
+		});
+		
+		assertEquals(Arrays.asList("old"), disposed);
+		assertSame(other, child.resolve("other", Setting.class));
+		assertNotSame(client, child.resolve(Client.class));
+		assertEquals("new", child.resolve(Client.class).setting.value);
+	}
+	
+	@Test
+	public void rebindKeepsDisposalOrder() throws ResolutionException {
+		final List<String> disposed = new ArrayList<>();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Setting.class, new SettingFactory("a", disposed)).
+				named("a").reusedWithin(ReuseScope.CONTAINER);
+		builder.register(Setting.class, new SettingFactory("b", disposed)).
+				named("b").reusedWithin(ReuseScope.CONTAINER);
+		Container container = builder.build();
+		container.resolve("a", Setting.class);
+		container.resolve("b", Setting.class);
+		
+		container.rebind(new RegistrationModule() {
+			@Override
+			public void configure(Container.Builder builder) {
+				builder.register(Setting.class, new SettingFactory("d", disposed)).
+						named("d").reusedWithin(ReuseScope.CONTAINER);
+			}
+		});
+		container.resolve("d", Setting.class);
+		container.close();
+		
+		assertEquals(Arrays.asList("d", "b", "a"), disposed);
+	}
+	
+	@Test
+	public void rebindAddsServices() throws ResolutionException {
+		Container container = Container.Builder.newInstance().build();
+		assertNull(container.tryResolve(Setting.class));
+		
+		container.rebind(new RegistrationModule() {
+			@Override
+			public void configure(Container.Builder builder) {
+				builder.register(Setting.class, new SettingFactory("added", null));
+				builder.register(Setting.class, new SettingFactory("named", null)).named("named");
+			}
+		});
+		
+		assertEquals("added", container.resolve(Setting.class).value);
+		assertEquals(2, container.resolveAll(Setting.class).size());
+	}
+	
+	@Test
+	public void unregisterRemovesServicesThatNothingDependsOn() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Setting.class, new SettingFactory("url", null)).named("url");
+		builder.register(Setting.class, new SettingFactory("other", null)).named("other");
+		builder.register(Client.class, new ContainerAwareFactory<Client>() {
+			@Override
+			public Client newInstance(Container container, Object... args) throws ResolutionException {
+				return new Client(container.resolve("url", Setting.class));
+			}
+		}).dependsOn("url", Setting.class);
+		Container container = builder.compile();
+		ServiceHandle<Setting> handle = container.handle("other", Setting.class);
+		
+		try {
+			container.unregister("url", Setting.class);
+			fail();
+		} catch (RegistrationException e) {
+			assertEquals(1, e.getProblems().size());
+		}
+		assertNotNull(container.resolve(Client.class));
+		
+		assertTrue(container.unregister("other", Setting.class));
+		assertFalse(container.unregister("other", Setting.class));
+		assertNull(container.tryResolve("other", Setting.class));
+		assertEquals("url", container.resolve("url", Setting.class).value);
+		try {
+			handle.resolve();
+			fail();
+		} catch (ResolutionException e) {
+			assertTrue(e.getMessage().contains("no longer registered"));
+		}
+	}
+	
+	@Test
+	public void handlesAndMetricsFollowRebind() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance().enableMetrics();
+		builder.register(Setting.class, new SettingFactory("old", null));
+		Container container = builder.build();
+		Provider<Setting> provider = container.provider(Setting.class);
+		assertEquals("old", provider.get().value);
+		
+		container.rebind(new RegistrationModule() {
+			@Override
+			public void configure(Container.Builder builder) {
+				builder.register(Setting.class, new SettingFactory("new", null));
+			}
+		});
+		
+		assertEquals("new", provider.get().value);
+		List<ResolutionMetrics.ServiceSnapshot> services = container.getMetrics().snapshot().getServices();
+		assertEquals(1, services.size());
+		assertEquals(2, services.get(0).getResolves());
+	}
+	
+	@Test
+	public void readersSeeEitherRegistration() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Setting.class, new SettingFactory("0", null)).reusedWithin(ReuseScope.HIERARCHY);
+		final Container container = builder.build();
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (running.get()) {
+						assertNotNull(container.resolve(Setting.class).value);
+					}
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		});
+		reader.start();
+		for (int i = 1; i <= 200; i++) {
+			final String value = String.valueOf(i);
+			container.rebind(new RegistrationModule() {
+				@Override
+				public void configure(Container.Builder builder) {
+					builder.register(Setting.class, new SettingFactory(value, null)).reusedWithin(ReuseScope.HIERARCHY);
+				}
+			});
+		}
+		running.set(false);
+		reader.join();
+		
+		assertNull(failure.get());
+		assertEquals("200", container.resolve(Setting.class).value);
+	}
+	
+	private static class SettingFactory implements Factory<Setting> {
+		private final String value;
+		private final List<String> disposed;
+		
+		SettingFactory(String value, List<String> disposed) {
+			this.value = value;
+			this.disposed = disposed;
+		}
+		
+		@Override
+		public Setting newInstance(Object... args) {
+			return new Setting(value, disposed);
+		}
+	}
+	
+	private static class Setting implements AutoCloseable {
+		private final String value;
+		private final List<String> disposed;
+		
+		Setting(String value, List<String> disposed) {
+			this.value = value;
+			this.disposed = disposed;
+		}
+		
+		@Override
+		public void close() {
+			if (disposed != null) {
+				disposed.add(value);
+			}
+		}
+	}
+	
+	private static class Client {
+		private final Setting setting;
+		
+		Client(Setting setting) {
+			this.setting = setting;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.annotations.Argument;
+import ru.anisimov.tools.injector.annotations.Inject;
+import ru.anisimov.tools.injector.annotations.Named;
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class RegisterTypeTest {
+	@Test
+	public void registeredTypeGetsDependenciesInjected() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Bar.class).reusedWithin(ReuseScope.HIERARCHY);
+		builder.registerType(IFoo.class, Foo.class);
+		
+		Container container = builder.build();
+		Foo foo = (Foo) container.resolve(IFoo.class);
+		
+		assertSame(container.resolve(Bar.class), foo.bar);
+		assertNotSame(foo, container.resolve(IFoo.class));
+	}
+	
+	@Test
+	public void argumentsAndNamesArePassedToInjectConstructor() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Bar.class).named("special").reusedWithin(ReuseScope.HIERARCHY);
+		builder.registerType(Baz.class);
+		
+		Container container = builder.build();
+		Baz baz = container.resolve(Baz.class, "id", 3);
+		
+		assertSame(container.resolve("special", Bar.class), baz.bar);
+		assertEquals("id", baz.id);
+		assertEquals(3, baz.count);
+	}
+	
+	@Test
+	public void dependenciesAreResolvedFromEachBuiltContainer() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(Bar.class).reusedWithin(ReuseScope.HIERARCHY);
+		builder.registerType(IFoo.class, Foo.class);
+		
+		Container first = builder.build();
+		Container second = builder.build();
+		
+		assertSame(first.resolve(Bar.class), ((Foo) first.resolve(IFoo.class)).bar);
+		assertSame(second.resolve(Bar.class), ((Foo) second.resolve(IFoo.class)).bar);
+	}
+	
+	@Test(expected=RegistrationException.class)
+	public void missingDependencyFailsBuild() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.registerType(IFoo.class, Foo.class);
+		builder.build();
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void ambiguousConstructorsAreRejected() {
+		Container.Builder.newInstance().registerType(Ambiguous.class);
+	}
+	
+	interface IFoo {}
+	
+	public static class Bar {}
+	
+	public static class Foo implements IFoo {
+		private final Bar bar;
+		
+		public Foo(Bar bar) {
+			this.bar = bar;
+		}
+	}
+	
+	static class Baz {
+		private final Bar bar;
+		private final String id;
+		private final int count;
+		
+		public Baz() {
+			this(null, null, 0);
+		}
+		
+		@Inject
+		Baz(@Named("special") Bar bar, @Argument String id, @Argument int count) {
+			this.bar = bar;
+			this.id = id;
+			this.count = count;
+		}
+	}
+	
+	public static class Ambiguous {
+		public Ambiguous() {}
+		
+		public Ambiguous(Bar bar) {}
+	}
+}
@@ -0,0 +1,80 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.Container.ServiceEntry;
+import ru.anisimov.tools.injector.Container.ServiceKey;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class RegistryTest {
+	@Test
+	public void lookupFindsEveryEntryOfLargeRegistry() throws ResolutionException {
+		List<ServiceEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			entries.add(entry(Object.class, "service" + i, String.class));
+		}
+		Registry registry = Registry.build(entries);
+		
+		assertEquals(5000, registry.size());
+		for (int i = 0; i < 5000; i++) {
+			assertSame(entries.get(i), registry.lookup(Object.class, "service" + i, new Object[] { "" }));
+		}
+		assertNull(registry.lookup(Object.class, "service", new Object[] { "" }));
+		assertNull(registry.lookup(Object.class, "service0", new Object[0]));
+	}
+	
+	@Test
+	public void signaturesAreInterned() throws ResolutionException {
+		ServiceEntry first = entry(Object.class, "a", String.class, Integer.class);
+		ServiceEntry second = entry(Integer.class, null, String.class, Integer.class);
+		Registry registry = Registry.build(Arrays.asList(first, second));
+		
+		Signature signature = registry.signature(String.class, Integer.class);
+		assertSame(signature, first.getSignature());
+		assertSame(signature, second.getSignature());
+		assertSame(second, registry.lookup(Integer.class, null, signature));
+		assertNull(registry.signature(Integer.class));
+	}
+	
+	@Test
+	public void keysShareInternedArgTypesAndNames() {
+		ServiceEntry first = entry(Object.class, new String("name"), String.class);
+		ServiceEntry second = entry(Integer.class, new String("name"), String.class);
+		Registry.build(Arrays.asList(first, second));
+		
+		assertSame(first.getKey().getArgTypes(), second.getKey().getArgTypes());
+		assertSame(first.getSignature().getTypes(), first.getKey().getArgTypes());
+		assertSame(first.getKey().getName(), second.getKey().getName());
+	}
+	
+	@Test
+	public void entriesAreGroupedByTypeInRegistrationOrder() throws ResolutionException {
+		ServiceEntry a = entry(Object.class, "a");
+		ServiceEntry other = entry(String.class, null);
+		ServiceEntry b = entry(Object.class, "b");
+		ServiceEntry replacedA = entry(Object.class, "a");
+		Registry registry = Registry.build(Arrays.asList(a, other, b, replacedA));
+		
+		assertArrayEquals(new ServiceEntry[] { replacedA, b }, registry.group(Object.class));
+		assertArrayEquals(new ServiceEntry[] { other }, registry.group(String.class));
+		assertEquals(0, registry.group(Integer.class).length);
+		assertSame(replacedA, registry.lookup(Object.class, "a", new Object[0]));
+	}
+	
+	private static ServiceEntry entry(Class<?> type, String name, Class<?>... args) {
+		ServiceKey key = new ServiceKey(type, args);
+		key.setName(name);
+		return ServiceEntry.Builder.newInstance(null).
+				reuseScope(ReuseScope.NONE).
+				key(key).build();
+	}
+}
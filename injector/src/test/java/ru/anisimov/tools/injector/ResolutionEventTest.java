@@ -0,0 +1,122 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ResolutionEventTest {
+	private static final String EVENT = "ru.anisimov.tools.injector.Resolution";
+	
+	@Test
+	public void nestedResolutionsPointToTheirParent() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance().recordEvents();
+		builder.register(Bar.class, new Factory<Bar>() {
+			@Override
+			public Bar newInstance(Object... args) {
+				return new Bar();
+			}
+		}).named("inner");
+		builder.register(Bar.class, new ContainerAwareFactory<Bar>() {
+			@Override
+			public Bar newInstance(Container container, Object... args) throws ResolutionException {
+				return container.resolve("inner", Bar.class);
+			}
+		}).named("outer").reusedWithin(ReuseScope.HIERARCHY);
+		Container child = builder.build().createChildContainer();
+		
+		List<RecordedEvent> events = record(child, "outer", 2);
+		
+		assertEquals(3, events.size());
+		RecordedEvent inner = find(events, "inner");
+		events.remove(inner);
+		RecordedEvent outer = events.get(0).getLong("id") == inner.getLong("parentId") ? events.get(0) : events.get(1);
+		events.remove(outer);
+		RecordedEvent hit = events.get(0);
+		assertEquals("outer", outer.getString("name"));
+		assertEquals("outer", hit.getString("name"));
+		assertEquals(0, outer.getLong("parentId"));
+		assertEquals("NONE", inner.getString("scope"));
+		assertEquals("HIERARCHY", outer.getString("scope"));
+		assertEquals(Bar.class.getName(), outer.getClass("serviceType").getName());
+		assertEquals(1, outer.getInt("depth"));
+		assertFalse(outer.getBoolean("cacheHit"));
+		assertTrue(hit.getBoolean("cacheHit"));
+		assertEquals(0, hit.getLong("factoryDuration"));
+		assertTrue(outer.getLong("factoryDuration") > 0);
+	}
+	
+	@Test
+	public void fastResolutionsAreBelowTheThreshold() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance().recordEvents(1000000);
+		builder.register(Bar.class, new Factory<Bar>() {
+			@Override
+			public Bar newInstance(Object... args) {
+				return new Bar();
+			}
+		});
+		
+		assertTrue(record(builder.build(), null, 3).isEmpty());
+	}
+	
+	@Test
+	public void eventsAreNotRecordedByDefault() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new Factory<Bar>() {
+			@Override
+			public Bar newInstance(Object... args) {
+				return new Bar();
+			}
+		});
+		
+		assertTrue(record(builder.build(), null, 3).isEmpty());
+	}
+	
+	private static List<RecordedEvent> record(Container container, String name, 
+			int times) throws ResolutionException, IOException {
+		Path file = Files.createTempFile("resolution", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(EVENT);
+			recording.start();
+			for (int i = 0; i < times; i++) {
+				container.resolve(name, Bar.class);
+			}
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> result = new ArrayList<>();
+			for (RecordedEvent event: RecordingFile.readAllEvents(file)) {
+				if (event.getEventType().getName().equals(EVENT)) {
+					result.add(event);
+				}
+			}
+			return result;
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static RecordedEvent find(List<RecordedEvent> events, String name) {
+		for (RecordedEvent event: events) {
+			if (name.equals(event.getString("name"))) {
+				return event;
+			}
+		}
+		throw new AssertionError("No event of " + name);
+	}
+	
+	private static class Bar {}
+}
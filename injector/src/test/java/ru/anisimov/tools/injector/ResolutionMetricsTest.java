@@ -0,0 +1,104 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.ResolutionMetrics.ServiceSnapshot;
+import ru.anisimov.tools.injector.ResolutionMetrics.Snapshot;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ResolutionMetricsTest {
+	@Test
+	public void metricsAreDisabledByDefault() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory());
+		
+		Container container = builder.build();
+		
+		assertNull(container.getMetrics());
+		assertNull(container.createChildContainer().getMetrics());
+	}
+	
+	@Test
+	public void countsResolvesCacheHitsAndFactoryInvocations() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance().enableMetrics();
+		builder.register(Bar.class, new BarFactory()).named("none");
+		builder.register(Bar.class, new BarFactory()).named("hierarchy").reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Bar.class, new BarFactory()).named("container").reusedWithin(ReuseScope.CONTAINER);
+		
+		Container container = builder.build();
+		Container child = container.createChildContainer();
+		for (int i = 0; i < 3; i++) {
+			container.resolve("none", Bar.class);
+			container.resolve("hierarchy", Bar.class);
+			container.resolve("container", Bar.class);
+			child.resolve("container", Bar.class);
+		}
+		
+		Snapshot snapshot = child.getMetrics().snapshot();
+		assertSame(container.getMetrics(), child.getMetrics());
+		assertEquals(3, snapshot.getServices().size());
+		assertCounts(snapshot.getServices().get(0), "none", 3, 0, 3);
+		assertCounts(snapshot.getServices().get(1), "hierarchy", 3, 2, 1);
+		assertCounts(snapshot.getServices().get(2), "container", 6, 4, 2);
+	}
+	
+	@Test
+	public void recordsFactoryLatencies() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance().enableMetrics();
+		builder.register(Bar.class, new BarFactory());
+		
+		Container container = builder.build();
+		container.resolve(Bar.class);
+		container.resolve(Bar.class);
+		
+		ServiceSnapshot service = container.getMetrics().snapshot().getServices().get(0);
+		long calls = 0;
+		for (long count: service.getLatencyHistogram()) {
+			calls += count;
+		}
+		assertEquals(2, calls);
+		assertTrue(service.getFactoryNanos() >= 0);
+	}
+	
+	@Test
+	public void countsMissesAndParentHops() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance().enableMetrics();
+		builder.register(Bar.class, new BarFactory()).reusedWithin(ReuseScope.HIERARCHY);
+		
+		Container container = builder.build();
+		Container grandChild = container.createChildContainer().createChildContainer();
+		assertNull(grandChild.tryResolve(String.class));
+		assertNull(container.tryResolve(String.class));
+		assertNull(container.tryResolve("missing", Bar.class));
+		grandChild.resolve(Bar.class);
+		
+		Snapshot snapshot = container.getMetrics().snapshot();
+		assertEquals(Long.valueOf(2), snapshot.getMisses().get(String.class));
+		assertEquals(Long.valueOf(1), snapshot.getMisses().get(Bar.class));
+		assertEquals(3, snapshot.getTotalMisses());
+		assertEquals(2, snapshot.getParentHops());
+	}
+	
+	private static void assertCounts(ServiceSnapshot service, String name, 
+			long resolves, long cacheHits, long factoryInvocations) {
+		assertEquals(name, service.getName());
+		assertEquals(resolves, service.getResolves());
+		assertEquals(cacheHits, service.getCacheHits());
+		assertEquals(factoryInvocations, service.getFactoryInvocations());
+	}
+	
+	private static class BarFactory implements Factory<Bar> {
+		@Override
+		public Bar newInstance(Object... args) {
+			return new Bar();
+		}
+	}
+	
+	private static class Bar {
+	}
+}
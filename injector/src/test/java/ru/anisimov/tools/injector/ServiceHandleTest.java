@@ -0,0 +1,77 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ServiceHandleTest {
+	@Test
+	public void handleResolvesNewInstances() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory());
+		
+		ServiceHandle<Bar> handle = builder.build().handle(Bar.class);
+		
+		assertNotNull(handle.resolve());
+		assertNotSame(handle.resolve(), handle.resolve());
+	}
+	
+	@Test
+	public void handlePassesArguments() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory(), String.class).named("named");
+		
+		ServiceHandle<Bar> handle = builder.build().handle("named", Bar.class, String.class);
+		
+		assertEquals("first", handle.resolve("first").name);
+	}
+	
+	@Test
+	public void handleSharesContainerScopedInstance() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory()).reusedWithin(ReuseScope.CONTAINER);
+		
+		Container parent = builder.build();
+		Container child = parent.createChildContainer();
+		ServiceHandle<Bar> handle = child.handle(Bar.class);
+		
+		assertSame(child.resolve(Bar.class), handle.resolve());
+		assertNotSame(parent.resolve(Bar.class), handle.resolve());
+	}
+	
+	@Test
+	public void handleSharesHierarchyScopedInstance() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Bar.class, new BarFactory()).reusedWithin(ReuseScope.HIERARCHY);
+		
+		Container parent = builder.build();
+		ServiceHandle<Bar> handle = parent.createChildContainer().handle(Bar.class);
+		
+		assertSame(parent.resolve(Bar.class), handle.resolve());
+	}
+	
+	@Test(expected=ResolutionException.class)
+	public void handleForNotRegisteredServiceThrows() throws ResolutionException {
+		Container.Builder.newInstance().build().handle(Bar.class);
+	}
+	
+	private static class BarFactory implements Factory<Bar> {
+		@Override
+		public Bar newInstance(Object... args) { 
+			return new Bar(args.length > 0 ? (String) args[0] : ""); 
+		}
+	}
+	
+	private static class Bar {
+		private String name;
+		
+		public Bar(String name) {
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+import ru.anisimov.tools.injector.exceptions.ServiceNotFoundException;
+
+@RunWith(JUnit4.class)
+public class ServiceNotFoundTest {
+	private static final Factory<Object> FACTORY = new Factory<Object>() {
+		@Override
+		public Object newInstance(Object... args) {
+			return new Object();
+		}
+	};
+	
+	@Test
+	public void missDescribesRequestAndRegistrations() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Object.class, FACTORY).named("a");
+		builder.register(Object.class, FACTORY, Integer.class);
+		Container child = builder.build().createChildContainer();
+		
+		try {
+			child.resolve("b", Object.class, "x", null);
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertSame(Object.class, e.getServiceType());
+			assertEquals("b", e.getName());
+			assertEquals("No registration of java.lang.Object(java.lang.String, null) named \"b\" in 2 containers; " + 
+					"registered as java.lang.Object:\n\tjava.lang.Object named \"a\"\n\tjava.lang.Object(java.lang.Integer)", 
+					e.getMessage());
+			assertTrue(e.getStackTrace().length > 0);
+		}
+		try {
+			child.handle(String.class);
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertEquals("No registration of java.lang.String in 2 containers; nothing is registered as java.lang.String", 
+					e.getMessage());
+		}
+	}
+	
+	@Test
+	public void unreadMessagesDoNotRetainTheContainer() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Object.class, FACTORY).named("a");
+		Container container = builder.build();
+		
+		try {
+			container.resolve(Object.class, new Object());
+			fail();
+		} catch (ServiceNotFoundException e) {
+			Field field = ServiceNotFoundException.class.getDeclaredField("description");
+			field.setAccessible(true);
+			Object description = field.get(e);
+			for (Field captured: description.getClass().getDeclaredFields()) {
+				assertFalse(captured.toString(), Container.class.isAssignableFrom(captured.getType()));
+				assertFalse(captured.toString(), Registry.class.isAssignableFrom(captured.getType()));
+				assertFalse(captured.toString(), captured.getType() == Object[].class);
+			}
+		}
+	}
+	
+	@Test
+	public void stacklessMissesHaveNoStackTrace() throws ResolutionException {
+		Container container = Container.Builder.newInstance().stacklessMisses().build();
+		
+		try {
+			container.resolve(Object.class);
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertEquals(0, e.getStackTrace().length);
+			assertTrue(e.getMessage().startsWith("No registration of java.lang.Object in 1 container"));
+		}
+	}
+	
+	@Test
+	public void rememberedMissesAreForgottenOnRebind() throws ResolutionException {
+		Container container = Container.Builder.newInstance().stacklessMisses().build();
+		assertNull(container.tryResolve("a", Object.class, "x"));
+		assertNull(container.tryResolve("a", Object.class, "x"));
+		
+		container.rebind(new RegistrationModule() {
+			@Override
+			public void configure(Container.Builder builder) {
+				builder.register(Object.class, FACTORY, CharSequence.class).named("a");
+			}
+		});
+		
+		assertNotNull(container.tryResolve("a", Object.class, "x"));
+		try {
+			container.resolve(Object.class);
+			fail();
+		} catch (ServiceNotFoundException e) {
+			assertEquals(0, e.getStackTrace().length);
+		}
+	}
+}
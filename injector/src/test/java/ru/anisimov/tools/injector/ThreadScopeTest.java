@@ -0,0 +1,207 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class ThreadScopeTest {
+	@Test
+	public void threadScopedInstancesArePerThread() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new HelperFactory()).reusedWithin(ReuseScope.THREAD);
+		final Container container = builder.build();
+		
+		Helper helper = container.resolve(Helper.class);
+		assertSame(helper, container.resolve(Helper.class));
+		assertSame(helper, container.createChildContainer().resolve(Helper.class));
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Callable<Helper> resolve = new Callable<Helper>() {
+				@Override
+				public Helper call() throws Exception {
+					return container.resolve(Helper.class);
+				}
+			};
+			Helper other = executor.submit(resolve).get();
+			assertNotSame(helper, other);
+			assertSame(other, executor.submit(resolve).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test(expected=ResolutionException.class)
+	public void threadScopedCircularDependencyThrows() throws ResolutionException {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new ContainerAwareFactory<Helper>() {
+			@Override
+			public Helper newInstance(Container container, Object... args) throws ResolutionException {
+				return container.resolve(Helper.class);
+			}
+		}).reusedWithin(ReuseScope.THREAD);
+		
+		builder.build().resolve(Helper.class);
+	}
+	
+	@Test
+	public void executionScopedInstancesArePerScope() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new HelperFactory()).reusedWithin(ReuseScope.EXECUTION);
+		final Container container = builder.build();
+		Callable<Helper> resolve = new Callable<Helper>() {
+			@Override
+			public Helper call() throws Exception {
+				return container.resolve(Helper.class);
+			}
+		};
+		
+		ExecutionScope first = new ExecutionScope();
+		ExecutionScope second = new ExecutionScope();
+		Helper helper = first.call(resolve);
+		
+		assertSame(helper, first.call(resolve));
+		assertNotSame(helper, second.call(resolve));
+		assertNull(ExecutionScope.currentOrNull());
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			List<Future<Helper>> results = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				final ExecutionScope scope = i == 0 ? first : new ExecutionScope();
+				results.add(executor.submit(new Callable<Helper>() {
+					@Override
+					public Helper call() throws Exception {
+						return scope.call(new Callable<Helper>() {
+							@Override
+							public Helper call() throws Exception {
+								return container.resolve(Helper.class);
+							}
+						});
+					}
+				}));
+			}
+			assertSame(helper, results.get(0).get());
+			assertNotSame(results.get(1).get(), results.get(2).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void nullExecutionScopedInstancesAreKept() throws Exception {
+		final AtomicInteger created = new AtomicInteger();
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new Factory<Helper>() {
+			@Override
+			public Helper newInstance(Object... args) {
+				created.incrementAndGet();
+				return null;
+			}
+		}).reusedWithin(ReuseScope.EXECUTION);
+		final Container container = builder.build();
+		
+		ExecutionScope scope = new ExecutionScope();
+		scope.call(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				assertNull(container.resolve(Helper.class));
+				assertNull(container.resolve(Helper.class));
+				return null;
+			}
+		});
+		scope.close();
+		
+		assertEquals(1, created.get());
+	}
+	
+	@Test
+	public void nestedScopesRestoreTheOuterOne() throws Exception {
+		final ExecutionScope outer = new ExecutionScope();
+		final ExecutionScope inner = new ExecutionScope();
+		outer.run(new Runnable() {
+			@Override
+			public void run() {
+				inner.run(new Runnable() {
+					@Override
+					public void run() {
+						assertSame(inner, ExecutionScope.currentOrNull());
+					}
+				});
+				assertSame(outer, ExecutionScope.currentOrNull());
+			}
+		});
+		assertNull(ExecutionScope.currentOrNull());
+	}
+	
+	@Test
+	public void resolvingOutsideOfScopeThrows() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new HelperFactory()).reusedWithin(ReuseScope.EXECUTION);
+		
+		try {
+			builder.build().resolve(Helper.class);
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("No execution scope", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void closingScopeDisposesItsInstances() throws Exception {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Helper.class, new HelperFactory()).reusedWithin(ReuseScope.EXECUTION);
+		final Container container = builder.build();
+		
+		final ExecutionScope scope = new ExecutionScope();
+		Helper helper = scope.call(new Callable<Helper>() {
+			@Override
+			public Helper call() throws Exception {
+				return container.resolve(Helper.class);
+			}
+		});
+		scope.close();
+		
+		assertTrue(helper.closed);
+		try {
+			scope.call(new Callable<Helper>() {
+				@Override
+				public Helper call() throws Exception {
+					return container.resolve(Helper.class);
+				}
+			});
+			fail();
+		} catch (ResolutionException e) {
+			assertEquals("Execution scope is closed", e.getMessage());
+		}
+	}
+	
+	private static class HelperFactory implements Factory<Helper> {
+		@Override
+		public Helper newInstance(Object... args) {
+			return new Helper();
+		}
+	}
+	
+	private static class Helper implements AutoCloseable {
+		private boolean closed;
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package ru.anisimov.tools.injector;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import ru.anisimov.tools.injector.exceptions.RegistrationException;
+import ru.anisimov.tools.injector.exceptions.ResolutionException;
+
+@RunWith(JUnit4.class)
+public class WarmUpTest {
+	private ExecutorService executor;
+	
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void independentEagerServicesAreBuiltInParallel() throws Exception {
+		final CountDownLatch allStarted = new CountDownLatch(3);
+		final AtomicInteger created = new AtomicInteger();
+		Container.Builder builder = Container.Builder.newInstance();
+		for (String name: new String[] { "a", "b", "c" }) {
+			builder.register(Part.class, new ContainerAwareFactory<Part>() {
+				@Override
+				public Part newInstance(Container container, Object... args) throws ResolutionException {
+					created.incrementAndGet();
+					allStarted.countDown();
+					try {
+						if (!allStarted.await(5, TimeUnit.SECONDS)) {
+							throw new ResolutionException("Parts were built one by one");
+						}
+					} catch (InterruptedException e) {
+						throw new ResolutionException("Interrupted", e);
+					}
+					return new Part();
+				}
+			}).named(name).reusedWithin(ReuseScope.HIERARCHY).eager();
+		}
+		Container container = builder.build();
+		
+		WarmUpReport report = container.warmUp(executor);
+		
+		assertTrue(report.toString(), report.isComplete());
+		assertEquals(3, report.getConstructions().size());
+		assertTrue(report.getCriticalPathNanos() <= report.getTotalConstructionNanos());
+		container.resolve("a", Part.class);
+		container.createChildContainer().resolve("c", Part.class);
+		assertEquals(3, created.get());
+	}
+	
+	@Test
+	public void dependenciesAreBuiltBeforeTheirDependents() throws Exception {
+		final List<String> built = Collections.synchronizedList(new ArrayList<String>());
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				built.add("part");
+				return new Part();
+			}
+		}).reusedWithin(ReuseScope.HIERARCHY);
+		builder.register(Object.class, new ContainerAwareFactory<Object>() {
+			@Override
+			public Object newInstance(Container container, Object... args) throws ResolutionException {
+				return container.resolve(Part.class);
+			}
+		}).dependsOn(Part.class);
+		builder.register(Whole.class, new ContainerAwareFactory<Whole>() {
+			@Override
+			public Whole newInstance(Container container, Object... args) throws ResolutionException {
+				built.add("whole");
+				return new Whole((Part) container.resolve(Object.class));
+			}
+		}).dependsOn(Object.class).reusedWithin(ReuseScope.CONTAINER).eager();
+		Container container = builder.build();
+		
+		WarmUpReport report = container.warmUp(executor);
+		
+		assertEquals(Arrays.asList("part", "whole"), built);
+		assertEquals(2, report.getConstructions().size());
+		assertSame(Part.class, report.getConstructions().get(0).getServiceType());
+		assertSame(Whole.class, report.getConstructions().get(1).getServiceType());
+		assertSame(container.resolve(Part.class), container.resolve(Whole.class).part);
+	}
+	
+	@Test
+	public void timedOutAndFailedServicesAreReportedWithTheirDependents() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new Part();
+			}
+		}).named("slow").reusedWithin(ReuseScope.HIERARCHY).eager(20, TimeUnit.MILLISECONDS);
+		builder.register(Whole.class, new ContainerAwareFactory<Whole>() {
+			@Override
+			public Whole newInstance(Container container, Object... args) throws ResolutionException {
+				return new Whole(container.resolve("slow", Part.class));
+			}
+		}).dependsOn("slow", Part.class).reusedWithin(ReuseScope.HIERARCHY).eager();
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				throw new IllegalStateException("broken");
+			}
+		}).named("broken").reusedWithin(ReuseScope.HIERARCHY).eager();
+		Container container = builder.build();
+		
+		WarmUpReport report;
+		try {
+			report = container.warmUp(executor);
+		} finally {
+			release.countDown();
+		}
+		
+		assertFalse(report.isComplete());
+		assertEquals(3, report.getFailures().size());
+		for (WarmUpReport.Construction construction: report.getConstructions()) {
+			if ("slow".equals(construction.getName())) {
+				assertTrue(construction.isTimedOut());
+			} else if ("broken".equals(construction.getName())) {
+				assertEquals("broken", construction.getFailure().getMessage());
+			} else {
+				assertTrue(construction.getFailure() instanceof ResolutionException);
+			}
+		}
+		assertNotNull(container.resolve(Whole.class));
+	}
+	
+	@Test(expected = RegistrationException.class)
+	public void eagerRegistrationsHaveToBeReused() {
+		Container.Builder builder = Container.Builder.newInstance();
+		builder.register(Part.class, new Factory<Part>() {
+			@Override
+			public Part newInstance(Object... args) {
+				return new Part();
+			}
+		}).eager();
+		builder.build();
+	}
+	
+	private static class Part {}
+	
+	private static class Whole {
+		final Part part;
+		
+		Whole(Part part) {
+			this.part = part;
+		}
+	}
+}